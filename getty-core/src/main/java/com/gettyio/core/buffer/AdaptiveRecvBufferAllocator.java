@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自适应读缓冲区大小预测器（每个通道一个实例）。
+ * <p>
+ * 根据最近的读取量在尺寸表中上下移动：一次读满预测值时立即放大（跳 4 档），
+ * 连续两次读取量小于下一档时缩小（退 1 档）。批量传输的连接很快增长到大缓冲区，
+ * 空闲或小包连接则收缩到小缓冲区，减少内存占用。
+ * </p>
+ * <p>
+ * 非线程安全，仅由通道的读线程（NIO 事件循环线程或 AIO 读回调）访问。
+ * </p>
+ * <p>
+ * 尺寸表与档位调整算法移植自 Netty 的 {@code io.netty.channel.AdaptiveRecvByteBufAllocator}
+ * （Copyright 2012 The Netty Project，Apache License 2.0），见 NOTICE。
+ * </p>
+ *
+ * @author gogym
+ */
+public final class AdaptiveRecvBufferAllocator {
+
+    /** 放大步长（档位） */
+    private static final int INDEX_INCREMENT = 4;
+
+    /** 缩小步长（档位） */
+    private static final int INDEX_DECREMENT = 1;
+
+    /** 尺寸表：16 ~ 496 按 16 递增，512 起按 2 倍递增 */
+    private static final int[] SIZE_TABLE;
+
+    static {
+        List<Integer> sizeTable = new ArrayList<>();
+        for (int i = 16; i < 512; i += 16) {
+            sizeTable.add(i);
+        }
+        for (int i = 512; i > 0; i <<= 1) {
+            sizeTable.add(i);
+        }
+        SIZE_TABLE = new int[sizeTable.size()];
+        for (int i = 0; i < SIZE_TABLE.length; i++) {
+            SIZE_TABLE[i] = sizeTable.get(i);
+        }
+    }
+
+    /** 最小缓冲区大小，预测值不小于此值 */
+    private final int minimum;
+
+    /** 最大缓冲区大小，预测值不大于此值 */
+    private final int maximum;
+
+    /** 最小档位 */
+    private final int minIndex;
+
+    /** 最大档位 */
+    private final int maxIndex;
+
+    /** 当前档位 */
+    private int index;
+
+    /** 下一次读取的预测大小 */
+    private int nextReceiveBufferSize;
+
+    /** 上一次读取量已偏小，再次偏小时缩小 */
+    private boolean decreaseNow;
+
+    /**
+     * 构造预测器。
+     *
+     * @param minimum 最小缓冲区大小
+     * @param initial 初始缓冲区大小
+     * @param maximum 最大缓冲区大小
+     */
+    public AdaptiveRecvBufferAllocator(int minimum, int initial, int maximum) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum: " + minimum);
+        }
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+
+        this.minimum = minimum;
+        this.maximum = maximum;
+
+        // 限定在尺寸表范围内：maximum 小于最小档位或区间内没有档位时两者重合，预测值由 sizeAt 截断到 [minimum, maximum]
+        int min = getSizeTableIndex(minimum);
+        this.minIndex = Math.min(SIZE_TABLE[min] < minimum ? min + 1 : min, SIZE_TABLE.length - 1);
+
+        int max = getSizeTableIndex(maximum);
+        this.maxIndex = Math.max(SIZE_TABLE[max] > maximum ? max - 1 : max, minIndex);
+
+        this.index = Math.max(minIndex, Math.min(maxIndex, getSizeTableIndex(initial)));
+        this.nextReceiveBufferSize = sizeAt(index);
+    }
+
+    /**
+     * 档位对应的缓冲区大小，截断到 [minimum, maximum]。
+     */
+    private int sizeAt(int index) {
+        return Math.max(minimum, Math.min(maximum, SIZE_TABLE[index]));
+    }
+
+    /**
+     * 获取下一次读取应使用的缓冲区大小。
+     *
+     * @return 预测大小（字节）
+     */
+    public int guess() {
+        return nextReceiveBufferSize;
+    }
+
+    /**
+     * 记录一次实际读取量，调整下一次的预测值。
+     *
+     * @param actualReadBytes 实际读取的字节数
+     */
+    public void record(int actualReadBytes) {
+        if (actualReadBytes <= SIZE_TABLE[Math.max(0, index - INDEX_DECREMENT)]) {
+            if (decreaseNow) {
+                index = Math.max(index - INDEX_DECREMENT, minIndex);
+                nextReceiveBufferSize = sizeAt(index);
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else if (actualReadBytes >= nextReceiveBufferSize) {
+            index = Math.min(index + INDEX_INCREMENT, maxIndex);
+            nextReceiveBufferSize = sizeAt(index);
+            decreaseNow = false;
+        }
+    }
+
+    /**
+     * 二分查找大于等于 size 的最小档位。
+     */
+    private static int getSizeTableIndex(final int size) {
+        for (int low = 0, high = SIZE_TABLE.length - 1; ; ) {
+            if (high < low) {
+                return low;
+            }
+            if (high == low) {
+                return high;
+            }
+
+            int mid = low + high >>> 1;
+            int a = SIZE_TABLE[mid];
+            int b = SIZE_TABLE[mid + 1];
+            if (size > b) {
+                low = mid + 1;
+            } else if (size < a) {
+                high = mid - 1;
+            } else if (size == a) {
+                return mid;
+            } else {
+                return mid + 1;
+            }
+        }
+    }
+}
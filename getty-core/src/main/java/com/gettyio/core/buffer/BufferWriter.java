@@ -15,9 +15,17 @@
  */
 package com.gettyio.core.buffer;
 
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+import com.gettyio.core.channel.WriteFuture;
+
 import java.io.IOException;
+import java.net.DatagramPacket;
+import java.nio.channels.ClosedChannelException;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 控制数据输出。
@@ -27,6 +35,15 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * 永不阻塞业务线程；消费线程（EventLoop / AIO 写线程 / UDP 写线程）
  * 通过 {@link #pollAll(List)} 从队列批量取出数据写出。
  * </p>
+ * <p>
+ * 队列另外维护待写消息数和待写字节数两个原子计数器，{@link #getCount()} 与
+ * {@link #getPendingBytes()} 均为 O(1)。待写字节数在入队时增加，在数据真正写入
+ * Socket 后由通道调用 {@link #bytesWritten(long)} 扣减；越过高/低水位线时切换可写状态，
+ * 并通过 {@link FlushNotifier#writabilityChanged(boolean)} 通知通道。
+ * </p>
+ * <p>
+ * 队列中可以夹带 {@link WriteFuture} 标记，IO 线程写出它之前的全部数据后将其置为成功。
+ * </p>
  *
  * @author gogym
  */
@@ -43,13 +60,44 @@ public final class BufferWriter extends AbstractBufferWriter {
      */
     private final ConcurrentLinkedQueue<Object> messageQueue = new ConcurrentLinkedQueue<>();
 
+    /** 队列中待写出的消息数 */
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+
+    /** 已入队但尚未写入 Socket 的字节数（含 IO 线程已取出、正在写出的部分） */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /** 当前是否可写（待写字节数未超过高水位线） */
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+
+    /** 高水位线（字节），小于等于 0 表示不跟踪可写状态 */
+    private final long highWaterMark;
+
+    /** 低水位线（字节） */
+    private final long lowWaterMark;
+
     /**
-     * 构造方法
+     * 构造方法，不跟踪可写状态。
      *
      * @param flushNotifier 写出通知器
      */
     public BufferWriter(FlushNotifier flushNotifier) {
+        this(flushNotifier, 0, 0);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param flushNotifier 写出通知器
+     * @param highWaterMark 高水位线（字节），待写字节数达到此值时标记为不可写；小于等于 0 表示不跟踪
+     * @param lowWaterMark  低水位线（字节），待写字节数降至此值时恢复可写
+     */
+    public BufferWriter(FlushNotifier flushNotifier, long highWaterMark, long lowWaterMark) {
+        if (highWaterMark > 0 && (lowWaterMark < 0 || lowWaterMark >= highWaterMark)) {
+            throw new IllegalArgumentException("lowWaterMark must be in [0, highWaterMark): " + lowWaterMark);
+        }
         this.flushNotifier = flushNotifier;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
     }
 
     @Override
@@ -67,6 +115,12 @@ public final class BufferWriter extends AbstractBufferWriter {
             throw new NullPointerException("msg is null");
         }
         messageQueue.offer(msg);
+        pendingMessages.incrementAndGet();
+        incrementPendingBytes(sizeOf(msg));
+        if (closed) {
+            // 与 close() 并发入队，close 的清理可能已结束，再清理一次
+            discardAll(new ClosedChannelException());
+        }
     }
 
     /**
@@ -84,7 +138,7 @@ public final class BufferWriter extends AbstractBufferWriter {
     /**
      * 关闭输出流。
      * <p>
-     * 标记为已关闭，清空队列中残留的消息，防止资源泄漏。
+     * 标记为已关闭，释放队列中残留的缓冲区，并将未完成的 {@link WriteFuture} 置为失败。
      * </p>
      */
     @Override
@@ -93,7 +147,38 @@ public final class BufferWriter extends AbstractBufferWriter {
             return;
         }
         closed = true;
-        messageQueue.clear();
+        discardAll(new ClosedChannelException());
+    }
+
+    /**
+     * 取出并丢弃队列中的全部消息，并从待写字节数中扣减。
+     */
+    private void discardAll(Throwable cause) {
+        Object msg;
+        long bytes = 0;
+        while ((msg = messageQueue.poll()) != null) {
+            pendingMessages.decrementAndGet();
+            // 释放后池化缓冲区可能被回收复用，须先计算大小
+            bytes += sizeOf(msg);
+            discard(msg, cause);
+        }
+        bytesWritten(bytes);
+    }
+
+    /**
+     * 丢弃一条未写出的消息：释放池化缓冲区和文件区域，写出结果置为失败。
+     *
+     * @param msg   队列中取出的消息
+     * @param cause 失败原因
+     */
+    public static void discard(Object msg, Throwable cause) {
+        if (msg instanceof PooledByteBuffer) {
+            ((PooledByteBuffer) msg).release();
+        } else if (msg instanceof FileRegion) {
+            ((FileRegion) msg).release();
+        } else if (msg instanceof WriteFuture) {
+            ((WriteFuture) msg).setFailure(cause);
+        }
     }
 
     @Override
@@ -105,18 +190,104 @@ public final class BufferWriter extends AbstractBufferWriter {
     @Override
     public void pollAll(List list) {
         Object msg;
+        int count = 0;
         while ((msg = messageQueue.poll()) != null) {
             list.add(msg);
+            count++;
         }
+        if (count > 0) {
+            pendingMessages.addAndGet(-count);
+        }
+    }
+
+    /**
+     * 通道将数据写入 Socket 后调用，扣减待写字节数。
+     * <p>
+     * 降至低水位线及以下时恢复可写状态。由 IO 线程调用。
+     * </p>
+     *
+     * @param bytes 本次实际写出的字节数
+     */
+    public void bytesWritten(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        long pending = pendingBytes.addAndGet(-bytes);
+        if (highWaterMark > 0 && pending <= lowWaterMark && writable.compareAndSet(false, true)) {
+            flushNotifier.writabilityChanged(true);
+        }
+    }
+
+    /**
+     * 增加待写字节数，达到高水位线时标记为不可写。
+     */
+    private void incrementPendingBytes(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        long pending = pendingBytes.addAndGet(bytes);
+        if (highWaterMark > 0 && pending >= highWaterMark && writable.compareAndSet(true, false)) {
+            flushNotifier.writabilityChanged(false);
+            // 置位前 IO 线程可能已将字节数扣减到低水位线以下，再检查一次避免永久不可写
+            if (pendingBytes.get() <= lowWaterMark && writable.compareAndSet(false, true)) {
+                flushNotifier.writabilityChanged(true);
+            }
+        }
+    }
+
+    /**
+     * 计算消息占用的字节数。
+     */
+    private static long sizeOf(Object msg) {
+        if (msg instanceof PooledByteBuffer) {
+            return ((PooledByteBuffer) msg).readableBytes();
+        }
+        if (msg instanceof FileRegion) {
+            return ((FileRegion) msg).remaining();
+        }
+        if (msg instanceof byte[]) {
+            return ((byte[]) msg).length;
+        }
+        if (msg instanceof DatagramPacket) {
+            return ((DatagramPacket) msg).getLength();
+        }
+        return 0;
+    }
+
+    /**
+     * 获取已入队但尚未写入 Socket 的字节数。
+     *
+     * @return 待写字节数
+     */
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * 当前是否可写（待写字节数未超过高水位线）。
+     *
+     * @return true 表示可写
+     */
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    /**
+     * 队列中是否没有待写出的消息。
+     *
+     * @return true 表示队列为空
+     */
+    public boolean isEmpty() {
+        return messageQueue.isEmpty();
     }
 
     /**
-     * 获取队列中待写出的消息数量。
+     * 获取队列中待写出的消息数量（O(1)，读取原子计数器）。
      *
      * @return 待写出数量
      */
     @Override
     public int getCount() {
-        return messageQueue.size();
+        return pendingMessages.get();
     }
 }
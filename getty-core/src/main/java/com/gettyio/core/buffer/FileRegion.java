@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer;
+
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 文件区域写出消息。
+ * <p>
+ * 作为出站消息经管道到达通道后进入 BufferWriter 队列：
+ * <ul>
+ *   <li>NIO 通道（无 SSL）：由 EventLoop 调用 {@link FileChannel#transferTo} 直接从页缓存发送（sendfile），
+ *       数据不经过用户态缓冲区</li>
+ *   <li>AIO 通道：写线程每次从文件读取一块到池化缓冲区后提交异步写出，写完再读下一块，
+ *       内存占用不随文件大小增长</li>
+ *   <li>SSL：由 SSLHandler 分块读入池化缓冲区加密后写出</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 写出完成或通道关闭时调用 {@link #release()} 关闭文件通道，提交后所有权归通道。
+ * 传输进度仅由 I/O 线程更新，非线程安全。
+ * </p>
+ *
+ * @author gogym
+ */
+public class FileRegion {
+
+    /** 分块读取时每块的默认大小（字节） */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /** 文件通道 */
+    private final FileChannel file;
+
+    /** 起始位置 */
+    private final long position;
+
+    /** 待传输字节数 */
+    private final long count;
+
+    /** 已传输字节数 */
+    private long transferred;
+
+    /** 是否已释放 */
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    /**
+     * 构造方法
+     *
+     * @param file     文件通道，释放时关闭
+     * @param position 起始位置
+     * @param count    待传输字节数
+     */
+    public FileRegion(FileChannel file, long position, long count) {
+        if (file == null) {
+            throw new NullPointerException("file can't be null");
+        }
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("position: " + position + ", count: " + count);
+        }
+        this.file = file;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * 以只读方式打开整个文件。
+     *
+     * @param file 文件
+     * @throws IOException 打开失败时抛出
+     */
+    public FileRegion(File file) throws IOException {
+        this(new RandomAccessFile(file, "r").getChannel(), 0, file.length());
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long transferred() {
+        return transferred;
+    }
+
+    /**
+     * 剩余待传输字节数。
+     *
+     * @return 剩余字节数
+     */
+    public long remaining() {
+        return count - transferred;
+    }
+
+    /**
+     * 是否已全部传输。
+     *
+     * @return true 表示已传输完毕
+     */
+    public boolean isDone() {
+        return transferred >= count;
+    }
+
+    /**
+     * 零拷贝传输剩余数据到目标通道，目标不可写时可能只传输一部分或为 0。
+     *
+     * @param target 目标通道
+     * @return 本次传输的字节数
+     * @throws IOException 传输失败或文件长度小于声明的区域时抛出
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long remaining = count - transferred;
+        if (remaining <= 0) {
+            return 0;
+        }
+        long written = file.transferTo(position + transferred, remaining, target);
+        if (written == 0 && position + transferred >= file.size()) {
+            throw new EOFException("file truncated, expected " + count + " bytes but transferred " + transferred);
+        }
+        transferred += written;
+        return written;
+    }
+
+    /**
+     * 读取下一块数据到新的池化缓冲区。
+     *
+     * @param byteBufferPool 内存池
+     * @param chunkSize      最大块大小
+     * @return 包含下一块数据的缓冲区（readerIndex=0），由调用方负责释放；已传输完毕时返回 null
+     * @throws IOException 读取失败或文件长度小于声明的区域时抛出
+     */
+    public PooledByteBuffer readChunk(ByteBufferPool byteBufferPool, int chunkSize) throws IOException {
+        long remaining = count - transferred;
+        if (remaining <= 0) {
+            return null;
+        }
+        int len = (int) Math.min(remaining, chunkSize);
+        PooledByteBuffer buf = byteBufferPool.acquire(len);
+        try {
+            ByteBuffer bb = buf.flipToFill();
+            bb.limit(bb.position() + len);
+            while (bb.hasRemaining()) {
+                int n = file.read(bb, position + transferred + (len - bb.remaining()));
+                if (n < 0) {
+                    throw new EOFException("file truncated, expected " + count + " bytes");
+                }
+            }
+            buf.flipToFlush();
+        } catch (IOException e) {
+            buf.release();
+            throw e;
+        }
+        transferred += len;
+        return buf;
+    }
+
+    /**
+     * 释放区域并关闭文件通道，重复调用无副作用。
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // 忽略关闭异常
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileRegion{position=" + position + ", count=" + count + ", transferred=" + transferred + '}';
+    }
+}
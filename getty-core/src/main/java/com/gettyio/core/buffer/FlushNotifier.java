@@ -18,7 +18,8 @@ package com.gettyio.core.buffer;
 /**
  * 写出通知接口。
  * <p>
- * 由通道层实现，{@link BufferWriter} 在 flush 时调用 {@link #notifyFlush()}
+ * 由通道层实现，{@link BufferWriter} 在 flush 时调用 {@link #notifyFlush()}，
+ * 待写字节数越过水位线时调用 {@link #writabilityChanged(boolean)}
  * </p>
  *
  * @author gogym
@@ -28,4 +29,12 @@ public interface FlushNotifier {
      * 仅触发通知，不执行任何 I/O 操作。
      */
     void notifyFlush();
+
+    /**
+     * 可写状态变化通知。可能在业务线程或 IO 线程中调用，实现不得阻塞。
+     *
+     * @param writable true 表示恢复可写，false 表示待写数据已达到高水位线
+     */
+    default void writabilityChanged(boolean writable) {
+    }
 }
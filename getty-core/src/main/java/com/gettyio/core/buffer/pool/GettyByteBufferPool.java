@@ -45,6 +45,7 @@ import java.nio.ByteBuffer;
  *   │            PoolArena (第二级：区域管理器)              │
  *   │  管理多个 PoolChunk，按 size class 分配内存            │
  *   │  使用 ReentrantLock 保护，有少量竞争（~100ns）         │
+ *   │  池内有多个 Arena，线程按绑定数最少原则分散到各 Arena   │
  *   └──────────────────┬──────────────────────────────────┘
  *                      │
  *   ┌──────────────────▼──────────────────────────────────┐
@@ -90,16 +91,15 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
     // ======================== 核心组件 ========================
 
     /**
-     * 堆内存 Arena：管理堆内 ByteBuffer 的分配。
-     * 每个 GettyByteBufferPool 实例持有一个堆内存 Arena。
+     * 堆内存 Arena 数组：管理堆内 ByteBuffer 的分配。
+     * 每个线程缓存绑定其中一个，多线程分配时分散 Arena 锁竞争。
      */
-    private final PoolArena heapArena;
+    private final PoolArena[] heapArenas;
 
     /**
-     * 直接内存 Arena：管理堆外 DirectByteBuffer 的分配。
-     * 当 direct=true 时使用，可为 null（不使用直接内存时）。
+     * 直接内存 Arena 数组：管理堆外 DirectByteBuffer 的分配。
      */
-    private final PoolArena directArena;
+    private final PoolArena[] directArenas;
 
     /**
      * 是否默认使用直接内存。
@@ -136,7 +136,17 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
      * @param direct true 使用直接内存（堆外），false 使用堆内存
      */
     public GettyByteBufferPool(boolean direct) {
-        this(direct, PoolArena.DEFAULT_PAGE_SIZE, PoolArena.DEFAULT_MAX_ORDER);
+        this(direct, 0);
+    }
+
+    /**
+     * 创建指定内存类型和 Arena 数量的 GettyByteBufferPool。
+     *
+     * @param direct    true 使用直接内存（堆外），false 使用堆内存
+     * @param numArenas 每种内存类型的 Arena 数量，0 表示按 CPU 核数自动计算
+     */
+    public GettyByteBufferPool(boolean direct, int numArenas) {
+        this(direct, PoolArena.DEFAULT_PAGE_SIZE, PoolArena.DEFAULT_MAX_ORDER, numArenas);
     }
 
     /**
@@ -147,22 +157,71 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
      * @param maxOrder 二叉树最大深度（9~13），Chunk 大小 = pageSize * 2^maxOrder
      */
     public GettyByteBufferPool(boolean direct, int pageSize, int maxOrder) {
+        this(direct, pageSize, maxOrder, 0);
+    }
+
+    /**
+     * 使用自定义配置创建 GettyByteBufferPool。
+     *
+     * @param direct    true 使用直接内存，false 使用堆内存
+     * @param pageSize  页大小（字节），必须是 2 的幂且 >= 16
+     * @param maxOrder  二叉树最大深度（9~13），Chunk 大小 = pageSize * 2^maxOrder
+     * @param numArenas 每种内存类型的 Arena 数量，0 表示按 CPU 核数自动计算
+     */
+    public GettyByteBufferPool(boolean direct, int pageSize, int maxOrder, int numArenas) {
+        if (numArenas < 0) {
+            throw new IllegalArgumentException("numArenas: " + numArenas + " (expected: >= 0)");
+        }
         this.defaultDirect = direct;
-        this.heapArena = new PoolArena(false, pageSize, maxOrder);
-        this.directArena = new PoolArena(true, pageSize, maxOrder);
+        int chunkSize = pageSize << maxOrder;
+        int n = numArenas > 0 ? numArenas : defaultNumArenas(chunkSize);
+        this.heapArenas = new PoolArena[n];
+        this.directArenas = new PoolArena[n];
+        for (int i = 0; i < n; i++) {
+            heapArenas[i] = new PoolArena(false, pageSize, maxOrder);
+            directArenas[i] = new PoolArena(true, pageSize, maxOrder);
+        }
 
-        // 初始化 ThreadLocal，每个线程创建时自动分配独立的 ThreadCache
+        // 初始化 ThreadLocal，每个线程创建时绑定当前线程缓存数最少的 Arena
         this.threadCacheHolder = new ThreadLocal<PoolThreadCache>() {
             @Override
             protected PoolThreadCache initialValue() {
+                PoolArena heapArena = leastUsedArena(heapArenas);
+                PoolArena directArena = leastUsedArena(directArenas);
+                heapArena.numThreadCaches.getAndIncrement();
+                directArena.numThreadCaches.getAndIncrement();
                 return new PoolThreadCache(heapArena, directArena);
             }
         };
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("GettyByteBufferPool created: direct={}, pageSize={}, maxOrder={}, chunkSize={}",
-                    direct, pageSize, maxOrder, heapArena.chunkSize());
+            LOG.debug("GettyByteBufferPool created: direct={}, pageSize={}, maxOrder={}, chunkSize={}, arenas={}",
+                    direct, pageSize, maxOrder, chunkSize, n);
+        }
+    }
+
+    /**
+     * 计算默认 Arena 数量：CPU 核数的 2 倍（与事件循环线程数一致），
+     * 且所有 Arena 各持有 3 个 Chunk 时不超过最大堆内存的一半。
+     */
+    private static int defaultNumArenas(int chunkSize) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long byMemory = Runtime.getRuntime().maxMemory() / chunkSize / 2 / 3;
+        return (int) Math.max(1, Math.min(cores * 2L, byMemory));
+    }
+
+    /**
+     * 选择绑定线程缓存数最少的 Arena。
+     */
+    private static PoolArena leastUsedArena(PoolArena[] arenas) {
+        PoolArena min = arenas[0];
+        for (int i = 1; i < arenas.length; i++) {
+            PoolArena arena = arenas[i];
+            if (arena.numThreadCaches.get() < min.numThreadCaches.get()) {
+                min = arena;
+            }
         }
+        return min;
     }
 
     // ======================== ByteBufferPool 接口实现 ========================
@@ -204,14 +263,14 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
             int allocOffset = cache.getLastOffset();
 
             // 创建 PooledByteBuffer 包装
-            PooledByteBuffer pooled = new PooledByteBuffer(buffer, cache, allocChunk, allocOffset, normCapacity);
+            PooledByteBuffer pooled = PooledByteBuffer.newInstance(buffer, cache, allocChunk, allocOffset, normCapacity);
             pooled.activate();
             return pooled;
         }
 
         // 回退：直接分配（不应到达此处，除非 Arena 分配失败）
         ByteBuffer directBuf = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
-        PooledByteBuffer pooled = new PooledByteBuffer(directBuf, cache, null, 0, normCapacity);
+        PooledByteBuffer pooled = PooledByteBuffer.newInstance(directBuf, cache, null, 0, normCapacity);
         pooled.activate();
         return pooled;
     }
@@ -242,21 +301,46 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
     }
 
     /**
-     * 获取堆内存 Arena。
+     * 获取当前线程绑定的堆内存 Arena。
      *
      * @return 堆内存 PoolArena
      */
     public PoolArena getHeapArena() {
-        return heapArena;
+        return threadCacheHolder.get().heapArena;
     }
 
     /**
-     * 获取直接内存 Arena。
+     * 获取当前线程绑定的直接内存 Arena。
      *
      * @return 直接内存 PoolArena
      */
     public PoolArena getDirectArena() {
-        return directArena;
+        return threadCacheHolder.get().directArena;
+    }
+
+    /**
+     * 获取全部堆内存 Arena。
+     *
+     * @return 堆内存 PoolArena 数组副本
+     */
+    public PoolArena[] getHeapArenas() {
+        return heapArenas.clone();
+    }
+
+    /**
+     * 获取全部直接内存 Arena。
+     *
+     * @return 直接内存 PoolArena 数组副本
+     */
+    public PoolArena[] getDirectArenas() {
+        return directArenas.clone();
+    }
+
+    /**
+     * @return 每种内存类型的 Arena 数量
+     */
+    public int numArenas() {
+        return heapArenas.length;
     }
 
     /**
@@ -275,8 +359,12 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
         }
 
         // 清空 Arena
-        heapArena.clear();
-        directArena.clear();
+        for (PoolArena arena : heapArenas) {
+            arena.clear();
+        }
+        for (PoolArena arena : directArenas) {
+            arena.clear();
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("GettyByteBufferPool closed");
@@ -292,23 +380,29 @@ public class GettyByteBufferPool implements ByteBufferPool, Closeable {
      */
     public String summary() {
         PoolThreadCache cache = threadCacheHolder.get();
-        return String.format(
-                "GettyByteBufferPool{\n" +
-                        "  heapArena: %s\n" +
-                        "  directArena: %s\n" +
-                        "  threadCache: %s\n" +
-                        "  defaultDirect: %b\n" +
-                        "}",
-                heapArena,
-                directArena,
-                cache != null ? cache : "null",
-                defaultDirect
-        );
+        StringBuilder sb = new StringBuilder("GettyByteBufferPool{\n");
+        for (int i = 0; i < heapArenas.length; i++) {
+            sb.append("  heapArena[").append(i).append("]: ").append(heapArenas[i]).append('\n');
+        }
+        for (int i = 0; i < directArenas.length; i++) {
+            sb.append("  directArena[").append(i).append("]: ").append(directArenas[i]).append('\n');
+        }
+        sb.append("  threadCache: ").append(cache != null ? cache : "null").append('\n');
+        sb.append("  defaultDirect: ").append(defaultDirect).append('\n');
+        return sb.append('}').toString();
     }
 
     @Override
     public String toString() {
-        return String.format("GettyByteBufferPool{heapArena.chunks=%d,directArena.chunks=%d,direct=%b}",
-                heapArena.chunkCount(), directArena.chunkCount(), defaultDirect);
+        return String.format("GettyByteBufferPool{arenas=%d,heapArena.chunks=%d,directArena.chunks=%d,direct=%b}",
+                heapArenas.length, chunkCount(heapArenas), chunkCount(directArenas), defaultDirect);
+    }
+
+    private static int chunkCount(PoolArena[] arenas) {
+        int count = 0;
+        for (PoolArena arena : arenas) {
+            count += arena.chunkCount();
+        }
+        return count;
     }
 }
@@ -21,6 +21,8 @@ import com.gettyio.core.logging.InternalLoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -30,7 +32,7 @@ import java.util.concurrent.locks.ReentrantLock;
  * <ul>
  *   <li>管理 PoolChunk 的生命周期（创建、销毁、回收）</li>
  *   <li>维护 size class 索引表，实现 O(1) 的大小分类</li>
- *   <li>协调 PoolChunk 之间的负载均衡</li>
+ *   <li>按使用率将 PoolChunk 分入 {@link PoolChunkList}，优先从中等使用率的 Chunk 分配</li>
  *   <li>处理超大分配请求（超过 Chunk 容量的巨型缓冲区）</li>
  * </ul>
  *
@@ -42,10 +44,17 @@ import java.util.concurrent.locks.ReentrantLock;
  *   Huge:  > chunkSize/2             — 直接分配，不池化
  * </pre>
  *
+ * <h3>Chunk 选择：</h3>
+ * <p>
+ * 分配按 q050 → q025 → q000 → qInit → q075 的顺序查找 Chunk：优先填充半满的 Chunk，
+ * 使内存集中在少数 Chunk 中，空闲的 Chunk 更容易被释放；使用率 100% 的 Chunk 位于 q100，
+ * 分配时从不探测。链表数量固定，分配耗时不随 Chunk 总数增长。
+ * </p>
+ *
  * <h3>线程安全：</h3>
  * <p>
- * 使用 {@link ReentrantLock} 保护 Chunk 列表的增删操作。
- * 单次分配操作内部先获取锁再操作 Chunk 列表，操作完成后释放锁。
+ * 使用 {@link ReentrantLock} 保护 Chunk 链表。
+ * 分配和释放都在锁内完成，Chunk 的使用率变化与链表迁移保持一致。
  * </p>
  *
  * @author Getty Project
@@ -124,6 +133,14 @@ public class PoolArena {
      */
     private final int numSizeClasses;
 
+    // ======================== 子页管理 ========================
+
+    /**
+     * 按 size class 索引的子页链表头（Tiny 与 Small），链表中是所有 Chunk 里仍有空闲 slot 的子页。
+     * Tiny/Small 分配先从这里取，命中时不需要遍历 Chunk 链表。
+     */
+    final PoolSubpage[] subpagePools;
+
     // ======================== Chunk 管理 ========================
 
     /**
@@ -133,20 +150,40 @@ public class PoolArena {
     private final ReentrantLock chunkLock = new ReentrantLock();
 
     /**
-     * Chunk 列表，按使用率从低到高排列。
-     * 分配时优先选择使用率最低的 Chunk。
+     * 按使用率分段的 Chunk 链表，区间相互重叠，见 {@link PoolChunkList}。
      */
-    private final List<PoolChunk> chunks;
+    private final PoolChunkList qInit;
+    private final PoolChunkList q000;
+    private final PoolChunkList q025;
+    private final PoolChunkList q050;
+    private final PoolChunkList q075;
+    private final PoolChunkList q100;
+
+    /**
+     * 全部链表，按使用率从低到高排列，用于遍历统计和清理。
+     */
+    private final PoolChunkList[] chunkLists;
 
     /**
      * 已创建的 Chunk 总数（用于统计）。
      */
     private int chunkCount;
 
+    /**
+     * 当前存活的 Chunk 数量。
+     */
+    private int activeChunks;
+
     /**
      * 超大分配计数器，超过 Chunk 容量的请求直接分配。
+     * 超大分配不持有 chunkLock，而 Arena 被多个线程共享，因此使用原子计数。
+     */
+    private final AtomicLong hugeAllocationCount = new AtomicLong();
+
+    /**
+     * 绑定到此 Arena 的线程缓存数量，新线程缓存优先绑定数量最少的 Arena。
      */
-    private long hugeAllocationCount;
+    final AtomicInteger numThreadCaches = new AtomicInteger();
 
     // ======================== 构造与初始化 ========================
 
@@ -173,8 +210,23 @@ public class PoolArena {
         this.maxOrder = maxOrder;
         this.pageShifts = Integer.numberOfTrailingZeros(pageSize);
         this.chunkSize = 1 << (maxOrder + pageShifts);
-        this.chunks = new ArrayList<>();
         this.chunkCount = 0;
+        this.subpagePools = newSubpagePools(pageShifts);
+
+        // 构建使用率链表：qInit → q000 → q025 → q050 → q075 → q100
+        this.q100 = new PoolChunkList(this, null, 100, Integer.MAX_VALUE, chunkSize, "q100");
+        this.q075 = new PoolChunkList(this, q100, 75, 100, chunkSize, "q075");
+        this.q050 = new PoolChunkList(this, q075, 50, 100, chunkSize, "q050");
+        this.q025 = new PoolChunkList(this, q050, 25, 75, chunkSize, "q025");
+        this.q000 = new PoolChunkList(this, q025, 1, 50, chunkSize, "q000");
+        this.qInit = new PoolChunkList(this, q000, Integer.MIN_VALUE, 25, chunkSize, "qInit");
+        q100.prevList(q075);
+        q075.prevList(q050);
+        q050.prevList(q025);
+        q025.prevList(q000);
+        q000.prevList(null);
+        qInit.prevList(qInit);
+        this.chunkLists = new PoolChunkList[]{qInit, q000, q025, q050, q075, q100};
 
         // 构建 size class 表
         this.sizeClasses = buildSizeClasses(pageSize);
@@ -189,6 +241,34 @@ public class PoolArena {
         }
     }
 
+    /**
+     * 创建子页链表头数组：Tiny 类 [16, 496] 占 32 个位置（下标 = size / 16），
+     * 之后是 Small 类 512 ~ pageSize（2 的幂）。
+     *
+     * @param pageShifts log2(pageSize)
+     * @return 链表头数组
+     */
+    static PoolSubpage[] newSubpagePools(int pageShifts) {
+        PoolSubpage[] pools = new PoolSubpage[32 + Math.max(0, pageShifts - 8)];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new PoolSubpage();
+        }
+        return pools;
+    }
+
+    /**
+     * 计算子页规范化容量在链表头数组中的下标。
+     *
+     * @param normCapacity 规范化容量（<= pageSize）
+     * @return 下标
+     */
+    static int subpageIdx(int normCapacity) {
+        if (normCapacity < 512) {
+            return normCapacity >>> 4;
+        }
+        return 32 + Integer.numberOfTrailingZeros(normCapacity) - 9;
+    }
+
     /**
      * 构建所有 size class 的归一化大小数组。
      * <p>
@@ -250,34 +330,6 @@ public class PoolArena {
 
     // ======================== 分配（Allocate） ========================
 
-    /**
-     * 最近一次分配的 PoolChunk（由 allocate 设置，由 PoolThreadCache 读取）。
-     * 必须在 allocate() 之后立即调用 getLastAllocChunk() 获取。
-     * 由于 chunkLock 提供内存屏障，无需 volatile。
-     */
-    private PoolChunk lastAllocChunk;
-
-    /**
-     * 最近一次分配的内存偏移量。
-     */
-    private int lastAllocOffset;
-
-    /**
-     * 获取最近一次分配对应的 PoolChunk。
-     * 必须在 allocate() 之后立即调用。
-     */
-    public PoolChunk getLastAllocChunk() {
-        return lastAllocChunk;
-    }
-
-    /**
-     * 获取最近一次分配的内存偏移量。
-     * 必须在 allocate() 之后立即调用。
-     */
-    public int getLastAllocOffset() {
-        return lastAllocOffset;
-    }
-
     /**
      * 从 Arena 中分配指定大小的内存。
      * <p>
@@ -288,13 +340,24 @@ public class PoolArena {
      *   <li>如果现有 Chunk 都不够，创建新的 Chunk</li>
      *   <li>如果请求大小 > chunkSize/2（巨型分配），直接分配不池化</li>
      * </ol>
-     * 分配后通过 {@link #getLastAllocChunk()} 和 {@link #getLastAllocOffset()}
-     * 获取 Chunk 和偏移信息。
+     * 不记录分配位置，需要归还到池中的调用方应通过 {@link PoolThreadCache} 分配。
      *
      * @param capacity 请求容量（字节）
      * @return 分配的 ByteBuffer，或 null（参数非法时）
      */
     public ByteBuffer allocate(int capacity) {
+        return allocate(capacity, null);
+    }
+
+    /**
+     * 从 Arena 中分配指定大小的内存，并在 chunkLock 内将分配位置记录到调用方的线程缓存，
+     * 避免并发分配时读到其他线程的分配结果。
+     *
+     * @param capacity 请求容量（字节）
+     * @param cache    调用方线程缓存，可以为 null
+     * @return 分配的 ByteBuffer
+     */
+    ByteBuffer allocate(int capacity, PoolThreadCache cache) {
         if (capacity <= 0) {
             capacity = 1;
         }
@@ -303,35 +366,46 @@ public class PoolArena {
         int normCapacity = normalizeCapacity(capacity);
 
         // 重置分配记录
-        lastAllocChunk = null;
-        lastAllocOffset = 0;
+        if (cache != null) {
+            cache.recordAllocation(null, 0);
+        }
 
         // 巨型分配：直接分配，不经过池
         if (normCapacity < 0 || normCapacity > chunkSize / 2) {
             return allocateHuge(capacity);
         }
 
-        // 尝试从现有 Chunk 分配
         chunkLock.lock();
         try {
-            for (int i = 0; i < chunks.size(); i++) {
-                PoolChunk chunk = chunks.get(i);
-                ByteBuffer buf = chunk.allocate(normCapacity);
-                if (buf != null) {
-                    lastAllocChunk = chunk;
-                    lastAllocOffset = chunk.lastAllocOffset();
+            ByteBuffer buf;
+
+            // Tiny/Small：优先从同尺寸子页链表中有空闲 slot 的页分配
+            if (normCapacity <= pageSize) {
+                PoolSubpage head = subpagePools[subpageIdx(normCapacity)];
+                PoolSubpage subpage = head.next;
+                if (subpage != head && (buf = subpage.chunk.allocateSubpage(subpage)) != null) {
+                    recordAllocation(cache, subpage.chunk);
                     return buf;
                 }
             }
 
-            // 所有现有 Chunk 都满了，创建新 Chunk
-            PoolChunk newChunk = newChunk();
-            chunks.add(newChunk);
+            // 尝试从现有 Chunk 分配，优先中等使用率的链表，q100 不参与
+            if ((buf = q050.allocate(normCapacity, cache)) != null
+                    || (buf = q025.allocate(normCapacity, cache)) != null
+                    || (buf = q000.allocate(normCapacity, cache)) != null
+                    || (buf = qInit.allocate(normCapacity, cache)) != null
+                    || (buf = q075.allocate(normCapacity, cache)) != null) {
+                return buf;
+            }
 
-            ByteBuffer buf = newChunk.allocate(normCapacity);
+            // 现有 Chunk 都无法满足，创建新 Chunk
+            PoolChunk newChunk = newChunk();
+            buf = newChunk.allocate(normCapacity);
+            if (buf != null) {
+                recordAllocation(cache, newChunk);
+            }
+            qInit.add(newChunk);
             if (buf != null) {
-                lastAllocChunk = newChunk;
-                lastAllocOffset = newChunk.lastAllocOffset();
                 return buf;
             }
         } finally {
@@ -342,6 +416,15 @@ public class PoolArena {
         return allocateHuge(capacity);
     }
 
+    /**
+     * 将分配位置记录到调用方线程缓存（在 chunkLock 内调用）。
+     */
+    void recordAllocation(PoolThreadCache cache, PoolChunk chunk) {
+        if (cache != null) {
+            cache.recordAllocation(chunk, chunk.lastAllocOffset());
+        }
+    }
+
     /**
      * 将请求容量规范化到最近的 size class。
      * <p>
@@ -362,7 +445,7 @@ public class PoolArena {
      * @return 分配的 ByteBuffer
      */
     private ByteBuffer allocateHuge(int capacity) {
-        hugeAllocationCount++;
+        hugeAllocationCount.incrementAndGet();
         if (direct) {
             return ByteBuffer.allocateDirect(capacity);
         }
@@ -376,6 +459,7 @@ public class PoolArena {
      */
     private PoolChunk newChunk() {
         chunkCount++;
+        activeChunks++;
         return new PoolChunk(this, pageSize, maxOrder, direct);
     }
 
@@ -384,27 +468,31 @@ public class PoolArena {
     /**
      * 释放指定内存区域。
      * <p>
-     * 根据 offset 和 normCapacity 找到对应的 Chunk 并归还内存。
-     * 如果 Chunk 变为完全空闲且不是最后一个 Chunk，则销毁该 Chunk。
+     * 根据 offset 和 normCapacity 找到对应的 Chunk 并归还内存，必要时将 Chunk 移入使用率更低的链表。
+     * q000 中的 Chunk 变为完全空闲时销毁，但保留 Arena 的最后一个 Chunk（移回 qInit）。
      *
      * @param chunk        内存所属的 PoolChunk
      * @param offset       内存偏移量
      * @param normCapacity 规范化容量
      */
     void free(PoolChunk chunk, int offset, int normCapacity) {
-        chunk.free(offset, normCapacity);
-
-        // 如果 Chunk 完全空闲且不是唯一的 Chunk，考虑销毁
-        if (chunk.isEmpty()) {
-            chunkLock.lock();
-            try {
-                if (chunks.size() > 1 && chunk.isEmpty()) {
-                    chunks.remove(chunk);
+        chunkLock.lock();
+        try {
+            PoolChunkList list = chunk.parentList;
+            if (list == null) {
+                // Chunk 已随 clear() 销毁，其子页不能再挂回链表
+                return;
+            }
+            if (!list.free(chunk, offset, normCapacity)) {
+                if (activeChunks > 1) {
+                    activeChunks--;
                     chunk.destroy();
+                } else {
+                    qInit.add(chunk);
                 }
-            } finally {
-                chunkLock.unlock();
             }
+        } finally {
+            chunkLock.unlock();
         }
     }
 
@@ -418,11 +506,14 @@ public class PoolArena {
      * @return 匹配的 PoolChunk，或 null
      */
     PoolChunk findChunk(int offset) {
+        if (offset < 0 || offset >= chunkSize) {
+            return null;
+        }
         chunkLock.lock();
         try {
-            for (PoolChunk chunk : chunks) {
-                if (offset >= 0 && offset < chunk.chunkSize()) {
-                    return chunk;
+            for (PoolChunkList list : chunkLists) {
+                if (list.head() != null) {
+                    return list.head();
                 }
             }
         } finally {
@@ -439,10 +530,14 @@ public class PoolArena {
     public void clear() {
         chunkLock.lock();
         try {
-            for (PoolChunk chunk : chunks) {
-                chunk.destroy();
+            for (PoolChunkList list : chunkLists) {
+                list.destroy();
+            }
+            for (PoolSubpage head : subpagePools) {
+                head.prev = head;
+                head.next = head;
             }
-            chunks.clear();
+            activeChunks = 0;
         } finally {
             chunkLock.unlock();
         }
@@ -454,7 +549,7 @@ public class PoolArena {
     public int chunkCount() {
         chunkLock.lock();
         try {
-            return chunks.size();
+            return activeChunks;
         } finally {
             chunkLock.unlock();
         }
@@ -467,8 +562,10 @@ public class PoolArena {
         long total = 0;
         chunkLock.lock();
         try {
-            for (PoolChunk chunk : chunks) {
-                total += chunk.usage();
+            for (PoolChunkList list : chunkLists) {
+                for (PoolChunk chunk = list.head(); chunk != null; chunk = chunk.next) {
+                    total += chunk.usage();
+                }
             }
         } finally {
             chunkLock.unlock();
@@ -476,6 +573,32 @@ public class PoolArena {
         return total;
     }
 
+    /**
+     * @return 各使用率链表中的 Chunk 数量，形如 qInit=1,q000=0,...
+     */
+    public String chunkListSummary() {
+        chunkLock.lock();
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (PoolChunkList list : chunkLists) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(list);
+            }
+            return sb.toString();
+        } finally {
+            chunkLock.unlock();
+        }
+    }
+
+    /**
+     * @return 绑定到此 Arena 的线程缓存数量
+     */
+    public int numThreadCaches() {
+        return numThreadCaches.get();
+    }
+
     /**
      * @return 页大小
      */
@@ -499,7 +622,8 @@ public class PoolArena {
 
     @Override
     public String toString() {
-        return String.format("PoolArena{direct=%b,pageSize=%d,chunkSize=%d,chunks=%d,usage=%d}",
-                direct, pageSize, chunkSize, chunkCount(), totalUsedMemory());
+        return String.format("PoolArena{direct=%b,pageSize=%d,chunkSize=%d,chunks=%d,usage=%d,threadCaches=%d,lists=[%s]}",
+                direct, pageSize, chunkSize, chunkCount(), totalUsedMemory(), numThreadCaches.get(),
+                chunkListSummary());
     }
 }
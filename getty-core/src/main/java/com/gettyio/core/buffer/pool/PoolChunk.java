@@ -20,7 +20,6 @@ import com.gettyio.core.logging.InternalLoggerFactory;
 
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -34,9 +33,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <ul>
  *   <li>Chunk 的总容量 = 2^maxOrder * pageSize</li>
  *   <li>叶子节点（tree depth = maxOrder）每个代表一个 page（默认 8192 字节）</li>
- *   <li>内部节点值 = max(leftChild, rightChild)，表示子树中最大可用连续页数</li>
+ *   <li>内部节点值 = 子树中最大可用连续页数：左右子树都完全空闲时为两者之和，否则为 max(left, right)</li>
  *   <li>分配时从根节点向下搜索合适的空闲节点</li>
- *   <li>对于小于 pageSize 的分配，使用位图（bitmap）进行子页级管理</li>
+ *   <li>对于小于 pageSize 的分配，将页切分为等长 slot，由 {@link PoolSubpage} 的 long[] 位图管理</li>
  * </ul>
  *
  * <h3>线程安全：</h3>
@@ -111,24 +110,14 @@ public class PoolChunk {
     // ======================== 子页分配管理 ========================
 
     /**
-     * 子页位图映射表。
-     * key = 叶子节点索引（从 2^maxOrder 到 2^(maxOrder+1)-1）
-     * value = 该页的位图数组，每个 bit 代表一个 slot 的使用状态。
+     * 按页索引存放的子页，未被切分过的页为 null。页归还后对象保留，再次切分时复用。
      */
-    private final ConcurrentHashMap<Integer, AtomicInteger[]> subpageBitmaps;
+    private final PoolSubpage[] subpages;
 
     /**
-     * 每个叶子页当前已分配的 slot 数量。
-     * key = 叶子节点索引, value = 已分配数。
+     * 按 size class 索引的子页链表头，与所属 Arena 共享；独立使用（parent 为 null）时为 Chunk 私有。
      */
-    private final ConcurrentHashMap<Integer, AtomicInteger> pageAllocationCount;
-
-    /**
-     * 每个叶子页被分配时对应的 norm 大小。
-     * 确保同一页只服务于相同大小的分配请求。
-     * key = 叶子节点索引, value = 分配的规范化大小。
-     */
-    private final ConcurrentHashMap<Integer, Integer> pageSizeMap;
+    private final PoolSubpage[] subpagePools;
 
     // ======================== Chunk 状态 ========================
 
@@ -137,6 +126,12 @@ public class PoolChunk {
      */
     private final AtomicInteger usage;
 
+    /**
+     * 按页计算的空闲字节数：整页分配和被子页占用的页都计为已使用，
+     * 用于计算使用率并决定 Chunk 所在的 {@link PoolChunkList}。仅在 synchronized 方法内修改。
+     */
+    private int freeBytes;
+
     /**
      * 最后一次分配的内存偏移量。
      * 由 allocate 方法设置，由 PoolArena 通过 lastAllocOffset() 获取。
@@ -154,6 +149,11 @@ public class PoolChunk {
     PoolChunk prev;
     PoolChunk next;
 
+    /**
+     * Chunk 当前所在的 PoolChunkList，不在任何链表中时为 null。
+     */
+    PoolChunkList parentList;
+
     // ======================== 构造与初始化 ========================
 
     /**
@@ -172,6 +172,7 @@ public class PoolChunk {
         this.chunkSize = 1 << (maxOrder + pageShifts);
         this.direct = direct;
         this.usage = new AtomicInteger(0);
+        this.freeBytes = chunkSize;
 
         // 分配底层内存
         if (direct) {
@@ -187,9 +188,8 @@ public class PoolChunk {
         initTree();
 
         // 初始化子页管理结构
-        this.subpageBitmaps = new ConcurrentHashMap<>();
-        this.pageAllocationCount = new ConcurrentHashMap<>();
-        this.pageSizeMap = new ConcurrentHashMap<>();
+        this.subpages = new PoolSubpage[1 << maxOrder];
+        this.subpagePools = parent != null ? parent.subpagePools : PoolArena.newSubpagePools(pageShifts);
     }
 
     /**
@@ -198,7 +198,7 @@ public class PoolChunk {
      * 从叶子节点向上构建：
      * <ol>
      *   <li>每个叶子节点初始值为 1（代表 1 个空闲页）</li>
-     *   <li>每个内部节点 = max(左子节点, 右子节点)</li>
+     *   <li>每个内部节点 = 左右子节点之和（整棵子树空闲）</li>
      * </ol>
      * 初始化完成后，tree[1]（根节点）= 2^maxOrder，表示所有页均空闲。
      */
@@ -211,9 +211,9 @@ public class PoolChunk {
             tree[i] = 1;
         }
 
-        // 自底向上构建内部节点
+        // 自底向上构建内部节点：子树完全空闲，值为子树的页数
         for (int i = leafStart - 1; i >= 1; i--) {
-            tree[i] = Math.max(tree[2 * i], tree[2 * i + 1]);
+            tree[i] = tree[2 * i] + tree[2 * i + 1];
         }
     }
 
@@ -248,7 +248,8 @@ public class PoolChunk {
      * 整页分配（normCapacity >= pageSize）。
      * <p>
      * 使用二叉树从根节点向下搜索，找到恰好容纳请求大小的空闲区域。
-     * 搜索策略类似二分查找：如果左子树有足够的空间就走左边，否则走右边。
+     * 搜索策略类似二分查找：如果左子树有足够的空间就走左边，否则走右边，
+     * 直到深度 maxOrder - log2(needPages)，该节点代表的连续页即为分配结果。
      *
      * @param normCapacity 规范化容量
      * @return 分配的 ByteBuffer 切片，或 null
@@ -265,11 +266,12 @@ public class PoolChunk {
             return null;
         }
 
-        // 从根节点向下搜索合适的分配位置
+        // 从根节点向下搜索合适的分配位置，目标深度的节点恰好覆盖 needPages 个页
+        int targetDepth = maxOrder - log2(needPages);
         int node = 1;
         int depth = 0;
 
-        while (depth < maxOrder) {
+        while (depth < targetDepth) {
             int left = node << 1;
             int right = left | 1;
 
@@ -284,68 +286,42 @@ public class PoolChunk {
             depth++;
         }
 
-        // 到达叶子节点，执行分配
-        int leafNode = node;
-        tree[leafNode] = 0;
+        // 到达目标节点，整棵子树标记为已分配
+        tree[node] = 0;
 
         // 计算内存偏移量并创建视图
-        int offset = (leafNode - (1 << maxOrder)) * pageSize;
+        int offset = (node - (1 << targetDepth)) * normCapacity;
         lastAllocOffset = offset;
         ByteBuffer slice = createSlice(offset, normCapacity);
 
         // 更新路径上的树节点
-        updateTreeAfterAllocate(leafNode);
-
-        // 标记此页为整页分配（非子页）
-        pageAllocationCount.put(leafNode, new AtomicInteger(1));
-        pageSizeMap.put(leafNode, normCapacity);
+        updateTreeAfterAllocate(node);
 
         usage.addAndGet(normCapacity);
+        freeBytes -= needPages << pageShifts;
         return slice;
     }
 
     /**
-     * 子页分配（normCapacity < pageSize）。
+     * 子页分配（normCapacity <= pageSize）。
      * <p>
-     * 首先在二叉树中找到一个空闲叶子页，然后在该页内使用位图分配 slot。
-     * 如果某个叶子页已经部分分配且 norm 大小匹配，则复用该页。
+     * 先从同尺寸的子页链表头取有空闲 slot 的页，没有时从二叉树中取一个空闲叶子页，
+     * 切分为 slot 并加入链表。
      *
      * @param normCapacity 规范化容量（必须 <= pageSize）
      * @return 分配的 ByteBuffer 切片，或 null
      */
     private ByteBuffer allocateSubpage(int normCapacity) {
-        int leafStart = 1 << maxOrder;
-        int leafEnd = 1 << (maxOrder + 1);
-        int slotsPerPage = pageSize / normCapacity;
-
-        // 遍历所有叶子节点，寻找：
-        // 1. 已分配给相同 norm 大小且有空闲 slot 的页
-        // 2. 完全空闲的页
-        for (int leaf = leafStart; leaf < leafEnd; leaf++) {
-            AtomicInteger count = pageAllocationCount.get(leaf);
-            Integer norm = pageSizeMap.get(leaf);
-
-            if (count != null && norm != null && norm == normCapacity) {
-                // 该页已用于相同大小的分配，尝试分配 slot
-                if (count.get() < slotsPerPage) {
-                    int slot = allocateSlot(leaf, slotsPerPage);
-                    if (slot >= 0) {
-                        int offset = (leaf - leafStart) * pageSize + slot * normCapacity;
-                        count.incrementAndGet();
-                        usage.addAndGet(normCapacity);
-                        lastAllocOffset = offset;
-                        return createSlice(offset, normCapacity);
-                    }
-                }
-            }
+        PoolSubpage head = subpagePools[PoolArena.subpageIdx(normCapacity)];
+        PoolSubpage s = head.next;
+        if (s != head && s.chunk == this) {
+            return allocateSubpage(s);
         }
 
-        // 没有找到部分使用的匹配页，寻找完全空闲的叶子
+        // 没有可用的同尺寸子页，从根节点搜索空闲叶子
         if (tree[1] < 1) {
             return null;
         }
-
-        // 从根节点搜索空闲叶子
         int node = 1;
         int depth = 0;
         while (depth < maxOrder) {
@@ -361,65 +337,39 @@ public class PoolChunk {
             depth++;
         }
 
-        int leafNode = node;
-
-        // 初始化该页的位图
-        int bitmapSize = (slotsPerPage + 31) >> 5; // 每个 int 存储 32 个 bit
-        AtomicInteger[] bitmap = new AtomicInteger[bitmapSize];
-        for (int i = 0; i < bitmapSize; i++) {
-            bitmap[i] = new AtomicInteger(0);
-        }
-        subpageBitmaps.put(leafNode, bitmap);
-
-        // 分配第 0 个 slot
-        bitmap[0].set(1); // 标记 slot 0 为已使用
-        pageAllocationCount.put(leafNode, new AtomicInteger(1));
-        pageSizeMap.put(leafNode, normCapacity);
-
         // 将叶子节点标记为已使用（tree 值设为 0）
-        tree[leafNode] = 0;
-        updateTreeAfterAllocate(leafNode);
-
-        int offset = (leafNode - leafStart) * pageSize;
-        usage.addAndGet(normCapacity);
-        lastAllocOffset = offset;
-        return createSlice(offset, normCapacity);
+        tree[node] = 0;
+        updateTreeAfterAllocate(node);
+        freeBytes -= pageSize;
+
+        // 切分为 slot，复用该页之前的子页对象
+        int pageIndex = node - (1 << maxOrder);
+        PoolSubpage subpage = subpages[pageIndex];
+        if (subpage == null) {
+            subpage = new PoolSubpage(head, this, pageIndex, pageSize, normCapacity);
+            subpages[pageIndex] = subpage;
+        } else {
+            subpage.init(head, normCapacity, pageSize);
+        }
+        return allocateSubpage(subpage);
     }
 
     /**
-     * 在指定叶子页中分配一个空闲 slot。
-     * <p>
-     * 使用 CAS 操作修改位图，保证并发安全。
+     * 从指定子页分配一个 slot。
      *
-     * @param leafIndex    叶子节点索引
-     * @param slotsPerPage 该页的 slot 总数
-     * @return 分配的 slot 索引，-1 表示没有空闲 slot
-     */
-    private int allocateSlot(int leafIndex, int slotsPerPage) {
-        AtomicInteger[] bitmap = subpageBitmaps.get(leafIndex);
-        if (bitmap == null) {
-            return -1;
-        }
-
-        for (int i = 0; i < bitmap.length; i++) {
-            int word = bitmap[i].get();
-            // 如果当前 word 还有空闲位（不是所有 32 位都被占用）
-            while (word != -1) { // -1 = 0xFFFFFFFF = 所有位都被占用
-                // 找到第一个为 0 的位
-                int bit = Integer.numberOfTrailingZeros(~word);
-                int slotIndex = (i << 5) + bit;
-                if (slotIndex >= slotsPerPage) {
-                    return -1;
-                }
-                // 尝试通过 CAS 标记该位
-                if (bitmap[i].compareAndSet(word, word | (1 << bit))) {
-                    return slotIndex;
-                }
-                // CAS 失败，读取最新值重试
-                word = bitmap[i].get();
-            }
+     * @param subpage 属于本 Chunk 且有空闲 slot 的子页
+     * @return 分配的 ByteBuffer 切片，或 null
+     */
+    synchronized ByteBuffer allocateSubpage(PoolSubpage subpage) {
+        int slot = subpage.allocate();
+        if (slot < 0) {
+            return null;
         }
-        return -1;
+        int normCapacity = subpage.elemSize;
+        int offset = subpage.runOffset + slot * normCapacity;
+        usage.addAndGet(normCapacity);
+        lastAllocOffset = offset;
+        return createSlice(offset, normCapacity);
     }
 
     // ======================== 释放（Free） ========================
@@ -445,35 +395,24 @@ public class PoolChunk {
         if (normCapacity <= pageSize) {
             // 子页释放
             int pageIndex = offset >>> pageShifts;
-            int leafNode = leafStart + pageIndex;
-            int slotOffset = offset - (pageIndex << pageShifts);
-            int slotIndex = slotOffset / normCapacity;
-
-            AtomicInteger[] bitmap = subpageBitmaps.get(leafNode);
-            if (bitmap != null) {
-                int wordIndex = slotIndex >>> 5;
-                int bitIndex = slotIndex & 31;
-                // 清除对应的 bit
-                bitmap[wordIndex].getAndUpdate(w -> w & ~(1 << bitIndex));
-            }
-
-            AtomicInteger count = pageAllocationCount.get(leafNode);
-            if (count != null && count.decrementAndGet() == 0) {
+            PoolSubpage subpage = subpages[pageIndex];
+            int slot = (offset & (pageSize - 1)) / normCapacity;
+            PoolSubpage head = subpagePools[PoolArena.subpageIdx(normCapacity)];
+            if (!subpage.free(head, slot)) {
                 // 该页所有 slot 都已释放，归还整页
-                subpageBitmaps.remove(leafNode);
-                pageAllocationCount.remove(leafNode);
-                pageSizeMap.remove(leafNode);
+                int leafNode = leafStart + pageIndex;
                 tree[leafNode] = 1;
                 updateTreeAfterFree(leafNode);
+                freeBytes += pageSize;
             }
         } else {
-            // 整页释放
-            int pageIndex = offset >>> pageShifts;
-            int leafNode = leafStart + pageIndex;
-            pageAllocationCount.remove(leafNode);
-            pageSizeMap.remove(leafNode);
-            tree[leafNode] = 1;
-            updateTreeAfterFree(leafNode);
+            // 整页释放：定位分配时的子树节点，恢复为完全空闲
+            int runPages = normCapacity >>> pageShifts;
+            int depth = maxOrder - log2(runPages);
+            int node = (1 << depth) + offset / normCapacity;
+            tree[node] = runPages;
+            updateTreeAfterFree(node);
+            freeBytes += runPages << pageShifts;
         }
 
         usage.addAndGet(-normCapacity);
@@ -484,15 +423,14 @@ public class PoolChunk {
     /**
      * 分配后向上更新二叉树。
      * <p>
-     * 从指定节点的父节点开始，逐层向上更新每个节点的值为
-     * max(左子节点, 右子节点)，直到根节点。
+     * 从指定节点的父节点开始逐层向上更新，直到根节点，见 {@link #updateParent(int)}。
      *
      * @param node 刚被分配的叶子/子树节点
      */
     private void updateTreeAfterAllocate(int node) {
         int parent = node >>> 1;
         while (parent >= 1) {
-            tree[parent] = Math.max(tree[parent << 1], tree[(parent << 1) | 1]);
+            updateParent(parent);
             parent >>>= 1;
         }
     }
@@ -508,11 +446,31 @@ public class PoolChunk {
     private void updateTreeAfterFree(int node) {
         int parent = node >>> 1;
         while (parent >= 1) {
-            tree[parent] = Math.max(tree[parent << 1], tree[(parent << 1) | 1]);
+            updateParent(parent);
             parent >>>= 1;
         }
     }
 
+    /**
+     * 根据左右子节点重新计算父节点的值。
+     * <p>
+     * 左右子树都完全空闲时可以合并为一个更大的连续区域，值为两者之和；
+     * 否则为 max(左子节点, 右子节点)。
+     *
+     * @param parent 父节点索引
+     */
+    private void updateParent(int parent) {
+        int left = tree[parent << 1];
+        int right = tree[(parent << 1) | 1];
+        // 子节点完全空闲时的页数
+        int childPages = 1 << (maxOrder - log2(Integer.highestOneBit(parent)) - 1);
+        if (left == childPages && right == childPages) {
+            tree[parent] = left + right;
+        } else {
+            tree[parent] = Math.max(left, right);
+        }
+    }
+
     // ======================== 工具方法 ========================
 
     /**
@@ -604,6 +562,29 @@ public class PoolChunk {
         return usage.get();
     }
 
+    /**
+     * 按页计算的使用率（百分比）。只要还有空闲页就不会返回 100，只要有页被占用就不会返回 0。
+     *
+     * @return 使用率，0 ~ 100
+     */
+    synchronized int usagePercent() {
+        if (freeBytes == 0) {
+            return 100;
+        }
+        int freePercentage = (int) (freeBytes * 100L / chunkSize);
+        if (freePercentage == 0) {
+            return 99;
+        }
+        return 100 - freePercentage;
+    }
+
+    /**
+     * @return 按页计算的空闲字节数
+     */
+    synchronized int freeBytes() {
+        return freeBytes;
+    }
+
     /**
      * @return 是否完全空闲（无任何分配）
      */
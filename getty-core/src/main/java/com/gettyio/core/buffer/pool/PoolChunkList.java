@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer.pool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * PoolChunkList 是按使用率分段的 Chunk 双向链表。
+ * <p>
+ * PoolArena 持有 qInit、q000、q025、q050、q075、q100 六个链表，每个链表只容纳使用率在
+ * [minUsage, maxUsage) 区间内的 Chunk。分配后使用率达到 maxUsage 时 Chunk 移入下一个链表，
+ * 释放后低于 minUsage 时移入上一个链表。相邻区间相互重叠，形成迟滞，
+ * 避免使用率在边界附近波动时 Chunk 频繁移动或被反复创建销毁。
+ * </p>
+ *
+ * <h3>链表结构：</h3>
+ * <pre>
+ *   qInit [MIN, 25)  ──▶ q000 [1, 50) ──▶ q025 [25, 75) ──▶ q050 [50, 100) ──▶ q075 [75, 100) ──▶ q100 [100, MAX)
+ *   qInit ◀─ 自身      null ◀── q000      q000 ◀── q025      q025 ◀── q050      q050 ◀── q075      q075 ◀── q100
+ * </pre>
+ * <p>
+ * q000 的上一个链表为 null：其中的 Chunk 释放到完全空闲时交由 Arena 销毁。
+ * qInit 的上一个链表为自身：新建的 Chunk 在使用率达到 25% 之前不会被销毁。
+ * </p>
+ *
+ * <h3>线程安全：</h3>
+ * <p>
+ * 非线程安全，所有操作都在 PoolArena 的 chunkLock 内执行。
+ * </p>
+ *
+ * @author Getty Project
+ */
+final class PoolChunkList {
+
+    /**
+     * 所属的 PoolArena。
+     */
+    private final PoolArena arena;
+
+    /**
+     * 使用率更高的下一个链表，q100 为 null。
+     */
+    private final PoolChunkList nextList;
+
+    /**
+     * 使用率更低的上一个链表。
+     */
+    private PoolChunkList prevList;
+
+    /**
+     * 最小使用率（百分比，含）。
+     */
+    private final int minUsage;
+
+    /**
+     * 最大使用率（百分比，不含）。
+     */
+    private final int maxUsage;
+
+    /**
+     * 此链表中的 Chunk 最多可能剩余的空闲字节数，超过此值的请求无需遍历本链表。
+     */
+    private final int maxCapacity;
+
+    /**
+     * 链表名称，用于统计输出。
+     */
+    private final String name;
+
+    /**
+     * 链表头。
+     */
+    private PoolChunk head;
+
+    /**
+     * 链表中的 Chunk 数量。
+     */
+    private int size;
+
+    PoolChunkList(PoolArena arena, PoolChunkList nextList, int minUsage, int maxUsage, int chunkSize, String name) {
+        this.arena = arena;
+        this.nextList = nextList;
+        this.minUsage = minUsage;
+        this.maxUsage = maxUsage;
+        this.maxCapacity = calculateMaxCapacity(minUsage, chunkSize);
+        this.name = name;
+    }
+
+    /**
+     * 计算使用率不低于 minUsage 的 Chunk 最多剩余的空闲字节数。
+     */
+    private static int calculateMaxCapacity(int minUsage, int chunkSize) {
+        minUsage = Math.max(1, minUsage);
+        if (minUsage == 100) {
+            return 0;
+        }
+        return (int) (chunkSize * (100L - minUsage) / 100L);
+    }
+
+    void prevList(PoolChunkList prevList) {
+        this.prevList = prevList;
+    }
+
+    /**
+     * 从链表中的 Chunk 分配内存。分配后使用率达到 maxUsage 的 Chunk 移入下一个链表。
+     *
+     * @param normCapacity 规范化容量
+     * @param cache        调用方线程缓存，可以为 null
+     * @return 分配的 ByteBuffer，本链表无法满足时返回 null
+     */
+    ByteBuffer allocate(int normCapacity, PoolThreadCache cache) {
+        if (head == null || normCapacity > maxCapacity) {
+            return null;
+        }
+        for (PoolChunk cur = head; cur != null; cur = cur.next) {
+            ByteBuffer buf = cur.allocate(normCapacity);
+            if (buf != null) {
+                arena.recordAllocation(cache, cur);
+                if (cur.usagePercent() >= maxUsage) {
+                    remove(cur);
+                    nextList.add(cur);
+                }
+                return buf;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 释放 Chunk 中的内存。释放后使用率低于 minUsage 的 Chunk 移入上一个链表。
+     *
+     * @return false 表示 Chunk 已完全空闲且没有可移入的链表，已从链表移除，由调用方决定是否销毁
+     */
+    boolean free(PoolChunk chunk, int offset, int normCapacity) {
+        chunk.free(offset, normCapacity);
+        if (chunk.usagePercent() < minUsage) {
+            remove(chunk);
+            return move0(chunk);
+        }
+        return true;
+    }
+
+    /**
+     * 将 Chunk 移入使用率区间匹配的链表（向低使用率方向）。
+     */
+    private boolean move(PoolChunk chunk) {
+        if (chunk.usagePercent() < minUsage) {
+            return move0(chunk);
+        }
+        add0(chunk);
+        return true;
+    }
+
+    private boolean move0(PoolChunk chunk) {
+        if (prevList == null) {
+            return false;
+        }
+        return prevList.move(chunk);
+    }
+
+    /**
+     * 添加 Chunk，使用率达到 maxUsage 时转入下一个链表。
+     */
+    void add(PoolChunk chunk) {
+        if (chunk.usagePercent() >= maxUsage && nextList != null) {
+            nextList.add(chunk);
+            return;
+        }
+        add0(chunk);
+    }
+
+    private void add0(PoolChunk chunk) {
+        chunk.parentList = this;
+        chunk.prev = null;
+        chunk.next = head;
+        if (head != null) {
+            head.prev = chunk;
+        }
+        head = chunk;
+        size++;
+    }
+
+    private void remove(PoolChunk chunk) {
+        if (chunk == head) {
+            head = chunk.next;
+            if (head != null) {
+                head.prev = null;
+            }
+        } else {
+            PoolChunk next = chunk.next;
+            chunk.prev.next = next;
+            if (next != null) {
+                next.prev = chunk.prev;
+            }
+        }
+        chunk.prev = null;
+        chunk.next = null;
+        chunk.parentList = null;
+        size--;
+    }
+
+    /**
+     * @return 链表头，供 Arena 遍历统计
+     */
+    PoolChunk head() {
+        return head;
+    }
+
+    /**
+     * @return 链表中的 Chunk 数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 销毁链表中的所有 Chunk 并清空链表。
+     */
+    void destroy() {
+        for (PoolChunk cur = head; cur != null; ) {
+            PoolChunk next = cur.next;
+            cur.prev = null;
+            cur.next = null;
+            cur.parentList = null;
+            cur.destroy();
+            cur = next;
+        }
+        head = null;
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + size;
+    }
+}
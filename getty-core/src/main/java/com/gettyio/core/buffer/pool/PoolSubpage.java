@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer.pool;
+
+/**
+ * PoolSubpage 管理 PoolChunk 中一个被切分为等长 slot 的页（Tiny/Small 分配）。
+ * <p>
+ * slot 的占用状态保存在 {@code long[]} 位图中，每个 bit 对应一个 slot；
+ * {@link #nextAvail} 记录最近释放的 slot，紧接着的分配无需扫描位图。
+ * 有空闲 slot 的 PoolSubpage 挂在 PoolArena 中对应 size class 的链表头上，
+ * 同尺寸的分配直接从链表头取页，不需要遍历 Chunk 和叶子节点。
+ * </p>
+ *
+ * <h3>生命周期：</h3>
+ * <ul>
+ *   <li>Chunk 将空闲页切分为 slot 时调用 {@link #init(PoolSubpage, int, int)}，加入 size class 链表</li>
+ *   <li>slot 分配完时移出链表，释放出第一个 slot 时重新加入</li>
+ *   <li>所有 slot 都释放后归还整页；若它是链表中唯一的页则保留，避免同尺寸分配反复切分新页</li>
+ * </ul>
+ * 同一页再次被切分时复用原 PoolSubpage 对象和位图数组。
+ *
+ * <h3>线程安全：</h3>
+ * <p>
+ * 非线程安全，所有操作都在 PoolArena 的 chunkLock（独立使用的 Chunk 为 Chunk 自身的锁）内执行。
+ * </p>
+ *
+ * @author Getty Project
+ */
+final class PoolSubpage {
+
+    /**
+     * 所属的 Chunk，链表头为 null。
+     */
+    final PoolChunk chunk;
+
+    /**
+     * 页在 Chunk 中的索引。
+     */
+    final int pageIndex;
+
+    /**
+     * 页在 Chunk 中的起始偏移量（字节）。
+     */
+    final int runOffset;
+
+    /**
+     * slot 占用位图，按页内最小 slot（16 字节）计算长度，复用时不重新分配。
+     */
+    private final long[] bitmap;
+
+    /**
+     * size class 链表指针。
+     */
+    PoolSubpage prev;
+    PoolSubpage next;
+
+    /**
+     * 是否仍在使用；为 false 时页已归还给 Chunk。
+     */
+    boolean doNotDestroy;
+
+    /**
+     * slot 大小（规范化容量）。
+     */
+    int elemSize;
+
+    /**
+     * 页内 slot 总数。
+     */
+    private int maxNumElems;
+
+    /**
+     * 位图中实际使用的 long 数量。
+     */
+    private int bitmapLength;
+
+    /**
+     * 下一个可用 slot 的提示，-1 表示需要扫描位图。
+     */
+    private int nextAvail;
+
+    /**
+     * 空闲 slot 数量。
+     */
+    private int numAvail;
+
+    /**
+     * 创建 size class 链表头。
+     */
+    PoolSubpage() {
+        this.chunk = null;
+        this.pageIndex = -1;
+        this.runOffset = -1;
+        this.bitmap = null;
+        this.elemSize = -1;
+        this.prev = this;
+        this.next = this;
+    }
+
+    PoolSubpage(PoolSubpage head, PoolChunk chunk, int pageIndex, int pageSize, int elemSize) {
+        this.chunk = chunk;
+        this.pageIndex = pageIndex;
+        this.runOffset = pageIndex * pageSize;
+        // 最小 slot 为 16 字节，每个 long 记录 64 个 slot
+        this.bitmap = new long[(pageSize / 16 + 63) >>> 6];
+        init(head, elemSize, pageSize);
+    }
+
+    /**
+     * 以新的 slot 大小重新切分页，并加入对应 size class 链表。
+     */
+    void init(PoolSubpage head, int elemSize, int pageSize) {
+        this.doNotDestroy = true;
+        this.elemSize = elemSize;
+        this.maxNumElems = this.numAvail = pageSize / elemSize;
+        this.nextAvail = 0;
+        this.bitmapLength = (maxNumElems + 63) >>> 6;
+        for (int i = 0; i < bitmapLength; i++) {
+            bitmap[i] = 0;
+        }
+        addToPool(head);
+    }
+
+    /**
+     * 分配一个 slot。分配后没有空闲 slot 时移出链表。
+     *
+     * @return slot 索引，-1 表示没有空闲 slot
+     */
+    int allocate() {
+        if (numAvail == 0 || !doNotDestroy) {
+            return -1;
+        }
+        int slot = nextAvail();
+        if (slot < 0) {
+            return -1;
+        }
+        bitmap[slot >>> 6] |= 1L << (slot & 63);
+        if (--numAvail == 0) {
+            removeFromPool();
+        }
+        return slot;
+    }
+
+    /**
+     * 释放一个 slot。
+     *
+     * @param head size class 链表头
+     * @param slot slot 索引
+     * @return true 表示页仍在使用，false 表示页已空闲且移出链表，调用方应将整页归还给 Chunk
+     */
+    boolean free(PoolSubpage head, int slot) {
+        bitmap[slot >>> 6] ^= 1L << (slot & 63);
+        nextAvail = slot;
+
+        if (numAvail++ == 0) {
+            addToPool(head);
+            if (maxNumElems > 1) {
+                return true;
+            }
+        }
+        if (numAvail != maxNumElems) {
+            return true;
+        }
+        // 链表中唯一的页：保留，避免下一次同尺寸分配重新切分
+        if (prev == next) {
+            return true;
+        }
+        doNotDestroy = false;
+        removeFromPool();
+        return false;
+    }
+
+    private int nextAvail() {
+        int slot = nextAvail;
+        if (slot >= 0) {
+            nextAvail = -1;
+            return slot;
+        }
+        return findNextAvail();
+    }
+
+    private int findNextAvail() {
+        for (int i = 0; i < bitmapLength; i++) {
+            long bits = bitmap[i];
+            if (~bits != 0) {
+                int slot = (i << 6) + Long.numberOfTrailingZeros(~bits);
+                return slot < maxNumElems ? slot : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void addToPool(PoolSubpage head) {
+        prev = head;
+        next = head.next;
+        next.prev = this;
+        head.next = this;
+    }
+
+    private void removeFromPool() {
+        prev.next = next;
+        next.prev = prev;
+        next = null;
+        prev = null;
+    }
+
+    /**
+     * @return 空闲 slot 数量
+     */
+    int numAvail() {
+        return numAvail;
+    }
+
+    @Override
+    public String toString() {
+        if (chunk == null) {
+            return "PoolSubpage{head}";
+        }
+        return String.format("PoolSubpage{page=%d,elemSize=%d,avail=%d/%d}",
+                pageIndex, elemSize, numAvail, maxNumElems);
+    }
+}
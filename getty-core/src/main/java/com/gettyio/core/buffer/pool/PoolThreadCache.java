@@ -17,6 +17,7 @@ package com.gettyio.core.buffer.pool;
 
 import com.gettyio.core.logging.InternalLogger;
 import com.gettyio.core.logging.InternalLoggerFactory;
+import com.gettyio.core.util.Recycler;
 import com.gettyio.core.util.queue.MpscRecycleQueue;
 
 import java.nio.ByteBuffer;
@@ -216,6 +217,7 @@ public class PoolThreadCache {
             lastChunk = entry.chunk;
             lastOffset = entry.offset;
             ByteBuffer buf = entry.buffer;
+            entry.recycle();
             buf.clear();
             return buf;
         }
@@ -223,10 +225,8 @@ public class PoolThreadCache {
         // 缓存未命中，从 Arena 分配
         cacheMissCount++;
         PoolArena arena = direct ? (directArena != null ? directArena : heapArena) : heapArena;
-        ByteBuffer buf = arena.allocate(capacity);
+        ByteBuffer buf = arena.allocate(capacity, this);
         if (buf != null) {
-            lastChunk = arena.getLastAllocChunk();
-            lastOffset = arena.getLastAllocOffset();
             buf.clear();
         }
         return buf;
@@ -246,6 +246,14 @@ public class PoolThreadCache {
      */
     private int lastOffset;
 
+    /**
+     * 由 Arena 在分配锁内回填分配位置。
+     */
+    void recordAllocation(PoolChunk chunk, int offset) {
+        lastChunk = chunk;
+        lastOffset = offset;
+    }
+
     public PoolChunk getLastChunk() {
         return lastChunk;
     }
@@ -274,9 +282,19 @@ public class PoolThreadCache {
         boolean cached = pushToCache(cacheIndex, buffer, chunk, offset, normCap);
         if (!cached && chunk != null) {
             // 缓存已满，归还给 Arena
-            PoolArena arena = buffer.isDirect() ? (directArena != null ? directArena : heapArena) : heapArena;
-            arena.free(chunk, offset, normCap);
+            freeToArena(buffer, chunk, offset, normCap);
+        }
+    }
+
+    /**
+     * 将内存归还给其所属的 Arena。多 Arena 时 Chunk 记录了来源 Arena，不使用本缓存绑定的 Arena。
+     */
+    private void freeToArena(ByteBuffer buffer, PoolChunk chunk, int offset, int normCapacity) {
+        PoolArena arena = chunk.parent;
+        if (arena == null) {
+            arena = buffer.isDirect() ? (directArena != null ? directArena : heapArena) : heapArena;
         }
+        arena.free(chunk, offset, normCapacity);
     }
 
     // ======================== 缓存操作 ========================
@@ -301,10 +319,11 @@ public class PoolThreadCache {
                 return entry;
             }
             // 容量不匹配的条目直接丢弃（归还给 Arena）
-            if (entry != null && entry.chunk != null) {
-                PoolArena arena = entry.buffer.isDirect()
-                        ? (directArena != null ? directArena : heapArena) : heapArena;
-                arena.free(entry.chunk, entry.offset, entry.normCapacity);
+            if (entry != null) {
+                if (entry.chunk != null) {
+                    freeToArena(entry.buffer, entry.chunk, entry.offset, entry.normCapacity);
+                }
+                entry.recycle();
             }
         }
         return null;
@@ -332,7 +351,7 @@ public class PoolThreadCache {
             return false;
         }
 
-        cache.addLast(new CacheEntry(buffer, chunk, offset, normCapacity));
+        cache.addLast(CacheEntry.newInstance(buffer, chunk, offset, normCapacity));
         return true;
     }
 
@@ -446,10 +465,11 @@ public class PoolThreadCache {
     private void clearCache(Deque<CacheEntry> cache) {
         while (!cache.isEmpty()) {
             CacheEntry entry = cache.pollFirst();
-            if (entry != null && entry.chunk != null) {
-                PoolArena arena = entry.buffer.isDirect()
-                        ? (directArena != null ? directArena : heapArena) : heapArena;
-                arena.free(entry.chunk, entry.offset, entry.normCapacity);
+            if (entry != null) {
+                if (entry.chunk != null) {
+                    freeToArena(entry.buffer, entry.chunk, entry.offset, entry.normCapacity);
+                }
+                entry.recycle();
             }
         }
     }
@@ -488,10 +508,8 @@ public class PoolThreadCache {
         boolean offered = crossThreadRecycleQueue.offer(buffer, chunk, offset, normCapacity);
         if (!offered) {
             // 队列满，降级为直接归还给 Arena（慢速路径）
-            if (chunk != null && chunk.parent != null) {
-                PoolArena arena = buffer.isDirect()
-                        ? (directArena != null ? directArena : heapArena) : heapArena;
-                arena.free(chunk, offset, normCapacity);
+            if (chunk != null) {
+                freeToArena(buffer, chunk, offset, normCapacity);
             }
         }
     }
@@ -510,9 +528,7 @@ public class PoolThreadCache {
                     offset, normCapacity);
             if (!cached && chunk != null) {
                 // 本地缓存已满，归还给 Arena（owner 线程执行，无锁问题）
-                PoolArena arena = buffer.isDirect()
-                        ? (directArena != null ? directArena : heapArena) : heapArena;
-                arena.free((PoolChunk) chunk, offset, normCapacity);
+                freeToArena(buffer, (PoolChunk) chunk, offset, normCapacity);
             }
         });
     }
@@ -559,32 +575,63 @@ public class PoolThreadCache {
      * 偏移量是多少，以便在缓存被淘汰时能正确归还。
      * </p>
      */
-    static class CacheEntry {
+    static final class CacheEntry {
+
+        /**
+         * 条目回收器：条目只在 owner 线程中创建和回收，出栈后立即复用，避免每次释放都分配新对象。
+         */
+        private static final Recycler<CacheEntry> RECYCLER = new Recycler<CacheEntry>() {
+            @Override
+            protected CacheEntry newObject(Handle<CacheEntry> handle) {
+                return new CacheEntry(handle);
+            }
+        };
+
+        /**
+         * 条目的回收句柄。
+         */
+        private final Recycler.Handle<CacheEntry> recyclerHandle;
+
         /**
          * 缓存的 ByteBuffer。
          */
-        final ByteBuffer buffer;
+        ByteBuffer buffer;
 
         /**
          * ByteBuffer 所属的 PoolChunk（可能为 null，表示非池化缓冲区）。
          */
-        final PoolChunk chunk;
+        PoolChunk chunk;
 
         /**
          * 在 Chunk 中的内存偏移量。
          */
-        final int offset;
+        int offset;
 
         /**
          * 分配时的规范化容量。
          */
-        final int normCapacity;
+        int normCapacity;
 
-        CacheEntry(ByteBuffer buffer, PoolChunk chunk, int offset, int normCapacity) {
-            this.buffer = buffer;
-            this.chunk = chunk;
-            this.offset = offset;
-            this.normCapacity = normCapacity;
+        private CacheEntry(Recycler.Handle<CacheEntry> recyclerHandle) {
+            this.recyclerHandle = recyclerHandle;
+        }
+
+        static CacheEntry newInstance(ByteBuffer buffer, PoolChunk chunk, int offset, int normCapacity) {
+            CacheEntry entry = RECYCLER.get();
+            entry.buffer = buffer;
+            entry.chunk = chunk;
+            entry.offset = offset;
+            entry.normCapacity = normCapacity;
+            return entry;
+        }
+
+        /**
+         * 清空引用并回收条目，调用后不得再访问。
+         */
+        void recycle() {
+            buffer = null;
+            chunk = null;
+            recyclerHandle.recycle(this);
         }
     }
 }
@@ -15,9 +15,12 @@
  */
 package com.gettyio.core.buffer.pool;
 
+import com.gettyio.core.util.Recycler;
+import com.gettyio.core.util.ResourceLeakDetector;
+import com.gettyio.core.util.ResourceLeakTracker;
+
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * PooledByteBuffer 是内存池中的核心缓冲区对象，继承自 {@link RetainableByteBuffer}。
@@ -41,37 +44,79 @@ import java.util.concurrent.atomic.AtomicLong;
  * 现有代码无需修改即可使用新的池化实现。
  * </p>
  *
+ * <h3>对象复用：</h3>
+ * <p>
+ * 通过池分配的 PooledByteBuffer 包装对象本身也由 {@link Recycler} 复用：引用计数归零、内存归还后，
+ * 包装对象清空引用并回到创建它的线程的回收栈（跨线程释放经 MPSC 队列归还），下一次 acquire 直接取用。
+ * 因此 release() 之后不得再访问该对象，它可能已被其他调用方重新获取；
+ * {@link ResourceLeakDetector.Level#PARANOID} 级别下包装对象不复用，过期引用的重复 release() 会抛出异常。
+ * </p>
+ *
+ * <h3>泄漏检测：</h3>
+ * <p>
+ * 从池中分配的缓冲区按 {@link ResourceLeakDetector} 的级别采样跟踪，未 release() 就被 GC 回收时输出泄漏报告。
+ * SIMPLE 级别只跟踪不采集调用栈；ADVANCED 及以上级别记录分配位置以及 retain()、release() 和 {@link #touch(Object)} 的调用栈，
+ * 处理器可在交出缓冲区前调用 touch() 标记经过的位置。
+ * </p>
+ *
  * @author Getty Project
  */
 public class PooledByteBuffer extends RetainableByteBuffer {
 
+    /**
+     * 包装对象回收器。
+     */
+    private static final Recycler<PooledByteBuffer> RECYCLER = new Recycler<PooledByteBuffer>() {
+        @Override
+        protected PooledByteBuffer newObject(Handle<PooledByteBuffer> handle) {
+            return new PooledByteBuffer(handle);
+        }
+    };
+
+    /**
+     * 缓冲区泄漏检测器。
+     */
+    private static final ResourceLeakDetector<PooledByteBuffer> LEAK_DETECTOR =
+            new ResourceLeakDetector<>(PooledByteBuffer.class);
+
+    /**
+     * refCount 的原子更新器，避免每个缓冲区额外持有一个 AtomicInteger 对象。
+     */
+    private static final AtomicIntegerFieldUpdater<PooledByteBuffer> REF_COUNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(PooledByteBuffer.class, "refCount");
+
+    /**
+     * 包装对象的回收句柄，直接通过构造方法创建的缓冲区为 null，不回收。
+     */
+    private final Recycler.Handle<PooledByteBuffer> recyclerHandle;
+
     // ======================== 池关联字段 ========================
 
     /**
      * 此缓冲区所属的 PoolThreadCache。
      * 释放时优先归还到此缓存（零延迟路径）。
      */
-    private final PoolThreadCache threadCache;
+    private PoolThreadCache threadCache;
 
     /**
      * 此缓冲区所属的 PoolChunk。
      * 记录了内存分配的具体来源，用于精确归还。
      * 如果是巨型分配（不经过池），则为 null。
      */
-    private final PoolChunk chunk;
+    private PoolChunk chunk;
 
     /**
      * 此缓冲区在 Chunk 中的内存偏移量（字节）。
      * 与 chunk 配合使用，用于归还时定位内存位置。
      */
-    private final int chunkOffset;
+    private int chunkOffset;
 
     /**
      * 分配时的规范化容量。
      * Chunk 中实际分配的大小（向上取整到 size class），
      * 归还时必须使用此值，而非用户的原始请求大小。
      */
-    private final int normCapacity;
+    private int normCapacity;
 
     // ======================== 引用计数 ========================
 
@@ -82,14 +127,19 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      *   <li>1: 从池中获取，单个持有者</li>
      *   <li>>1: 被 retain() 过，有多个共享引用</li>
      * </ul>
-     * 使用 AtomicInteger 保证多线程安全。
+     * 通过 {@link #REF_COUNT_UPDATER} 原子更新，保证多线程安全。
      */
-    private final AtomicInteger refCount = new AtomicInteger(0);
+    private volatile int refCount;
 
     /**
-     * 最后一次操作的时间戳（纳秒），用于 LRU 淘汰。
+     * 最后一次操作的时间戳（纳秒），用于 LRU 淘汰。仅在激活和归还时写入，无需原子更新。
      */
-    private final AtomicLong lastUpdateTime = new AtomicLong(System.nanoTime());
+    private volatile long lastUpdateTime = System.nanoTime();
+
+    /**
+     * 泄漏跟踪句柄，未被采样时为 null。
+     */
+    private ResourceLeakTracker<PooledByteBuffer> leak;
 
     // ======================== 构造 ========================
 
@@ -105,12 +155,43 @@ public class PooledByteBuffer extends RetainableByteBuffer {
     public PooledByteBuffer(ByteBuffer buffer, PoolThreadCache threadCache,
                             PoolChunk chunk, int chunkOffset, int normCapacity) {
         super(buffer, null); // 不使用 RetainableByteBuffer 的 releaser 机制
+        this.recyclerHandle = null;
         this.threadCache = threadCache;
         this.chunk = chunk;
         this.chunkOffset = chunkOffset;
         this.normCapacity = normCapacity;
     }
 
+    /**
+     * 由回收器创建的包装对象，分配结果在 {@link #newInstance} 中绑定。
+     */
+    private PooledByteBuffer(Recycler.Handle<PooledByteBuffer> recyclerHandle) {
+        super(null, null);
+        this.recyclerHandle = recyclerHandle;
+    }
+
+    /**
+     * 从回收器获取包装对象并绑定分配结果，未激活（refCount == 0）。
+     *
+     * @param buffer       从 PoolChunk 分配的 ByteBuffer 切片
+     * @param threadCache  所属的线程缓存
+     * @param chunk        所属的 PoolChunk（巨型分配时为 null）
+     * @param chunkOffset  在 Chunk 中的偏移量
+     * @param normCapacity 规范化容量
+     * @return 包装对象
+     */
+    static PooledByteBuffer newInstance(ByteBuffer buffer, PoolThreadCache threadCache,
+                                        PoolChunk chunk, int chunkOffset, int normCapacity) {
+        PooledByteBuffer pooled = RECYCLER.get();
+        pooled.reset(buffer);
+        pooled.threadCache = threadCache;
+        pooled.chunk = chunk;
+        pooled.chunkOffset = chunkOffset;
+        pooled.normCapacity = normCapacity;
+        pooled.leak = LEAK_DETECTOR.track(pooled);
+        return pooled;
+    }
+
     // ======================== 生命周期管理 ========================
 
     /**
@@ -123,10 +204,10 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      * @throws IllegalStateException 如果缓冲区仍在使用中
      */
     void activate() {
-        if (!refCount.compareAndSet(0, 1)) {
+        if (!REF_COUNT_UPDATER.compareAndSet(this, 0, 1)) {
             throw new IllegalStateException("PooledByteBuffer is still in use: " + this);
         }
-        lastUpdateTime.set(System.nanoTime());
+        lastUpdateTime = System.nanoTime();
     }
 
     /**
@@ -138,9 +219,18 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      * @throws IllegalStateException 如果缓冲区已被释放（refCount == 0）
      */
     public void retain() {
-        int current = refCount.getAndUpdate(c -> c == 0 ? 0 : c + 1);
-        if (current == 0) {
-            throw new IllegalStateException("Cannot retain a released PooledByteBuffer: " + this);
+        for (; ; ) {
+            int current = refCount;
+            if (current == 0) {
+                throw new IllegalStateException("Cannot retain a released PooledByteBuffer: " + this);
+            }
+            if (REF_COUNT_UPDATER.compareAndSet(this, current, current + 1)) {
+                ResourceLeakTracker<PooledByteBuffer> leak = this.leak;
+                if (leak != null && ResourceLeakDetector.isRecordingAccess()) {
+                    leak.record("retain: refCount=" + (current + 1));
+                }
+                return;
+            }
         }
     }
 
@@ -160,23 +250,32 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      */
     @Override
     public boolean release() {
-        int ref = refCount.updateAndGet(c -> {
-            if (c == 0) {
+        for (; ; ) {
+            int current = refCount;
+            if (current == 0) {
                 throw new IllegalStateException("PooledByteBuffer already released: " + this);
             }
-            return c - 1;
-        });
-
-        if (ref == 0) {
-            lastUpdateTime.set(System.nanoTime());
-            recycle();
-            return true;
+            if (REF_COUNT_UPDATER.compareAndSet(this, current, current - 1)) {
+                ResourceLeakTracker<PooledByteBuffer> leak = this.leak;
+                if (current == 1) {
+                    if (leak != null) {
+                        this.leak = null;
+                        leak.close(this);
+                    }
+                    lastUpdateTime = System.nanoTime();
+                    recycle();
+                    return true;
+                }
+                if (leak != null && ResourceLeakDetector.isRecordingAccess()) {
+                    leak.record("release: refCount=" + (current - 1));
+                }
+                return false;
+            }
         }
-        return false;
     }
 
     /**
-     * 将缓冲区归还给池。
+     * 将缓冲区归还给池，随后将包装对象交给回收器。
      * <p>
      * 重置底层 ByteBuffer 的状态，然后根据当前线程是否是分配线程：
      * <ul>
@@ -204,6 +303,39 @@ public class PooledByteBuffer extends RetainableByteBuffer {
             // 无线程缓存，直接归还给 Arena（慢速路径）
             chunk.parent.free(chunk, chunkOffset, normCapacity);
         }
+
+        // 清空引用后回收包装对象，refCount 已为 0。
+        // PARANOID 级别不复用包装对象：过期引用再次 release() 时必然看到 refCount == 0 并抛出异常，
+        // 而不是误释放已被其他调用方重新获取的缓冲区
+        reset(null);
+        threadCache = null;
+        chunk = null;
+        if (recyclerHandle != null && ResourceLeakDetector.getLevel() != ResourceLeakDetector.Level.PARANOID) {
+            recyclerHandle.recycle(this);
+        }
+    }
+
+    /**
+     * 记录缓冲区经过的位置，供泄漏报告使用（仅对被采样的缓冲区、ADVANCED 及以上级别生效）。
+     *
+     * @param hint 位置提示，如处理器或通道
+     * @return this
+     */
+    public PooledByteBuffer touch(Object hint) {
+        ResourceLeakTracker<PooledByteBuffer> leak = this.leak;
+        if (leak != null) {
+            leak.record(hint);
+        }
+        return this;
+    }
+
+    /**
+     * 记录缓冲区经过的位置，见 {@link #touch(Object)}。
+     *
+     * @return this
+     */
+    public PooledByteBuffer touch() {
+        return touch(null);
     }
 
     // ======================== 状态查询 ========================
@@ -218,7 +350,7 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      * @return true 如果 refCount > 1
      */
     public boolean isRetained() {
-        return refCount.get() > 1;
+        return refCount > 1;
     }
 
     /**
@@ -227,7 +359,7 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      * @return 引用计数
      */
     public int refCount() {
-        return refCount.get();
+        return refCount;
     }
 
     /**
@@ -236,7 +368,7 @@ public class PooledByteBuffer extends RetainableByteBuffer {
      * @return 最后更新时间的纳秒值
      */
     public long getLastUpdate() {
-        return lastUpdateTime.get();
+        return lastUpdateTime;
     }
 
     // ======================== 内部 API ========================
@@ -256,7 +388,7 @@ public class PooledByteBuffer extends RetainableByteBuffer {
         return String.format("PooledByteBuffer@%x{%s,ref=%d,norm=%d,chunk=%s}",
                 System.identityHashCode(this),
                 bufInfo,
-                refCount.get(),
+                refCount,
                 normCapacity,
                 chunk != null ? "pooled" : "huge");
     }
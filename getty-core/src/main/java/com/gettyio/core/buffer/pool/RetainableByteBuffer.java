@@ -48,8 +48,8 @@ import java.nio.ByteBuffer;
  */
 class RetainableByteBuffer {
 
-    /** 底层 ByteBuffer 实例 */
-    private final ByteBuffer buffer;
+    /** 底层 ByteBuffer 实例，池化对象复用时由 {@link #reset(ByteBuffer)} 替换 */
+    private ByteBuffer buffer;
 
     /** 读指针位置 */
     private int readerIndex;
@@ -80,6 +80,17 @@ class RetainableByteBuffer {
         this.writerIndex = buffer.limit();
     }
 
+    /**
+     * 复用实例：替换底层 ByteBuffer 并将读写指针归零（池化对象复用时调用）。
+     *
+     * @param buffer 新的底层 ByteBuffer，回收时传 null 释放引用
+     */
+    void reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.readerIndex = 0;
+        this.writerIndex = 0;
+    }
+
     // ======================== 底层 ByteBuffer 访问 ========================
 
     /**
@@ -15,6 +15,9 @@
  */
 package com.gettyio.core.channel;
 
+import com.gettyio.core.buffer.AdaptiveRecvBufferAllocator;
+import com.gettyio.core.buffer.BufferWriter;
+import com.gettyio.core.buffer.FlushNotifier;
 import com.gettyio.core.buffer.pool.ByteBufferPool;
 import com.gettyio.core.buffer.pool.PooledByteBuffer;
 import com.gettyio.core.channel.config.GettyConfig;
@@ -33,6 +36,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * I/O 通道的抽象基类。
@@ -55,6 +59,15 @@ public abstract class AbstractSocketChannel {
     /** 通道已启用（正常工作） */
     protected static final byte CHANNEL_STATUS_ENABLED = 3;
 
+    /**
+     * 本线程正在执行的 {@link #write(Object, WriteFuture)} 登记的写路径失败。
+     * 值为 {@link #WRITE_TRACKING} 表示正在跟踪且尚无失败，为 null 表示未在跟踪。
+     */
+    private static final ThreadLocal<Object> WRITE_FAILURE = new ThreadLocal<>();
+
+    /** 正在跟踪写出结果、尚无失败的标记 */
+    private static final Object WRITE_TRACKING = new Object();
+
     // ==================== 通道状态字段 ====================
 
     /**
@@ -71,7 +84,10 @@ public abstract class AbstractSocketChannel {
     /** SSL 握手是否已完成 */
     protected volatile boolean handShake;
 
-    /** 当前通道是否可写入（流控标志） */
+    /** 是否自动读取入站数据，关闭后暂停读取直至重新开启 */
+    protected volatile boolean autoRead = true;
+
+    /** 当前通道是否可写入：待写字节数达到高水位线时为 false，降至低水位线时恢复为 true */
     protected volatile boolean writeable = true;
 
     // ==================== 核心组件 ====================
@@ -82,6 +98,9 @@ public abstract class AbstractSocketChannel {
     /** 通道配置 */
     protected GettyConfig config;
 
+    /** 写出缓冲区：业务线程入队，I/O 线程出队写出 */
+    protected BufferWriter bufferWriter;
+
     /** 管道（责任链），惰性初始化 */
     protected ChannelPipeline channelPipeline;
 
@@ -95,12 +114,21 @@ public abstract class AbstractSocketChannel {
      */
     private final List<ChannelFutureListener> channelFutureListeners = new CopyOnWriteArrayList<>();
 
+    /** 通过 {@link #setChannelFutureListener(ChannelFutureListener)} 设置的监听器，再次设置时只替换它 */
+    private final AtomicReference<ChannelFutureListener> assignedListener = new AtomicReference<>();
+
     /** 通道属性（读写安全的 Map） */
     protected ConcurrentSafeMap<String, Object> channelAttribute = new ConcurrentSafeMap<>();
 
     /** 管道初始化器 */
     protected ChannelInitializer channelInitializer;
 
+    /** 自适应读缓冲区预测器（仅读线程访问，未启用自适应时为 null） */
+    private AdaptiveRecvBufferAllocator recvBufferAllocator;
+
+    /** 最近一次读取的时间（System.nanoTime 基准），优雅停机时判断连接是否空闲 */
+    private volatile long lastReadNanos = System.nanoTime();
+
     // ==================== 标识与状态查询 ====================
 
     /**
@@ -159,6 +187,105 @@ public abstract class AbstractSocketChannel {
      */
     public abstract void write(Object obj);
 
+    /**
+     * 经过责任链编码后追加到写缓冲区链表，并跟踪写出结果，不触发实际写出。
+     * <p>
+     * future 作为标记跟随编码后的数据入队，I/O 线程写出它之前的全部数据后置为成功，
+     * 通道关闭时置为失败。编码或入队失败（处理器异常、通道已关闭、消息类型不支持）时不入队标记，
+     * future 直接以该异常置为失败。传入 {@link WriteFuture#VOID} 时不入队，与 {@link #write(Object)} 等价。
+     * </p>
+     *
+     * @param obj    待写出的数据
+     * @param future 写出结果
+     * @return 传入的 future
+     */
+    public WriteFuture write(Object obj, WriteFuture future) {
+        if (future.isVoid()) {
+            write(obj);
+            return future;
+        }
+        Object outer = WRITE_FAILURE.get();
+        WRITE_FAILURE.set(WRITE_TRACKING);
+        Object failure;
+        try {
+            write(obj);
+        } finally {
+            failure = WRITE_FAILURE.get();
+            WRITE_FAILURE.set(outer);
+        }
+        if (failure instanceof Throwable) {
+            future.setFailure((Throwable) failure);
+            return future;
+        }
+        try {
+            bufferWriter.write(future);
+        } catch (IOException e) {
+            future.setFailure(e);
+        }
+        return future;
+    }
+
+    /**
+     * 登记写路径上的失败，框架内部使用。
+     * <p>
+     * 处理器异常被管道转为 exceptionCaught 事件，writeToSocket 的入队失败只记录日志，都不会抛给调用方；
+     * 管道和各通道在此登记，本线程正在执行的 {@link #write(Object, WriteFuture)} 据此将 future 置为失败。
+     * 本线程没有跟踪中的调用时忽略。
+     * </p>
+     *
+     * @param cause 失败原因
+     */
+    public final void writeFailed(Throwable cause) {
+        if (WRITE_FAILURE.get() == WRITE_TRACKING) {
+            WRITE_FAILURE.set(cause);
+        }
+    }
+
+    /**
+     * 写出数据并跟踪写出结果。
+     * <p>
+     * 开启流控（{@link GettyConfig#isFlowControl()}）且待写字节数已达到高水位线时不入队，future 立即置为失败；
+     * 未开启流控时高水位线只影响 {@link #isWriteable()}，不拒绝写入。
+     * </p>
+     *
+     * @param obj    待写出的数据
+     * @param future 写出结果
+     * @return 传入的 future
+     * @see #write(Object, WriteFuture)
+     */
+    public WriteFuture writeAndFlush(Object obj, WriteFuture future) {
+        if (isOverHighWaterMark()) {
+            future.setFailure(new IOException("pending outbound bytes exceed highWaterMark"));
+            return future;
+        }
+        write(obj, future);
+        flush();
+        return future;
+    }
+
+    /**
+     * 按配置的水位线创建写缓冲。未开启流控且水位线不合法时不跟踪可写状态，与开启水位线之前的配置兼容。
+     *
+     * @param flushNotifier 写出通知器
+     * @param config        通道配置
+     * @return 写缓冲
+     */
+    protected static BufferWriter newBufferWriter(FlushNotifier flushNotifier, GettyConfig config) {
+        if (!config.isFlowControl() && !config.isWaterMarkValid()) {
+            return new BufferWriter(flushNotifier);
+        }
+        return new BufferWriter(flushNotifier, config.getHighWaterMark(), config.getLowWaterMark());
+    }
+
+    /**
+     * 开启流控且待写字节数已达到高水位线时返回 true，此时 writeAndFlush 拒绝入队。
+     *
+     * @return 是否拒绝写入
+     */
+    protected boolean isOverHighWaterMark() {
+        return config.isFlowControl() && bufferWriter.getPendingBytes() >= config.getHighWaterMark();
+    }
+
     /**
      * 刷新写缓冲区，触发实际写出。
      * <p>
@@ -239,6 +366,61 @@ public abstract class AbstractSocketChannel {
         return p;
     }
 
+    // ==================== 读缓冲区大小 ====================
+
+    /**
+     * 获取下一次读取使用的缓冲区大小。
+     * <p>
+     * 启用 {@link GettyConfig#isAdaptiveReadBuffer()} 时由本通道的预测器给出，否则为固定的 readBufferSize。
+     * 仅由读线程调用。
+     * </p>
+     *
+     * @return 缓冲区大小（字节）
+     */
+    public final int nextReadBufferSize() {
+        AdaptiveRecvBufferAllocator allocator = recvBufferAllocator;
+        if (allocator == null) {
+            if (!config.isAdaptiveReadBuffer()) {
+                return config.getReadBufferSize();
+            }
+            allocator = new AdaptiveRecvBufferAllocator(config.getMinReadBufferSize(),
+                    config.getReadBufferSize(), config.getMaxReadBufferSize());
+            recvBufferAllocator = allocator;
+        }
+        return allocator.guess();
+    }
+
+    /**
+     * 记录一次读取：更新最近读取时间，并调整自适应读缓冲区大小。仅由读线程调用。
+     *
+     * @param bytes 实际读取的字节数
+     */
+    public final void recordRead(int bytes) {
+        lastReadNanos = System.nanoTime();
+        if (recvBufferAllocator != null) {
+            recvBufferAllocator.record(bytes);
+        }
+    }
+
+    /**
+     * 最近一次读取的时间，通道创建后尚未读取时为创建时间。
+     *
+     * @return System.nanoTime 基准的时间戳
+     */
+    public final long lastReadNanos() {
+        return lastReadNanos;
+    }
+
+    /**
+     * 是否还有已入队但尚未写入 Socket 的数据或写出结果。
+     *
+     * @return true 表示仍有待写出的消息
+     */
+    public boolean hasPendingWrites() {
+        BufferWriter writer = bufferWriter;
+        return writer != null && (writer.getPendingBytes() > 0 || !writer.isEmpty());
+    }
+
     // ==================== 内存池 ====================
 
     public ByteBufferPool getByteBufferPool() {
@@ -287,13 +469,21 @@ public abstract class AbstractSocketChannel {
      * 添加通道关闭监听器。
      * <p>
      * 支持同一通道注册多个监听器（如加入多个 ChannelGroup）。
+     * 通道已关闭（例如在初始化或 NEW_CHANNEL 事件中被关闭）时立即回调，
+     * 保证监听器不会因注册晚于关闭而被遗漏。
      * </p>
      *
      * @param listener 待添加的监听器
      */
     public final void addChannelFutureListener(ChannelFutureListener listener) {
-        if (listener != null) {
-            channelFutureListeners.add(listener);
+        if (listener == null) {
+            return;
+        }
+        channelFutureListeners.add(listener);
+        // 先入列表再检查状态：与 close() 并发时，要么关闭方的快照包含该监听器，要么此处看到已关闭；
+        // 双方都通过 remove 认领，保证只回调一次
+        if (status == CHANNEL_STATUS_CLOSED && channelFutureListeners.remove(listener)) {
+            notifyChannelFutureListener(listener);
         }
     }
 
@@ -311,36 +501,43 @@ public abstract class AbstractSocketChannel {
     /**
      * 设置通道关闭监听器（便捷方法）。
      * <p>
-     * 清空已有监听器并设置新的。等价于先 removeAll 再 add。
-     * 传入 null 则清空所有监听器。
+     * 替换上一次通过本方法设置的监听器，{@link #addChannelFutureListener(ChannelFutureListener)}
+     * 添加的监听器（如连接配额释放、ChannelGroup 自动移除）不受影响。
+     * 传入 null 则只移除上一次设置的监听器。
      * </p>
      *
-     * @param listener 监听器，null 表示清空
+     * @param listener 监听器，null 表示移除
      */
     public void setChannelFutureListener(ChannelFutureListener listener) {
-        channelFutureListeners.clear();
-        if (listener != null) {
-            channelFutureListeners.add(listener);
-        }
+        ChannelFutureListener previous = assignedListener.getAndSet(listener);
+        removeChannelFutureListener(previous);
+        addChannelFutureListener(listener);
     }
 
     /**
      * 触发所有通道关闭监听器。
      * <p>
-     * 由子类 close() 方法调用。CopyOnWriteArrayList 的 iterator
-     * 是快照迭代器，遍历期间不受并发修改影响，无锁开销。
+     * 由子类 close() 方法在将状态置为关闭后调用。CopyOnWriteArrayList 的 iterator
+     * 是快照迭代器，遍历期间不受并发修改影响，无锁开销。每个监听器回调前先从列表中移除，
+     * 与 {@link #addChannelFutureListener(ChannelFutureListener)} 的立即回调互斥。
      * </p>
      */
     protected final void fireChannelFutureListeners() {
         for (ChannelFutureListener listener : channelFutureListeners) {
-            try {
-                listener.operationComplete(this);
-            } catch (Exception e) {
-                logger.error("channelFutureListener error", e);
+            if (channelFutureListeners.remove(listener)) {
+                notifyChannelFutureListener(listener);
             }
         }
     }
 
+    private void notifyChannelFutureListener(ChannelFutureListener listener) {
+        try {
+            listener.operationComplete(this);
+        } catch (Exception e) {
+            logger.error("channelFutureListener error", e);
+        }
+    }
+
     public ConcurrentSafeMap<String, Object> getChannelAttribute() {
         return channelAttribute;
     }
@@ -363,6 +560,36 @@ public abstract class AbstractSocketChannel {
         channelAttribute.remove(key);
     }
 
+    /**
+     * 设置是否自动读取入站数据。
+     * <p>
+     * 关闭后通道暂停从 Socket 读取，对端的发送将受 TCP 窗口限制而放缓；重新开启后恢复读取。
+     * 代理等场景可在目标通道不可写时关闭来源通道的自动读取，保持内存平稳。
+     * 可在任意线程调用。已发起的读取仍可能再投递一次数据。
+     * </p>
+     *
+     * @param autoRead 是否自动读取
+     */
+    public void setAutoRead(boolean autoRead) {
+        if (this.autoRead == autoRead) {
+            return;
+        }
+        this.autoRead = autoRead;
+        autoReadChanged(autoRead);
+    }
+
+    public boolean isAutoRead() {
+        return autoRead;
+    }
+
+    /**
+     * 自动读取开关变化时回调，由子类暂停或恢复底层读取。
+     *
+     * @param autoRead 是否自动读取
+     */
+    protected void autoReadChanged(boolean autoRead) {
+    }
+
     public void setKeepAlive(boolean keepAlive) {
         this.keepAlive = keepAlive;
     }
@@ -387,6 +614,31 @@ public abstract class AbstractSocketChannel {
         return writeable;
     }
 
+    /**
+     * BufferWriter 的待写字节数越过水位线时回调，更新可写标志并向管道触发
+     * {@link ChannelState#CHANNEL_WRITABILITY_CHANGED} 事件。
+     *
+     * @param writable 是否可写
+     */
+    public void writabilityChanged(boolean writable) {
+        this.writeable = writable;
+        fireWritabilityChanged();
+    }
+
+    /**
+     * 向管道触发可写状态变化事件。默认在调用线程内执行，子类可切换到 I/O 线程。
+     */
+    protected void fireWritabilityChanged() {
+        if (status == CHANNEL_STATUS_CLOSED) {
+            return;
+        }
+        try {
+            invokePipeline(ChannelState.CHANNEL_WRITABILITY_CHANGED, null);
+        } catch (Exception e) {
+            logger.error("fire CHANNEL_WRITABILITY_CHANGED failed", e);
+        }
+    }
+
     public ChannelInitializer getChannelInitializer() {
         return channelInitializer;
     }
@@ -16,6 +16,7 @@
 package com.gettyio.core.channel;
 
 import com.gettyio.core.buffer.BufferWriter;
+import com.gettyio.core.buffer.FileRegion;
 import com.gettyio.core.buffer.FlushNotifier;
 import com.gettyio.core.buffer.pool.ByteBufferPool;
 import com.gettyio.core.buffer.pool.PooledByteBuffer;
@@ -32,6 +33,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.WritePendingException;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,8 +47,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 实现非阻塞的读写操作。写出采用 BufferWriter 链表缓存 + Gathering Write 设计：
  * 业务线程将数据追加到链表后立即返回，由共享写线程 {@link AioWriteThread} 驱动，
  * 通过 {@code channel.write(ByteBuffer[])} 批量写出所有缓冲区，
- * 通过回调 {@link #writeCompleted()} 唤醒写线程驱动后续写出。
- * 写线程无数据时 {@code park} 阻塞，避免空转。
+ * 通道有待写数据时才进入写线程的就绪队列，回调 {@link #writeCompleted(long)} 后队列仍有数据则重新入队。
+ * 写线程无就绪通道时 {@code park} 阻塞，避免空转。
+ * 未指定写线程时（{@link GettyConfig#isAioDirectWrite()}）为直接写模式：flush 由调用线程直接提交，
+ * 写出完成回调负责提交后续数据。
  * </p>
  *
  * @author gogym
@@ -63,11 +67,6 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      */
     private PooledByteBuffer readByteBuffer;
 
-    /**
-     * 数据输出组件（单向链表缓存待写出缓冲区）
-     */
-    private final BufferWriter bufferWriter;
-
     /**
      * 标记 AIO 异步写是否进行中。
      * <p>
@@ -78,7 +77,16 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
     private final AtomicBoolean writeInFlight = new AtomicBoolean(false);
 
     /**
-     * 共享写线程。多个 Channel 共享同一写线程，通过 wakeup 唤醒。
+     * 是否已在写线程的就绪队列中。
+     * <p>
+     * CAS 保证同一 Channel 最多入队一次；写线程取出后先清除标志再 drain，
+     * 之后到达的 flush 会重新入队，不会丢失。
+     * </p>
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+    /**
+     * 共享写线程。多个 Channel 共享同一写线程，通过就绪队列调度；直接写模式下为 null。
      */
     private final AioWriteThread writeThread;
 
@@ -88,11 +96,11 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
     private final AioWriteThreadGroup writeThreadGroup;
 
     /**
-     * PooledByteBuffer 列表，由写线程构建。
+     * 待写出的消息列表（PooledByteBuffer 或 WriteFuture 标记），由写线程构建。
      * 业务线程在 writeToSocket 中分配 PooledByteBuffer，AIO 回调线程释放时走 MPSC 队列回到业务线程缓存。
      * tryDrainAndSubmit / writeCompleted 在 writeInFlight=true 时访问，无并发。
      */
-    private final List<PooledByteBuffer> drainBufs = new ArrayList<>();
+    private final List<Object> drainBufs = new ArrayList<>();
 
     /**
      * Gathering Write 的 ByteBuffer 视图数组，预分配复用。
@@ -101,6 +109,15 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      */
     private ByteBuffer[] writeViews = new ByteBuffer[16];
 
+    /**
+     * 是否有已提交、尚未完成的异步读取。
+     * <p>
+     * 关闭 autoRead 后读完成回调不再发起下一次读取并清除此标志；
+     * 重新开启时 CAS 抢到标志的一方负责发起读取，保证同一时刻最多一个读操作。
+     * </p>
+     */
+    private final AtomicBoolean readInFlight = new AtomicBoolean(false);
+
     /**
      * 读完成回调
      */
@@ -129,6 +146,8 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      * @param readCompletionHandler 读回调处理器
      * @param byteBufferPool        内存池
      * @param channelInitializer    管道初始化器
+     * @param writeThread           共享写线程，null 表示直接写模式
+     * @param writeThreadGroup      写线程组，直接写模式下为 null
      */
     public AioChannel(AsynchronousSocketChannel channel, GettyConfig config,
                       ReadCompletionHandler readCompletionHandler,
@@ -141,10 +160,12 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         this.channelInitializer = channelInitializer;
         this.writeThread = writeThread;
         this.writeThreadGroup = writeThreadGroup;
-        this.bufferWriter = new BufferWriter(this);
+        this.bufferWriter = newBufferWriter(this, config);
 
         // 注册到共享写线程
-        writeThread.register(this);
+        if (writeThread != null) {
+            writeThread.register(this);
+        }
 
         try {
             channelInitializer.initChannel(this);
@@ -168,12 +189,31 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
     @Override
     public void starRead() {
         initiateClose = false;
-        continueRead();
+        tryRead();
         if (sslHandler != null) {
             sslHandler.beginHandshake();
         }
     }
 
+    /**
+     * autoRead 开启且当前没有未完成的读取时发起读取。
+     */
+    private void tryRead() {
+        if (autoRead && readInFlight.compareAndSet(false, true)) {
+            continueRead();
+        }
+    }
+
+    /**
+     * 恢复读取时重新发起异步读取；暂停时由读完成回调停止续读。
+     */
+    @Override
+    protected void autoReadChanged(boolean autoRead) {
+        if (autoRead) {
+            tryRead();
+        }
+    }
+
     /**
      * 发起下一次异步读取。从内存池获取缓冲区并提交给通道。
      */
@@ -181,7 +221,7 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         if (status == CHANNEL_STATUS_CLOSED) {
             return;
         }
-        readByteBuffer = byteBufferPool.acquire(config.getReadBufferSize());
+        readByteBuffer = byteBufferPool.acquire(nextReadBufferSize());
         channel.read(readByteBuffer.flipToFill(), this, readCompletionHandler);
     }
 
@@ -200,8 +240,10 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
 
         // 切换到读模式：writerIndex 从 ByteBuffer.position 同步，readerIndex = 0
         readBuf.flipToFlush();
+        recordRead(readBuf.readableBytes());
 
         if (readBuf.isReadable()) {
+            readBuf.touch("channelRead");
             try {
                 invokePipeline(ChannelState.CHANNEL_READ, readBuf);
             } catch (Exception e) {
@@ -224,7 +266,8 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         }
 
         readBuf.release();
-        continueRead();
+        readInFlight.set(false);
+        tryRead();
     }
 
     // ==================== 写操作 ====================
@@ -238,6 +281,10 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
     @Override
     public boolean writeAndFlush(Object obj) {
         try {
+            if (isOverHighWaterMark()) {
+                // 待写字节数已达到高水位线，拒绝入队，由调用方稍后重试或丢弃
+                return false;
+            }
             write(obj);
             flush();
         } catch (Exception e) {
@@ -258,6 +305,7 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             reverseInvokePipeline(ChannelState.CHANNEL_WRITE, obj);
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("write failed", e);
         }
     }
@@ -279,7 +327,8 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
     /**
      * 管道终点：将消息入队，由写线程拉取并提交 AIO 写出。
      * <p>
-     * 仅接受 {@link PooledByteBuffer} 类型。编码器须直接输出 PooledByteBuffer。
+     * 接受 {@link PooledByteBuffer} 和 {@link FileRegion} 类型。编码器须直接输出 PooledByteBuffer；
+     * FileRegion 由写出流程逐块读入池化缓冲区后提交，同一时刻只占用一块内存。
      * </p>
      */
     @Override
@@ -287,26 +336,50 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             if (msg instanceof PooledByteBuffer) {
                 PooledByteBuffer buf = (PooledByteBuffer) msg;
+                buf.touch("writeToSocket");
                 if (!buf.isReadable()) {
                     buf.release();
                     return;
                 }
-                bufferWriter.write(buf);
+                try {
+                    bufferWriter.write(buf);
+                } catch (IOException e) {
+                    // 通道已关闭，缓冲区未入队，由此处释放
+                    buf.release();
+                    throw e;
+                }
+            } else if (msg instanceof FileRegion) {
+                FileRegion region = (FileRegion) msg;
+                try {
+                    bufferWriter.write(region);
+                } catch (IOException e) {
+                    region.release();
+                    throw e;
+                }
+            } else {
+                throw new IllegalArgumentException("unsupported message type: "
+                        + (msg == null ? "null" : msg.getClass().getName()) + ", encoder must output PooledByteBuffer");
             }
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("writeToSocket failed", e);
         }
     }
 
     /**
-     * FlushNotifier 实现：唤醒写线程提交写出。
+     * FlushNotifier 实现：将本通道加入写线程的就绪队列。
      * <p>
-     * 业务线程仅通过 wakeup 通知写线程，不直接执行任何 I/O 操作。
+     * 业务线程仅负责入队，不直接执行任何 I/O 操作；已在队列中时不重复入队。
+     * 直接写模式下由调用线程直接 drain 并提交，写出进行中时由完成回调接续。
      * </p>
      */
     @Override
     public void notifyFlush() {
-        writeThread.wakeup();
+        if (writeThread == null) {
+            tryDrainAndSubmit();
+        } else if (writeScheduled.compareAndSet(false, true)) {
+            writeThread.schedule(this);
+        }
     }
 
 
@@ -314,17 +387,53 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      * 使用 Gathering Write 提交异步写出。
      * <p>
      * 从 PooledByteBuffer 获取底层 ByteBuffer，设置 position/limit 为可读范围。
-     * AIO 写出会推进 ByteBuffer 的 position，{@link #writeCompleted()} 通过
+     * AIO 写出会推进 ByteBuffer 的 position，{@link #writeCompleted(long)} 通过
      * {@code readerIndex} 同步回 position，支持部分写出追踪。
      * </p>
      *
-     * @param bufs 待写出的 PooledByteBuffer 列表（写线程分配）
+     * @param bufs 待写出的消息列表（写线程分配）
      */
-    private void submitWrite(List<PooledByteBuffer> bufs) {
+    private void submitWrite(List<Object> bufs) {
+
+        // 队首的 WriteFuture 之前已没有未写出的数据，直接置为成功；已传输完毕的 FileRegion 直接释放
+        int leading = 0;
+        while (leading < bufs.size()) {
+            Object msg = bufs.get(leading);
+            if (msg instanceof WriteFuture) {
+                ((WriteFuture) msg).setSuccess();
+            } else if (msg instanceof FileRegion && ((FileRegion) msg).isDone()) {
+                ((FileRegion) msg).release();
+            } else {
+                break;
+            }
+            leading++;
+        }
+        if (leading > 0) {
+            bufs.subList(0, leading).clear();
+        }
+
+        // 队首是 FileRegion：读取下一块插入其前，写完后再读下一块
+        if (!bufs.isEmpty() && bufs.get(0) instanceof FileRegion) {
+            try {
+                bufs.add(0, ((FileRegion) bufs.get(0)).readChunk(byteBufferPool, FileRegion.DEFAULT_CHUNK_SIZE));
+            } catch (IOException e) {
+                logger.error("read file region failed", e);
+                for (int i = 0; i < bufs.size(); i++) {
+                    BufferWriter.discard(bufs.get(i), e);
+                }
+                bufs.clear();
+                writeInFlight.set(false);
+                close();
+                return;
+            }
+        }
 
         if (bufs.isEmpty()) {
-            // 无数据可写，释放写权限
+            // 无数据可写，释放写权限；期间入队的数据其 flush 可能因 CAS 被跳过，重新检查
             writeInFlight.set(false);
+            if (!bufferWriter.isEmpty()) {
+                notifyFlush();
+            }
             return;
         }
 
@@ -333,21 +442,30 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         if (writeViews.length < size) {
             writeViews = new ByteBuffer[Integer.highestOneBit(size) << 1];
         }
+        int viewCount = 0;
         for (int i = 0; i < size; i++) {
-            PooledByteBuffer buf = bufs.get(i);
-            ByteBuffer bb = buf.getBuffer();
-            bb.position(buf.readerIndex());
-            bb.limit(buf.writerIndex());
-            writeViews[i] = bb;
+            Object msg = bufs.get(i);
+            if (msg instanceof FileRegion) {
+                // FileRegion 之后的数据等其传输完毕再提交
+                break;
+            }
+            if (msg instanceof PooledByteBuffer) {
+                PooledByteBuffer buf = (PooledByteBuffer) msg;
+                ByteBuffer bb = buf.getBuffer();
+                bb.position(buf.readerIndex());
+                bb.limit(buf.writerIndex());
+                writeViews[viewCount++] = bb;
+            }
         }
         try {
-            channel.write(writeViews, 0, size, 0L, TimeUnit.MILLISECONDS, this, writeCompletionHandler);
+            channel.write(writeViews, 0, viewCount, 0L, TimeUnit.MILLISECONDS, this, writeCompletionHandler);
         } catch (Exception e) {
             logger.error("channel write failed", e);
             // 写出失败，释放所有缓冲区
-            for (PooledByteBuffer buf : bufs) {
-                buf.release();
+            for (int i = 0; i < size; i++) {
+                BufferWriter.discard(bufs.get(i), e);
             }
+            bufs.clear();
             writeInFlight.set(false);
             close();
         }
@@ -363,13 +481,31 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      * 3. 全部写完 → 在持有锁的状态下检查 BufferWriter 队列
      * 4. 队列空 → 释放锁，再检查一次防止竞争
      * </p>
+     *
+     * @param written 本次 Gathering Write 实际写出的字节数
      */
-    public void writeCompleted() {
+    public void writeCompleted(long written) {
+        bufferWriter.bytesWritten(written);
         try {
             // 1. 同步 readerIndex，释放已写完的缓冲区
             int firstRemaining = -1;
             for (int i = 0; i < drainBufs.size(); i++) {
-                PooledByteBuffer buf = drainBufs.get(i);
+                Object msg = drainBufs.get(i);
+                if (msg instanceof WriteFuture) {
+                    // 之前的数据均已写出
+                    ((WriteFuture) msg).setSuccess();
+                    continue;
+                }
+                if (msg instanceof FileRegion) {
+                    if (((FileRegion) msg).isDone()) {
+                        ((FileRegion) msg).release();
+                        continue;
+                    }
+                    // 尚有数据未读取，由 submitWrite 读取下一块
+                    firstRemaining = i;
+                    break;
+                }
+                PooledByteBuffer buf = (PooledByteBuffer) msg;
                 ByteBuffer bb = buf.getBuffer();
                 buf.readerIndex(bb.position());
                 if (buf.isReadable()) {
@@ -402,7 +538,10 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
                 close();
             }
         } finally {
-            writeThread.wakeup();
+            // 写权限已释放且队列仍有数据（写出期间到达的 flush 被 CAS 跳过），重新入队或直接提交
+            if (!writeInFlight.get() && !bufferWriter.isEmpty()) {
+                notifyFlush();
+            }
         }
     }
 
@@ -410,22 +549,24 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
      * writeCompleted 异常时的清理操作。
      * <p>
      * 由 {@link com.gettyio.core.channel.internal.WriteCompletionHandler} 在
-     * writeCompleted 抛出异常时调用。重置 writeInFlight 并唤醒写线程重新 drain。
+     * writeCompleted 抛出异常时调用。重置 writeInFlight 并重新入队 drain。
      * </p>
      */
     public void writeCompletedFailed() {
         writeInFlight.set(false);
-        writeThread.wakeup();
+        notifyFlush();
     }
 
     /**
-     * 尝试 drain 并提交 AIO 写出。由共享写线程遍历调用。
+     * 尝试 drain 并提交 AIO 写出。由共享写线程从就绪队列取出后调用；直接写模式下由 flush 调用线程或写出完成回调调用。
      * <p>
      * CAS 保证同一 Channel 只有一个执行流进入 drain + submit 路径。
-     * 如果 AIO 正在写出（writeInFlight=true），则跳过，等待 AIO 回调唤醒写线程。
+     * 如果 AIO 正在写出（writeInFlight=true），则跳过，由 AIO 回调完成后重新入队。
      * </p>
      */
     public void tryDrainAndSubmit() {
+        // 先清除入队标志，此后到达的 flush 会重新入队
+        writeScheduled.set(false);
         if (writeInFlight.compareAndSet(false, true)) {
             drainBufs.clear();
             bufferWriter.pollAll(drainBufs);
@@ -472,11 +613,14 @@ public class AioChannel extends AbstractSocketChannel implements FlushNotifier {
         }
 
         // 从共享写线程注销
-        writeThread.unregister(this);
+        if (writeThread != null) {
+            writeThread.unregister(this);
+        }
 
-        // 释放 drainBufs 中残留的 PooledByteBuffer
-        for (PooledByteBuffer buf : drainBufs) {
-            buf.release();
+        // 释放 drainBufs 中残留的 PooledByteBuffer，未完成的写出结果置为失败
+        ClosedChannelException cause = new ClosedChannelException();
+        for (int i = 0; i < drainBufs.size(); i++) {
+            BufferWriter.discard(drainBufs.get(i), cause);
         }
         drainBufs.clear();
 
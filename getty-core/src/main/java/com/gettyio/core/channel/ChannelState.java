@@ -34,6 +34,9 @@ public enum ChannelState {
     /** 写出数据 */
     CHANNEL_WRITE,
 
+    /** 可写状态变化（待写字节数越过高/低水位线） */
+    CHANNEL_WRITABILITY_CHANGED,
+
     /** 空闲事件（心跳检测等） */
     CHANNEL_EVENT,
 
@@ -16,6 +16,7 @@
 package com.gettyio.core.channel;
 
 import com.gettyio.core.buffer.BufferWriter;
+import com.gettyio.core.buffer.FileRegion;
 import com.gettyio.core.buffer.FlushNotifier;
 import com.gettyio.core.buffer.pool.ByteBufferPool;
 import com.gettyio.core.buffer.pool.PooledByteBuffer;
@@ -32,7 +33,9 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * NIO（非阻塞 I/O）通道实现。
@@ -55,14 +58,11 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
     /** 所属的事件循环 */
     private final NioEventLoop nioEventLoop;
 
-    /** 数据输出组件 */
-    private final BufferWriter bufferWriter;
-
     /**
-     * 部分写出时残留的 PooledByteBuffer 列表（仅 EventLoop 线程访问）。
+     * 部分写出时残留的消息列表（PooledByteBuffer 或 WriteFuture 标记，仅 EventLoop 线程访问）。
      * 全部写出后释放并清空，等待下一轮 drain。
      */
-    private final List<PooledByteBuffer> pendingBufs = new ArrayList<>();
+    private final List<Object> pendingBufs = new ArrayList<>();
 
     /**
      * Gathering Write 的 ByteBuffer 视图数组，预分配复用。
@@ -72,14 +72,47 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
     private ByteBuffer[] writeViews = new ByteBuffer[16];
 
     /**
-     * OP_WRITE 是否已注册到 SelectionKey。
+     * OP_WRITE 是否已注册到 SelectionKey（仅 EventLoop 线程访问）。
+     * true 时跳过冗余的 interestOps() 调用。
+     */
+    private boolean writeInterestSet;
+
+    /** 缓存的 SelectionKey（仅 EventLoop 线程访问，Selector 重建后重新获取） */
+    private SelectionKey selectionKey;
+
+    /**
+     * 刷新任务是否已提交到 EventLoop。
      * <p>
-     * volatile 保证业务线程与 EventLoop 之间的可见性。
-     * 业务线程：true 时跳过 interestOps() 调用（~200ns → ~2ns volatile read）。
-     * EventLoop：removeOpWrite 时置 false。
+     * 多个业务线程并发 flush 时只有第一个提交任务，其余直接返回；
+     * 任务开始执行时清除标志，此后的 flush 会重新提交，保证数据不会滞留。
      * </p>
      */
-    private volatile boolean writeInterestSet;
+    private final AtomicBoolean flushPending = new AtomicBoolean(false);
+
+    /** 刷新任务：在 EventLoop 线程中直接写出，写不完时再注册 OP_WRITE */
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushPending.set(false);
+            doWrite();
+        }
+    };
+
+    /** 可写状态变化事件任务：保证管道事件在 EventLoop 线程内触发 */
+    private final Runnable writabilityChangedTask = new Runnable() {
+        @Override
+        public void run() {
+            NioChannel.super.fireWritabilityChanged();
+        }
+    };
+
+    /** 读兴趣更新任务：在 EventLoop 线程内按当前 autoRead 设置或清除 OP_READ */
+    private final Runnable readInterestTask = new Runnable() {
+        @Override
+        public void run() {
+            updateReadInterest();
+        }
+    };
 
     /** SSL 处理器 */
     private SSLHandler sslHandler;
@@ -103,7 +136,7 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         this.nioEventLoop = nioEventLoop;
         this.byteBufferPool = byteBufferPool;
         this.channelInitializer = channelInitializer;
-        this.bufferWriter = new BufferWriter(this);
+        this.bufferWriter = newBufferWriter(this, config);
 
         try {
             channelInitializer.initChannel(this);
@@ -140,7 +173,9 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         if (sslHandler != null) {
             sslHandler.beginHandshake();
         }
-        nioEventLoop.getSelector().register(channel, SelectionKey.OP_READ, this);
+        nioEventLoop.getSelector().register(channel, autoRead ? SelectionKey.OP_READ : 0, this);
+        // 注册前已入队（如 NEW_CHANNEL 回调中写出）但未写完的数据，需在注册后重新调度写出
+        notifyFlush();
     }
 
     /**
@@ -150,6 +185,7 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
      */
     public void doRead(PooledByteBuffer readBuf) {
         initiateClose = false;
+        readBuf.touch("channelRead");
         try {
             invokePipeline(ChannelState.CHANNEL_READ, readBuf);
         } catch (Exception e) {
@@ -163,15 +199,9 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
     @Override
     public boolean writeAndFlush(Object obj) {
         try {
-            if (config.isFlowControl()) {
-                int count = bufferWriter.getCount();
-                if (count >= config.getHighWaterMark()) {
-                    writeable = false;
-                    return false;
-                }
-                if (count <= config.getLowWaterMark()) {
-                    writeable = true;
-                }
+            if (isOverHighWaterMark()) {
+                // 待写字节数已达到高水位线，拒绝入队，由调用方稍后重试或丢弃
+                return false;
             }
             reverseInvokePipeline(ChannelState.CHANNEL_WRITE, obj);
             flush();
@@ -189,6 +219,7 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             reverseInvokePipeline(ChannelState.CHANNEL_WRITE, obj);
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("write failed", e);
         }
     }
@@ -204,7 +235,8 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
     /**
      * 管道终点：将消息入队，由 EventLoop 在 OP_WRITE 就绪时拉取并写出。
      * <p>
-     * 仅接受 {@link PooledByteBuffer} 类型。编码器须直接输出 PooledByteBuffer。
+     * 接受 {@link PooledByteBuffer} 和 {@link FileRegion} 类型。编码器须直接输出 PooledByteBuffer；
+     * FileRegion 由 EventLoop 通过 transferTo 零拷贝发送。
      * </p>
      */
     @Override
@@ -212,13 +244,32 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             if (msg instanceof PooledByteBuffer) {
                 PooledByteBuffer buf = (PooledByteBuffer) msg;
+                buf.touch("writeToSocket");
                 if (!buf.isReadable()) {
                     buf.release();
                     return;
                 }
-                bufferWriter.write(buf);
+                try {
+                    bufferWriter.write(buf);
+                } catch (IOException e) {
+                    // 通道已关闭，缓冲区未入队，由此处释放
+                    buf.release();
+                    throw e;
+                }
+            } else if (msg instanceof FileRegion) {
+                FileRegion region = (FileRegion) msg;
+                try {
+                    bufferWriter.write(region);
+                } catch (IOException e) {
+                    region.release();
+                    throw e;
+                }
+            } else {
+                throw new IllegalArgumentException("unsupported message type: "
+                        + (msg == null ? "null" : msg.getClass().getName()) + ", encoder must output PooledByteBuffer");
             }
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("writeToSocket failed", e);
         }
     }
@@ -233,24 +284,17 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         // 先标记为已关闭，防止并发重入
         status = CHANNEL_STATUS_CLOSED;
 
-        // 释放残留的 PooledByteBuffer
-        for (PooledByteBuffer buf : pendingBufs) {
-            buf.release();
+        // 释放残留的 PooledByteBuffer，未完成的写出结果置为失败
+        discardPending(new ClosedChannelException());
+        try {
+            bufferWriter.close();
+        } catch (IOException e) {
+            logger.error("close bufferWriter failed", e);
         }
-        pendingBufs.clear();
 
         // 通知关闭监听器
         fireChannelFutureListeners();
 
-        // 仅客户端连接的 EventLoop 需要关闭（服务端的 EventLoop 是共享的）
-        if (nioEventLoop != null && config.isClient()) {
-            try {
-                nioEventLoop.shutdown();
-            } catch (Exception e) {
-                logger.error("shutdown nioEventLoop failed", e);
-            }
-        }
-
         // 关闭底层通道
         try { channel.shutdownInput(); } catch (IOException e) { logger.error("shutdownInput failed", e); }
         try { channel.shutdownOutput(); } catch (IOException e) { logger.error("shutdownOutput failed", e); }
@@ -316,30 +360,38 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         this.handshakeListener = handshakeListener;
     }
 
-    // ==================== FlushNotifier 实现（通知 EventLoop 注册 OP_WRITE） ====================
+    // ==================== FlushNotifier 实现（将写出交给 EventLoop） ====================
 
     /**
-     * 通知 EventLoop 注册 OP_WRITE。
+     * 通知 EventLoop 写出队列中的数据。
      * <p>
-     * 由 {@link BufferWriter#flush()} 在业务线程中调用。
-     * 使用 volatile 标志跳过冗余的 interestOps() 调用：
-     * OP_WRITE 已注册时仅执行 wakeup()，避免每次 flush 都触发
-     * keyFor() + interestOps() 的开销（~200ns → ~2ns）。
+     * 由 {@link BufferWriter#flush()} 在业务线程或 EventLoop 线程中调用。
+     * 不再跨线程修改 interestOps，而是向 EventLoop 提交一次刷新任务：
+     * 同一时刻最多只有一个待执行的刷新任务，EventLoop 的唤醒也按循环合并，
+     * 大量业务线程向同一通道写小消息时不会产生 wakeup 系统调用风暴；
+     * 在 EventLoop 线程内调用时不唤醒 Selector，任务在本轮 I/O 处理后执行。
      * </p>
      */
     @Override
     public void notifyFlush() {
-        try {
-            if (!writeInterestSet) {
-                SelectionKey key = channel.keyFor(nioEventLoop.getSelector().getSelector());
-                if (key != null && key.isValid()) {
-                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
-                    writeInterestSet = true;
-                }
-            }
-            nioEventLoop.getSelector().wakeup();
-        } catch (Exception e) {
-            // 通道可能已关闭，忽略
+        if (flushPending.compareAndSet(false, true)) {
+            nioEventLoop.execute(flushTask);
+        }
+    }
+
+    /**
+     * 在 EventLoop 线程内触发可写状态变化事件。
+     * <p>
+     * 水位线在业务线程入队时可能被越过，此时提交到 EventLoop 执行，
+     * 与读事件处于同一线程，处理器无需额外同步。
+     * </p>
+     */
+    @Override
+    protected void fireWritabilityChanged() {
+        if (nioEventLoop.inEventLoop()) {
+            super.fireWritabilityChanged();
+        } else {
+            nioEventLoop.execute(writabilityChangedTask);
         }
     }
 
@@ -350,9 +402,10 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
      * <p>
      * 处理流程：
      * <ol>
-     *   <li>从 BufferWriter 拉取所有 PooledByteBuffer，直接获取底层 ByteBuffer 视图构建数组</li>
-     *   <li>使用 {@code SocketChannel.write(ByteBuffer[])} Gathering Write 一次性写出</li>
-     *   <li>部分写出时保留剩余缓冲区在 pendingBufs 中，等待下次 OP_WRITE 继续写出</li>
+     *   <li>从 BufferWriter 拉取所有消息，连续的 PooledByteBuffer 直接获取底层 ByteBuffer 视图构建数组</li>
+     *   <li>使用 {@code SocketChannel.write(ByteBuffer[])} Gathering Write 一次性写出；
+     *       {@link FileRegion} 使用 {@code FileChannel.transferTo} 零拷贝发送</li>
+     *   <li>部分写出时保留剩余消息在 pendingBufs 中，等待下次 OP_WRITE 继续写出</li>
      *   <li>全部写完后释放所有 PooledByteBuffer（跨线程走 MPSC 队列回收到业务线程缓存）</li>
      *   <li>再次检查新数据，有数据则继续写出，无数据才移除 OP_WRITE</li>
      * </ol>
@@ -374,56 +427,22 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
                 return;
             }
 
-            // 2. 从 PooledByteBuffer 获取底层 ByteBuffer 视图
-            int size = pendingBufs.size();
-            if (writeViews.length < size) {
-                writeViews = new ByteBuffer[Integer.highestOneBit(size) << 1];
-            }
-            for (int i = 0; i < size; i++) {
-                PooledByteBuffer pBuf = pendingBufs.get(i);
-                ByteBuffer bb = pBuf.getBuffer();
-                bb.position(pBuf.readerIndex());
-                bb.limit(pBuf.writerIndex());
-                writeViews[i] = bb;
-            }
-
-            // 3. Gathering Write
-            channel.write(writeViews, 0, size);
-
-            // 4. 同步 readerIndex，释放已完全写出的缓冲区
-            int remaining = 0;
-            for (int i = 0; i < size; i++) {
-                PooledByteBuffer pBuf = pendingBufs.get(i);
-                pBuf.readerIndex(writeViews[i].position());
-                if (pBuf.isReadable()) {
-                    remaining = pendingBufs.size() - i;
-                    // 将未写完的缓冲区前移
-                    for (int j = 0; j < remaining; j++) {
-                        pendingBufs.set(j, pendingBufs.get(i + j));
-                    }
-                    break;
-                }
-                // 已完全写出，释放（跨线程走 MPSC 队列）
-                pBuf.release();
-            }
-
-            if (remaining > 0) {
-                // 部分写出 → 保留 pendingBufs，保持 OP_WRITE
-                while (pendingBufs.size() > remaining) {
-                    pendingBufs.remove(pendingBufs.size() - 1);
-                }
+            // 2. 写出 pendingBufs
+            if (!writePending()) {
+                // 部分写出 → 保留剩余消息，注册 OP_WRITE 等待可写
+                setOpWrite();
                 if (!keepAlive) {
                     close();
                 }
                 return;
             }
 
-            pendingBufs.clear();
-
-            // 5. 全部写完，再检查一次新数据（防止竞争窗口）
+            // 3. 全部写完，再检查一次新数据（防止竞争窗口）
             bufferWriter.pollAll(pendingBufs);
             if (!pendingBufs.isEmpty()) {
-                return; // 有新数据，保持 OP_WRITE
+                // 有新数据，注册 OP_WRITE 在下一轮写出
+                setOpWrite();
+                return;
             }
 
             removeOpWrite();
@@ -434,26 +453,129 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         } catch (IOException e) {
             logger.error("doWrite gathering write failed", e);
             // 释放残留缓冲区
-            for (PooledByteBuffer buf : pendingBufs) {
-                buf.release();
-            }
-            pendingBufs.clear();
+            discardPending(e);
             close();
         }
     }
 
     /**
-     * 移除 OP_WRITE 兴趣事件，并重置 {@link #writeInterestSet} 标志。
+     * 按顺序写出 pendingBufs 中的消息。
      * <p>
-     * 由 EventLoop 线程在 doWrite 全部写完后调用。
-     * 重置标志后，下次 notifyFlush 会重新注册 OP_WRITE。
+     * 连续的 PooledByteBuffer 合并为一次 Gathering Write，FileRegion 单独 transferTo；
+     * WriteFuture 之前的数据全部写出后置为成功。Socket 发送缓冲区写满时停止，
+     * 已写完的消息移出列表，未写完的保留在列表头部。
      * </p>
+     *
+     * @return true 表示全部写完，false 表示 Socket 暂不可写
+     * @throws IOException 写出失败时抛出
+     */
+    private boolean writePending() throws IOException {
+        int size = pendingBufs.size();
+        int index = 0;
+        boolean blocked = false;
+        while (index < size && !blocked) {
+            Object msg = pendingBufs.get(index);
+            if (msg instanceof WriteFuture) {
+                ((WriteFuture) msg).setSuccess();
+                index++;
+                continue;
+            }
+            if (msg instanceof FileRegion) {
+                FileRegion region = (FileRegion) msg;
+                bufferWriter.bytesWritten(region.transferTo(channel));
+                if (!region.isDone()) {
+                    blocked = true;
+                    continue;
+                }
+                region.release();
+                index++;
+                continue;
+            }
+
+            // 收集到下一个 FileRegion 之前的 PooledByteBuffer 视图
+            int end = index;
+            int viewCount = 0;
+            while (end < size && !(pendingBufs.get(end) instanceof FileRegion)) {
+                Object m = pendingBufs.get(end++);
+                if (m instanceof PooledByteBuffer) {
+                    PooledByteBuffer pBuf = (PooledByteBuffer) m;
+                    ByteBuffer bb = pBuf.getBuffer();
+                    bb.position(pBuf.readerIndex());
+                    bb.limit(pBuf.writerIndex());
+                    if (viewCount == writeViews.length) {
+                        writeViews = Arrays.copyOf(writeViews, viewCount << 1);
+                    }
+                    writeViews[viewCount++] = bb;
+                }
+            }
+
+            // Gathering Write
+            long written = channel.write(writeViews, 0, viewCount);
+            bufferWriter.bytesWritten(written);
+
+            // 同步 readerIndex，释放已完全写出的缓冲区，之前数据已全部写出的 WriteFuture 置为成功
+            int view = 0;
+            for (; index < end; index++) {
+                Object m = pendingBufs.get(index);
+                if (m instanceof WriteFuture) {
+                    ((WriteFuture) m).setSuccess();
+                    continue;
+                }
+                PooledByteBuffer pBuf = (PooledByteBuffer) m;
+                pBuf.readerIndex(writeViews[view++].position());
+                if (pBuf.isReadable()) {
+                    blocked = true;
+                    break;
+                }
+                // 已完全写出，释放（跨线程走 MPSC 队列）
+                pBuf.release();
+            }
+        }
+
+        if (index >= size) {
+            pendingBufs.clear();
+            return true;
+        }
+        // 将未写完的消息前移
+        pendingBufs.subList(0, index).clear();
+        return false;
+    }
+
+    /**
+     * 丢弃部分写出时残留的消息：释放缓冲区，写出结果置为失败。
+     */
+    private void discardPending(Throwable cause) {
+        for (int i = 0; i < pendingBufs.size(); i++) {
+            BufferWriter.discard(pendingBufs.get(i), cause);
+        }
+        pendingBufs.clear();
+    }
+
+    /**
+     * 注册 OP_WRITE 兴趣事件（仅 EventLoop 线程调用）。
+     */
+    private void setOpWrite() {
+        if (writeInterestSet) {
+            return;
+        }
+        SelectionKey key = selectionKey();
+        if (key != null) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            writeInterestSet = true;
+        }
+    }
+
+    /**
+     * 移除 OP_WRITE 兴趣事件，并重置 {@link #writeInterestSet} 标志（仅 EventLoop 线程调用）。
      */
     private void removeOpWrite() {
+        if (!writeInterestSet) {
+            return;
+        }
         writeInterestSet = false;
         try {
-            SelectionKey key = channel.keyFor(nioEventLoop.getSelector().getSelector());
-            if (key != null && key.isValid()) {
+            SelectionKey key = selectionKey();
+            if (key != null) {
                 key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
             }
         } catch (Exception e) {
@@ -461,4 +583,53 @@ public class NioChannel extends AbstractSocketChannel implements FlushNotifier {
         }
     }
 
+    /**
+     * 切换 OP_READ。在 EventLoop 线程内直接修改 interestOps，否则提交任务执行。
+     */
+    @Override
+    protected void autoReadChanged(boolean autoRead) {
+        if (nioEventLoop.inEventLoop()) {
+            updateReadInterest();
+        } else {
+            nioEventLoop.execute(readInterestTask);
+        }
+    }
+
+    /**
+     * 按当前 autoRead 设置或清除 OP_READ（仅 EventLoop 线程调用）。
+     */
+    private void updateReadInterest() {
+        try {
+            SelectionKey key = selectionKey();
+            if (key == null) {
+                return;
+            }
+            int ops = key.interestOps();
+            int newOps = autoRead ? ops | SelectionKey.OP_READ : ops & ~SelectionKey.OP_READ;
+            if (newOps != ops) {
+                key.interestOps(newOps);
+            }
+        } catch (Exception e) {
+            // 通道可能已关闭，忽略
+        }
+    }
+
+    /**
+     * 获取本通道在 EventLoop Selector 上的有效 SelectionKey。
+     * <p>
+     * 缓存失效（如 Selector 因空轮询被重建）时重新查找，通道未注册或已关闭时返回 null。
+     * </p>
+     */
+    private SelectionKey selectionKey() {
+        SelectionKey key = selectionKey;
+        if (key == null || !key.isValid()) {
+            key = channel.keyFor(nioEventLoop.getSelector().getSelector());
+            if (key != null && !key.isValid()) {
+                key = null;
+            }
+            selectionKey = key;
+        }
+        return key;
+    }
+
 }
@@ -57,9 +57,6 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
     /** 关闭标志（CAS 保证只关闭一次） */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
-    /** 写出缓冲区：业务线程入队，写线程出队发送 */
-    private final BufferWriter bufferWriter;
-
     /** 读线程 */
     private Thread readThread;
 
@@ -84,7 +81,7 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
         this.config = config;
         this.byteBufferPool = byteBufferPool;
         this.channelInitializer = channelInitializer;
-        this.bufferWriter = new BufferWriter(this);
+        this.bufferWriter = newBufferWriter(this, config);
 
         try {
             channelInitializer.initChannel(this);
@@ -124,6 +121,7 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             while (!shutdown.get()) {
                 try {
+                    // wakeup（关闭时）或超时返回 0，回到循环头重新检查 shutdown
                     if (selector.select(1000) <= 0) {
                         continue;
                     }
@@ -183,7 +181,7 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
         List<Object> pendingMsgs = new ArrayList<>();
         try {
             while (!shutdown.get()) {
-                while (bufferWriter.getCount() == 0 && !shutdown.get()) {
+                while (bufferWriter.isEmpty() && !shutdown.get()) {
                     LockSupport.park();
                 }
                 if (shutdown.get()) {
@@ -192,9 +190,16 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
 
                 bufferWriter.pollAll(pendingMsgs);
                 for (int i = 0; i < pendingMsgs.size(); i++) {
-                    DatagramPacket packet = (DatagramPacket) pendingMsgs.get(i);
+                    Object msg = pendingMsgs.get(i);
+                    if (msg instanceof WriteFuture) {
+                        // 之前的数据报均已发送
+                        ((WriteFuture) msg).setSuccess();
+                        continue;
+                    }
+                    DatagramPacket packet = (DatagramPacket) msg;
                     ByteBuffer buf = ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength());
                     datagramChannel.send(buf, packet.getSocketAddress());
+                    bufferWriter.bytesWritten(packet.getLength());
                 }
                 pendingMsgs.clear();
             }
@@ -202,6 +207,10 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
             if (!shutdown.get()) {
                 logger.error("UDP write loop error", e);
             }
+            // 未发送的数据报对应的写出结果置为失败
+            for (int i = 0; i < pendingMsgs.size(); i++) {
+                BufferWriter.discard(pendingMsgs.get(i), e);
+            }
         }
     }
 
@@ -221,6 +230,7 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             reverseInvokePipeline(ChannelState.CHANNEL_WRITE, obj);
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("write failed", e);
         }
     }
@@ -252,6 +262,7 @@ public class UdpChannel extends AbstractSocketChannel implements FlushNotifier {
         try {
             bufferWriter.write(msg);
         } catch (Exception e) {
+            writeFailed(e);
             logger.error("writeToSocket failed", e);
         }
     }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel;
+
+import com.gettyio.core.logging.InternalLogger;
+import com.gettyio.core.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步写出结果。
+ * <p>
+ * 由 {@link AbstractSocketChannel#write(Object, WriteFuture)} 或
+ * {@link AbstractSocketChannel#writeAndFlush(Object, WriteFuture)} 提交，
+ * 作为标记跟随消息进入 BufferWriter 队列，I/O 线程写出它之前的全部数据并释放缓冲区后置为成功；
+ * 通道关闭、流控拒绝或写出异常时置为失败。
+ * </p>
+ * <p>
+ * 单个监听器直接保存在字段中，不额外分配集合。不关心结果的调用方使用 {@link #VOID}，
+ * 不入队、不分配，开销与 {@link AbstractSocketChannel#write(Object)} 相同。
+ * </p>
+ *
+ * @author gogym
+ */
+public class WriteFuture {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(WriteFuture.class);
+
+    /** 空结果单例：不跟踪写出结果，不支持添加监听器和等待 */
+    public static final WriteFuture VOID = new WriteFuture(true);
+
+    /** 成功标记 */
+    private static final Object SUCCESS = new Object();
+
+    /** 是否为空结果 */
+    private final boolean isVoid;
+
+    /** 结果：null 表示未完成，SUCCESS 表示成功，Throwable 表示失败原因 */
+    private volatile Object result;
+
+    /** 监听器：单个时为 WriteListener，多个时为 List（由 this 锁保护） */
+    private Object listeners;
+
+    /** 等待中的线程数（由 this 锁保护） */
+    private int waiters;
+
+    public WriteFuture() {
+        this(false);
+    }
+
+    private WriteFuture(boolean isVoid) {
+        this.isVoid = isVoid;
+    }
+
+    public boolean isVoid() {
+        return isVoid;
+    }
+
+    public boolean isDone() {
+        return result != null;
+    }
+
+    public boolean isSuccess() {
+        return result == SUCCESS;
+    }
+
+    /**
+     * 获取失败原因。
+     *
+     * @return 失败原因，未完成或成功时返回 null
+     */
+    public Throwable cause() {
+        Object r = result;
+        return r instanceof Throwable ? (Throwable) r : null;
+    }
+
+    /**
+     * 添加监听器。已完成时在当前线程立即回调。
+     *
+     * @param listener 监听器
+     * @return 当前对象
+     */
+    @SuppressWarnings("unchecked")
+    public WriteFuture addListener(WriteListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener can't be null");
+        }
+        checkNotVoid();
+        synchronized (this) {
+            if (result == null) {
+                Object l = listeners;
+                if (l == null) {
+                    listeners = listener;
+                } else if (l instanceof WriteListener) {
+                    List<WriteListener> list = new ArrayList<>(2);
+                    list.add((WriteListener) l);
+                    list.add(listener);
+                    listeners = list;
+                } else {
+                    ((List<WriteListener>) l).add(listener);
+                }
+                return this;
+            }
+        }
+        notifyListener(listener);
+        return this;
+    }
+
+    /**
+     * 等待写出完成。
+     *
+     * @return 当前对象
+     * @throws InterruptedException 等待被中断
+     */
+    public WriteFuture await() throws InterruptedException {
+        checkNotVoid();
+        synchronized (this) {
+            while (result == null) {
+                waiters++;
+                try {
+                    wait();
+                } finally {
+                    waiters--;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 在超时时间内等待写出完成。
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return true 表示已完成，false 表示超时
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotVoid();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (result == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                waiters++;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } finally {
+                    waiters--;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 标记为成功。
+     *
+     * @return false 表示此前已完成
+     */
+    public boolean setSuccess() {
+        return complete(SUCCESS);
+    }
+
+    /**
+     * 标记为失败。
+     *
+     * @param cause 失败原因
+     * @return false 表示此前已完成
+     */
+    public boolean setFailure(Throwable cause) {
+        if (cause == null) {
+            throw new NullPointerException("cause can't be null");
+        }
+        return complete(cause);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean complete(Object r) {
+        if (isVoid) {
+            return false;
+        }
+        Object l;
+        synchronized (this) {
+            if (result != null) {
+                return false;
+            }
+            result = r;
+            if (waiters > 0) {
+                notifyAll();
+            }
+            l = listeners;
+            listeners = null;
+        }
+        if (l instanceof WriteListener) {
+            notifyListener((WriteListener) l);
+        } else if (l != null) {
+            for (WriteListener listener : (List<WriteListener>) l) {
+                notifyListener(listener);
+            }
+        }
+        return true;
+    }
+
+    private void notifyListener(WriteListener listener) {
+        try {
+            listener.operationComplete(this);
+        } catch (Throwable t) {
+            LOGGER.error("writeListener error", t);
+        }
+    }
+
+    private void checkNotVoid() {
+        if (isVoid) {
+            throw new IllegalStateException("void WriteFuture does not track completion");
+        }
+    }
+
+    @Override
+    public String toString() {
+        Object r = result;
+        return "WriteFuture{" + (r == null ? "pending" : r == SUCCESS ? "success" : "failure: " + r) + '}';
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel;
+
+/**
+ * 写出完成监听器。
+ *
+ * @author gogym
+ */
+public interface WriteListener {
+
+    /**
+     * 写出完成回调。在完成 {@link WriteFuture} 的线程（通常是 I/O 线程）中执行，实现不得阻塞。
+     *
+     * @param future 已完成的写出结果
+     */
+    void operationComplete(WriteFuture future);
+}
@@ -15,9 +15,14 @@
  */
 package com.gettyio.core.channel.config;
 
+import com.gettyio.core.channel.loop.Epoll;
+import com.gettyio.core.channel.loop.EventLoopAffinity;
+
 import java.net.SocketOption;
+import java.nio.channels.spi.SelectorProvider;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * 通道统一配置类。
@@ -42,17 +47,111 @@ public class GettyConfig {
     /** 读缓冲区大小（字节），默认 4KB */
     private int readBufferSize = 4 * 1024;
 
-    /** 写队列容量（字节），默认 1MB */
+    /**
+     * 是否启用自适应读缓冲区，默认关闭。
+     * <p>
+     * 开启后每个通道根据最近的读取量在 [{@link #minReadBufferSize}, {@link #maxReadBufferSize}] 之间
+     * 动态调整读缓冲区大小，{@link #readBufferSize} 作为初始值。
+     * </p>
+     */
+    private boolean adaptiveReadBuffer;
+
+    /** 自适应读缓冲区下限（字节），默认 64B */
+    private int minReadBufferSize = 64;
+
+    /** 自适应读缓冲区上限（字节），默认 64KB */
+    private int maxReadBufferSize = 64 * 1024;
+
+    /**
+     * NIO 单次读就绪事件最多读取次数，默认 16。
+     * <p>
+     * 一次就绪内循环读取直到 socket 读空或达到该次数，批量传输时减少 select 往返，
+     * 同时限制单个热点连接占用事件循环的时间。
+     * </p>
+     */
+    private int maxReadsPerEvent = 16;
+
+    /**
+     * NIO 模式下每次读取是否使用独立的池化缓冲区，默认 false。
+     * <p>
+     * 关闭时事件循环复用同一个读缓冲区，处理器 retain() 后事件循环会放弃该缓冲区并换用新的，
+     * 被保留的数据不会被覆盖；开启后每次读取都从内存池获取新缓冲区，管道处理完成后释放，
+     * 与 AIO 模式的行为一致。
+     * </p>
+     */
+    private boolean readBufferPerRead = false;
+
+    /** 写队列容量（字节），默认 1MB，作为高水位线的默认值 */
     private int bufferWriterQueueSize = 1024 * 1024;
 
+    /** 服务端监听队列长度（backlog），默认 1000 */
+    private int backlog = 1000;
+
+    /**
+     * 是否启用 SO_REUSEPORT 多监听模式（仅 NIO 服务端），默认关闭。
+     * <p>
+     * 开启后每个 NioEventLoop 各自绑定一个监听通道并在本线程内 accept，由内核分发新连接，
+     * 建连速率随核数扩展。平台或 JDK 不支持 SO_REUSEPORT 时回退为单监听线程。
+     * </p>
+     */
+    private boolean reusePort;
+
+    /** 服务端最大并发连接数，默认 0 表示不限制 */
+    private int maxConnections;
+
+    /** 服务端单个来源 IP 的最大并发连接数，默认 0 表示不限制 */
+    private int maxConnectionsPerIp;
+
+    /**
+     * 服务端每秒接受新连接数上限（令牌桶速率），默认 0 表示不限制。
+     * <p>
+     * 超出连接数或速率限制的连接在创建通道和管道之前直接关闭（NIO 以 RST 关闭）。
+     * </p>
+     */
+    private int acceptRate;
+
+    /** 令牌桶容量，即允许的瞬时建连突发数，默认 0 表示等于 {@link #acceptRate} */
+    private int acceptBurst;
+
+    /**
+     * NIO 事件循环中 I/O 处理耗时的占比（1~100），默认 50。
+     * <p>
+     * 每轮处理完就绪事件后，任务队列的执行时间预算为 ioTime * (100 - ioRatio) / ioRatio；
+     * 设为 100 时每轮执行全部已提交任务。
+     * </p>
+     */
+    private int ioRatio = 50;
+
+    /**
+     * AIO 直接写模式，默认 false。
+     * <p>
+     * 开启后不创建 AIO 写线程：flush 时若通道空闲，由调用线程直接提交 Gathering Write；
+     * 写出完成回调中若队列仍有数据，由回调线程继续提交。省去每次 flush 的线程切换，
+     * 适合请求/响应类的低延迟场景。
+     * </p>
+     */
+    private boolean aioDirectWrite;
+
+    /** NIO 客户端连接超时（毫秒），默认 30 秒，0 表示不超时 */
+    private int connectTimeout = 30000;
+
     /** 是否使用直接内存（DirectByteBuffer），默认堆内存 */
     private boolean direct;
 
-    /** 流控开关，默认关闭 */
+    /**
+     * 内存池每种内存类型的 Arena 数量，默认 0 表示按 CPU 核数自动计算。
+     * <p>
+     * 每个线程缓存绑定一个 Arena，Arena 越多，多个事件循环线程同时回落到 Arena 分配时的锁竞争越少，
+     * 代价是每个 Arena 各自持有 Chunk，内存占用更高。
+     * </p>
+     */
+    private int poolArenas;
+
+    /** 流控开关，默认关闭。开启后待写字节数达到高水位线时 writeAndFlush 拒绝入队并返回 false */
     private boolean flowControl;
 
     /**
-     * 流控高水位线（队列中待写数据量达到此值时标记为不可写）。
+     * 高水位线（字节）：通道已入队但尚未写入 Socket 的字节数达到此值时标记为不可写。
      * 未显式设置时默认等于 {@link #bufferWriterQueueSize}。
      */
     private int highWaterMark;
@@ -61,7 +160,7 @@ public class GettyConfig {
     private boolean highWaterMarkSet;
 
     /**
-     * 流控低水位线（队列中待写数据量降至此值时恢复写入）。
+     * 低水位线（字节）：待写字节数降至此值时恢复可写。
      * 未显式设置时默认等于 {@link #highWaterMark} / 2。
      */
     private int lowWaterMark;
@@ -69,6 +168,48 @@ public class GettyConfig {
     /** 低水位线是否由用户显式设置 */
     private boolean lowWaterMarkSet;
 
+    /**
+     * NIO 引擎使用的 SelectorProvider。
+     * <p>
+     * 为 null 时按 {@link #epoll} 选择 epoll 实现或 JDK 默认实现。可替换为第三方实现，
+     * 从而在不修改 ChannelHandler 的情况下切换底层 I/O 引擎。Selector 与通道均由同一 provider 创建。
+     * </p>
+     */
+    private SelectorProvider selectorProvider;
+
+    /**
+     * 是否使用 epoll 引擎，默认关闭。
+     * <p>
+     * 开启后 NIO 引擎固定使用 JDK 的 epoll SelectorProvider，并为 TCP 通道开启 TCP_QUICKACK（JDK 10+）。
+     * 非 Linux 或 epoll 不可用时回退到 JDK 默认实现并输出一次 info 日志。显式设置的 {@link #selectorProvider} 优先。
+     * </p>
+     */
+    private boolean epoll;
+
+    /**
+     * 是否将 Selector 内部的就绪 Key 集合替换为数组实现，默认开启。
+     * <p>
+     * 开启后事件循环按下标遍历就绪 Key，无每轮分配；JDK 9+ 需
+     * {@code --add-opens java.base/sun.nio.ch=ALL-UNNAMED}，不可用时自动回退。
+     * </p>
+     */
+    private boolean optimizeSelectedKeys = true;
+
+    /**
+     * NIO 事件循环阻塞 select 之前的自旋时长（纳秒），默认 0 表示不自旋。
+     * <p>
+     * 大于 0 时，没有任务的轮次先反复 selectNow() 直到有通道就绪、有任务提交或自旋时长用完，之后才阻塞 select。
+     * 省去线程挂起与唤醒的延迟，代价是空闲时占用 CPU，适合低延迟且独占 CPU 的场景。
+     * </p>
+     */
+    private long selectSpinNanos;
+
+    /** 创建 NIO 事件循环线程的工厂，默认为 null，使用名为 nio-event-loop-N 的非守护线程 */
+    private ThreadFactory eventLoopThreadFactory;
+
+    /** NIO 事件循环线程的 CPU 亲和性绑定钩子，默认为 null，不绑定 */
+    private EventLoopAffinity eventLoopAffinity;
+
     /**
      * Socket 选项配置。
      * <p>
@@ -118,6 +259,49 @@ public class GettyConfig {
         this.readBufferSize = readBufferSize;
     }
 
+    public final boolean isAdaptiveReadBuffer() {
+        return adaptiveReadBuffer;
+    }
+
+    public final void setAdaptiveReadBuffer(boolean adaptiveReadBuffer) {
+        this.adaptiveReadBuffer = adaptiveReadBuffer;
+    }
+
+    public final int getMinReadBufferSize() {
+        return minReadBufferSize;
+    }
+
+    public final void setMinReadBufferSize(int minReadBufferSize) {
+        this.minReadBufferSize = minReadBufferSize;
+    }
+
+    public final int getMaxReadBufferSize() {
+        return maxReadBufferSize;
+    }
+
+    public final void setMaxReadBufferSize(int maxReadBufferSize) {
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    public final int getMaxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    public final void setMaxReadsPerEvent(int maxReadsPerEvent) {
+        if (maxReadsPerEvent <= 0) {
+            throw new IllegalArgumentException("maxReadsPerEvent: " + maxReadsPerEvent + " (expected: > 0)");
+        }
+        this.maxReadsPerEvent = maxReadsPerEvent;
+    }
+
+    public final boolean isReadBufferPerRead() {
+        return readBufferPerRead;
+    }
+
+    public final void setReadBufferPerRead(boolean readBufferPerRead) {
+        this.readBufferPerRead = readBufferPerRead;
+    }
+
     public final int getBufferWriterQueueSize() {
         return bufferWriterQueueSize;
     }
@@ -126,6 +310,99 @@ public class GettyConfig {
         this.bufferWriterQueueSize = bufferWriterQueueSize;
     }
 
+    public final int getBacklog() {
+        return backlog;
+    }
+
+    public final void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public final int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public final void setMaxConnections(int maxConnections) {
+        if (maxConnections < 0) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 0)");
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    public final int getMaxConnectionsPerIp() {
+        return maxConnectionsPerIp;
+    }
+
+    public final void setMaxConnectionsPerIp(int maxConnectionsPerIp) {
+        if (maxConnectionsPerIp < 0) {
+            throw new IllegalArgumentException("maxConnectionsPerIp: " + maxConnectionsPerIp + " (expected: >= 0)");
+        }
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+    }
+
+    public final int getAcceptRate() {
+        return acceptRate;
+    }
+
+    public final void setAcceptRate(int acceptRate) {
+        if (acceptRate < 0) {
+            throw new IllegalArgumentException("acceptRate: " + acceptRate + " (expected: >= 0)");
+        }
+        this.acceptRate = acceptRate;
+    }
+
+    /**
+     * 获取令牌桶容量。未设置时返回 {@link #acceptRate}。
+     */
+    public final int getAcceptBurst() {
+        return acceptBurst > 0 ? acceptBurst : acceptRate;
+    }
+
+    public final void setAcceptBurst(int acceptBurst) {
+        if (acceptBurst < 0) {
+            throw new IllegalArgumentException("acceptBurst: " + acceptBurst + " (expected: >= 0)");
+        }
+        this.acceptBurst = acceptBurst;
+    }
+
+    public final int getIoRatio() {
+        return ioRatio;
+    }
+
+    public final void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    public final boolean isAioDirectWrite() {
+        return aioDirectWrite;
+    }
+
+    public final void setAioDirectWrite(boolean aioDirectWrite) {
+        this.aioDirectWrite = aioDirectWrite;
+    }
+
+    public final int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public final void setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("connectTimeout: " + connectTimeout + " (expected: >= 0)");
+        }
+        this.connectTimeout = connectTimeout;
+    }
+
+    public final boolean isReusePort() {
+        return reusePort;
+    }
+
+    public final void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
     /**
      * 获取高水位线。未显式设置时返回 {@link #bufferWriterQueueSize}。
      */
@@ -150,6 +427,15 @@ public class GettyConfig {
         this.lowWaterMarkSet = true;
     }
 
+    /**
+     * 水位线是否合法：0 <= lowWaterMark < highWaterMark。
+     */
+    public final boolean isWaterMarkValid() {
+        int high = getHighWaterMark();
+        int low = getLowWaterMark();
+        return high > 0 && low >= 0 && low < high;
+    }
+
     public final boolean isFlowControl() {
         return flowControl;
     }
@@ -166,6 +452,77 @@ public class GettyConfig {
         this.direct = direct;
     }
 
+    public final int getPoolArenas() {
+        return poolArenas;
+    }
+
+    public final void setPoolArenas(int poolArenas) {
+        if (poolArenas < 0) {
+            throw new IllegalArgumentException("poolArenas: " + poolArenas + " (expected: >= 0)");
+        }
+        this.poolArenas = poolArenas;
+    }
+
+    /**
+     * 获取 SelectorProvider。未显式设置时，开启 epoll 且可用则返回 epoll 实现，否则返回 JDK 默认实现。
+     */
+    public final SelectorProvider getSelectorProvider() {
+        if (selectorProvider != null) {
+            return selectorProvider;
+        }
+        if (epoll && Epoll.isAvailable()) {
+            return Epoll.selectorProvider();
+        }
+        return SelectorProvider.provider();
+    }
+
+    public final void setSelectorProvider(SelectorProvider selectorProvider) {
+        this.selectorProvider = selectorProvider;
+    }
+
+    public final boolean isEpoll() {
+        return epoll;
+    }
+
+    public final void setEpoll(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    public final boolean isOptimizeSelectedKeys() {
+        return optimizeSelectedKeys;
+    }
+
+    public final void setOptimizeSelectedKeys(boolean optimizeSelectedKeys) {
+        this.optimizeSelectedKeys = optimizeSelectedKeys;
+    }
+
+    public final long getSelectSpinNanos() {
+        return selectSpinNanos;
+    }
+
+    public final void setSelectSpinNanos(long selectSpinNanos) {
+        if (selectSpinNanos < 0) {
+            throw new IllegalArgumentException("selectSpinNanos: " + selectSpinNanos + " (expected: >= 0)");
+        }
+        this.selectSpinNanos = selectSpinNanos;
+    }
+
+    public final ThreadFactory getEventLoopThreadFactory() {
+        return eventLoopThreadFactory;
+    }
+
+    public final void setEventLoopThreadFactory(ThreadFactory eventLoopThreadFactory) {
+        this.eventLoopThreadFactory = eventLoopThreadFactory;
+    }
+
+    public final EventLoopAffinity getEventLoopAffinity() {
+        return eventLoopAffinity;
+    }
+
+    public final void setEventLoopAffinity(EventLoopAffinity eventLoopAffinity) {
+        this.eventLoopAffinity = eventLoopAffinity;
+    }
+
     public final Map<SocketOption<Object>, Object> getSocketOptions() {
         return socketOptions;
     }
@@ -183,11 +540,32 @@ public class GettyConfig {
                 ", host='" + (host == null ? "localhost" : host) + '\'' +
                 ", port=" + port +
                 ", readBufferSize=" + readBufferSize +
+                ", adaptiveReadBuffer=" + adaptiveReadBuffer +
+                ", minReadBufferSize=" + minReadBufferSize +
+                ", maxReadBufferSize=" + maxReadBufferSize +
+                ", maxReadsPerEvent=" + maxReadsPerEvent +
+                ", readBufferPerRead=" + readBufferPerRead +
                 ", bufferWriterQueueSize=" + bufferWriterQueueSize +
+                ", backlog=" + backlog +
+                ", reusePort=" + reusePort +
+                ", maxConnections=" + maxConnections +
+                ", maxConnectionsPerIp=" + maxConnectionsPerIp +
+                ", acceptRate=" + acceptRate +
+                ", acceptBurst=" + getAcceptBurst() +
+                ", ioRatio=" + ioRatio +
+                ", aioDirectWrite=" + aioDirectWrite +
+                ", connectTimeout=" + connectTimeout +
                 ", direct=" + direct +
+                ", poolArenas=" + poolArenas +
                 ", flowControl=" + flowControl +
                 ", highWaterMark=" + getHighWaterMark() +
                 ", lowWaterMark=" + getLowWaterMark() +
+                ", optimizeSelectedKeys=" + optimizeSelectedKeys +
+                ", selectSpinNanos=" + selectSpinNanos +
+                ", eventLoopThreadFactory=" + eventLoopThreadFactory +
+                ", eventLoopAffinity=" + eventLoopAffinity +
+                ", selectorProvider=" + getSelectorProvider().getClass().getName() +
+                ", epoll=" + epoll +
                 ", socketOptions=" + socketOptions +
                 '}';
     }
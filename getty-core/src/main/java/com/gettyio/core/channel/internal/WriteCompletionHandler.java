@@ -24,7 +24,7 @@ import java.nio.channels.CompletionHandler;
 /**
  * AIO 异步写完成回调处理器。
  * <p>
- * 当 Gathering Write 操作完成时，通知 {@link AioChannel#writeCompleted()} 继续写出后续数据。
+ * 当 Gathering Write 操作完成时，通知 {@link AioChannel#writeCompleted(long)} 继续写出后续数据。
  * 写失败时自动关闭通道。
  * </p>
  *
@@ -37,7 +37,7 @@ public class WriteCompletionHandler implements CompletionHandler<Long, AioChanne
     @Override
     public void completed(Long result, AioChannel aioChannel) {
         try {
-            aioChannel.writeCompleted();
+            aioChannel.writeCompleted(result == null ? 0L : result);
         } catch (Exception e) {
             // writeCompleted() 内部可能已部分释放缓冲区，不能调用 failed() → close()
             // 否则 close() 会重复释放已释放的缓冲区，导致 IllegalStateException。
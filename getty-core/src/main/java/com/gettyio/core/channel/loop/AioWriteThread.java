@@ -16,23 +16,29 @@
 package com.gettyio.core.channel.loop;
 
 import com.gettyio.core.channel.AioChannel;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import com.gettyio.core.util.queue.MpscLinkedQueue;
+
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 /**
  * AIO 共享写线程。
  * <p>
- * 单个写线程管理多个 {@link AioChannel}，通过遍历 + 非阻塞提交实现高效批量写出。
+ * 单个写线程管理多个 {@link AioChannel}，通过就绪队列 + 非阻塞提交实现高效批量写出。
  * AIO 的 {@code channel.write()} 是异步提交，立即返回，实际写出由 OS 并行完成，
  * 因此单线程可同时驱动多个 channel 的写出操作。
  * </p>
  * <p>
- * 唤醒时机（总是 park，完全依赖 wakeup）：
+ * 有待写数据的 Channel 通过 {@link #schedule(AioChannel)} 进入 MPSC 就绪队列（每个 Channel 由
+ * 自身的 CAS 标志保证同一时刻最多入队一次），写线程只处理就绪队列中的 Channel，
+ * 写出开销与活跃连接数成正比，而不是与已连接数成正比。
+ * </p>
+ * <p>
+ * 入队时机（队列为空时 park）：
  * <ul>
- *   <li>业务线程 {@code notifyFlush()} → {@code wakeup()}</li>
- *   <li>AIO 回调 {@code writeCompleted()} → {@code wakeup()}</li>
+ *   <li>业务线程 {@code notifyFlush()}</li>
+ *   <li>AIO 回调 {@code writeCompleted(long)} 后队列仍有数据</li>
  * </ul>
  * </p>
  *
@@ -41,8 +47,11 @@ import java.util.concurrent.locks.LockSupport;
  */
 public class AioWriteThread {
 
-    /** 本线程管理的所有 Channel */
-    private final List<AioChannel> channels = new CopyOnWriteArrayList<>();
+    /** 待写出的 Channel 就绪队列（多线程入队，写线程出队） */
+    private final MpscLinkedQueue<AioChannel> readyChannels = new MpscLinkedQueue<>();
+
+    /** 本线程管理的 Channel 数量 */
+    private final AtomicInteger channelCount = new AtomicInteger();
 
     /** 底层线程 */
     private final Thread thread;
@@ -73,7 +82,7 @@ public class AioWriteThread {
      * @param channel 待注册的通道
      */
     public void register(AioChannel channel) {
-        channels.add(channel);
+        channelCount.incrementAndGet();
     }
 
     /**
@@ -82,14 +91,24 @@ public class AioWriteThread {
      * @param channel 待注销的通道
      */
     public void unregister(AioChannel channel) {
-        channels.remove(channel);
+        channelCount.decrementAndGet();
     }
 
     /**
-     * 唤醒写线程，使其遍历所有 Channel 处理待写出数据。
+     * 将有待写数据的 Channel 加入就绪队列并唤醒写线程。
      * <p>
-     * 可由任意线程调用（业务线程、AIO 回调线程）。
+     * 可由任意线程调用（业务线程、AIO 回调线程）。调用方需保证同一 Channel 不会重复入队。
      * </p>
+     *
+     * @param channel 待写出的通道
+     */
+    public void schedule(AioChannel channel) {
+        readyChannels.offer(channel);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * 唤醒写线程。
      */
     public void wakeup() {
         LockSupport.unpark(thread);
@@ -108,24 +127,20 @@ public class AioWriteThread {
      * 获取管理的 Channel 数量。
      */
     public int getChannelCount() {
-        return channels.size();
+        return channelCount.get();
     }
 
     /**
      * 写线程主循环。
      * <p>
-     * 每次被唤醒后遍历所有 Channel，对每个 Channel 调用 {@link AioChannel#tryDrainAndSubmit()}
-     * 尝试 drain + 提交 AIO 写出。遍历完成后总是 park，等待下一次 wakeup。
-     * </p>
-     * <p>
-     * wakeup 来源：
-     * 1. 业务线程 notifyFlush() → 有新数据入队
-     * 2. AIO 回调 writeCompleted() → 写完成，需处理后续数据
+     * 取出就绪队列中的 Channel，调用 {@link AioChannel#tryDrainAndSubmit()} 尝试 drain + 提交 AIO 写出。
+     * 队列为空时 park，等待下一次 {@link #schedule(AioChannel)}。
      * </p>
      */
     private void run() {
         while (!shutdown.get()) {
-            for (AioChannel ch : channels) {
+            AioChannel ch;
+            while ((ch = readyChannels.poll()) != null) {
                 if (!ch.isInvalid()) {
                     ch.tryDrainAndSubmit();
                 }
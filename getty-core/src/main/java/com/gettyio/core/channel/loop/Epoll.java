@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import com.gettyio.core.logging.InternalLogger;
+import com.gettyio.core.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketOption;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Locale;
+
+/**
+ * epoll 引擎探测。
+ * <p>
+ * 纯 Java 实现，不依赖 JNI：在 Linux 上定位 JDK 自带的 {@code sun.nio.ch.EPollSelectorProvider}，
+ * 供 {@link com.gettyio.core.channel.config.GettyConfig#setEpoll(boolean)} 固定使用 epoll 引擎；
+ * 另外探测 JDK 10+ 的 {@code jdk.net.ExtendedSocketOptions#TCP_QUICKACK}，在 epoll 引擎下为 TCP 通道开启。
+ * 不可用时调用方回退到 JDK 默认 NIO 实现，{@link #unavailabilityCause()} 给出原因。
+ * </p>
+ *
+ * @author gogym
+ */
+public final class Epoll {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(Epoll.class);
+
+    private static final String EPOLL_PROVIDER_CLASS = "sun.nio.ch.EPollSelectorProvider";
+
+    private static final SelectorProvider PROVIDER;
+    private static final Throwable UNAVAILABILITY_CAUSE;
+    private static final SocketOption<Boolean> TCP_QUICKACK;
+
+    /** 回退日志只输出一次 */
+    private static volatile boolean fallbackLogged;
+
+    static {
+        SelectorProvider provider = null;
+        Throwable cause = null;
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.US);
+        if (!os.startsWith("linux")) {
+            cause = new UnsupportedOperationException("epoll is only available on Linux, os.name: " + os);
+        } else {
+            SelectorProvider defaultProvider = SelectorProvider.provider();
+            if (EPOLL_PROVIDER_CLASS.equals(defaultProvider.getClass().getName())) {
+                provider = defaultProvider;
+            } else {
+                // 默认 provider 被系统属性替换，尝试直接创建 epoll 实现（JDK 9+ 未导出 sun.nio.ch 时失败）
+                try {
+                    provider = (SelectorProvider) Class.forName(EPOLL_PROVIDER_CLASS)
+                            .getDeclaredConstructor().newInstance();
+                } catch (Throwable t) {
+                    cause = t;
+                }
+            }
+        }
+        PROVIDER = provider;
+        UNAVAILABILITY_CAUSE = cause;
+        TCP_QUICKACK = provider != null ? findQuickAck() : null;
+    }
+
+    private Epoll() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> findQuickAck() {
+        try {
+            return (SocketOption<Boolean>) Class.forName("jdk.net.ExtendedSocketOptions")
+                    .getField("TCP_QUICKACK").get(null);
+        } catch (Throwable t) {
+            // JDK 8 及 JDK 9 无此选项
+            LOGGER.debug("TCP_QUICKACK unavailable", t);
+            return null;
+        }
+    }
+
+    /**
+     * epoll 引擎是否可用。
+     */
+    public static boolean isAvailable() {
+        return PROVIDER != null;
+    }
+
+    /**
+     * epoll 不可用的原因，可用时返回 null。
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    /**
+     * epoll SelectorProvider，不可用时返回 null。
+     */
+    public static SelectorProvider selectorProvider() {
+        return PROVIDER;
+    }
+
+    /**
+     * 请求了 epoll 引擎但不可用时输出一次 info 日志，说明已回退到 JDK 默认 NIO 实现。
+     */
+    public static void logFallback() {
+        if (PROVIDER == null && !fallbackLogged) {
+            fallbackLogged = true;
+            LOGGER.info("epoll engine unavailable, falling back to default NIO selector: {}",
+                    String.valueOf(UNAVAILABILITY_CAUSE));
+        }
+    }
+
+    /**
+     * 为 TCP 通道开启 TCP_QUICKACK（立即发送 ACK，不做延迟确认）。选项不可用或设置失败时忽略。
+     *
+     * @param channel TCP 通道
+     */
+    public static void applyQuickAck(NetworkChannel channel) {
+        if (TCP_QUICKACK == null) {
+            return;
+        }
+        try {
+            channel.setOption(TCP_QUICKACK, Boolean.TRUE);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.debug("set TCP_QUICKACK failed", e);
+        }
+    }
+}
@@ -15,10 +15,13 @@
  */
 package com.gettyio.core.channel.loop;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * NIO 事件循环接口。
  * <p>
- * 负责在独立线程中轮询 Selector，处理 I/O 事件（连接、读取、写入）。
+ * 负责在独立线程中轮询 Selector，处理 I/O 事件（连接、读取、写入），
+ * 并在两轮 select 之间执行提交到本循环的普通任务和定时任务。
  * </p>
  *
  * @author gogym
@@ -37,4 +40,28 @@ public interface EventLoop {
      * @return SelectedSelector
      */
     SelectedSelector getSelector();
+
+    /**
+     * 当前线程是否为事件循环线程。
+     *
+     * @return true 表示调用方位于事件循环线程
+     */
+    boolean inEventLoop();
+
+    /**
+     * 提交任务到事件循环线程执行。可从任意线程调用。
+     *
+     * @param task 任务
+     */
+    void execute(Runnable task);
+
+    /**
+     * 提交定时任务，到期后在事件循环线程执行。可从任意线程调用。
+     *
+     * @param task  任务
+     * @param delay 延迟
+     * @param unit  时间单位
+     * @return 定时任务句柄，可用于取消
+     */
+    ScheduledTask schedule(Runnable task, long delay, TimeUnit unit);
 }
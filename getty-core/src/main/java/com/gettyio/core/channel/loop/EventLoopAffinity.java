@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+/**
+ * 事件循环线程的 CPU 亲和性绑定钩子。
+ * <p>
+ * 每个 {@link NioEventLoop} 线程启动后、进入 select 循环之前在本线程内调用一次，
+ * 实现类可据此将当前线程绑定到指定 CPU（如调用 sched_setaffinity 的原生库或 taskset）。
+ * 绑定失败只记录告警，不影响事件循环运行。
+ * </p>
+ *
+ * @author gogym
+ * @see TasksetAffinity
+ */
+public interface EventLoopAffinity {
+
+    /**
+     * 绑定当前线程。
+     *
+     * @param loopIndex 事件循环在所属组中的下标
+     * @throws Exception 绑定失败时抛出
+     */
+    void bind(int loopIndex) throws Exception;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+
+/**
+ * 事件循环组接口。
+ * <p>
+ * 持有固定数量的事件循环和一个共享内存池，可被多个服务端、客户端启动器共用，
+ * 使入站和出站连接复用同一组 I/O 线程和同一个内存池。
+ * </p>
+ *
+ * @author gogym
+ */
+public interface EventLoopGroup {
+
+    /**
+     * 按轮询策略选择下一个事件循环。
+     *
+     * @return 事件循环
+     */
+    EventLoop next();
+
+    /**
+     * 获取事件循环数量。
+     *
+     * @return 事件循环数量
+     */
+    int size();
+
+    /**
+     * 获取组内共享的内存池。
+     *
+     * @return 内存池
+     */
+    ByteBufferPool getByteBufferPool();
+
+    /** 停止组内所有事件循环 */
+    void shutdown();
+
+    /**
+     * 是否已停止。
+     *
+     * @return true 表示已调用过 {@link #shutdown()}
+     */
+    boolean isShutdown();
+}
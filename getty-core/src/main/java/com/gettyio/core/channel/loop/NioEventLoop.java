@@ -21,19 +21,38 @@ import com.gettyio.core.channel.NioChannel;
 import com.gettyio.core.channel.config.GettyConfig;
 import com.gettyio.core.logging.InternalLogger;
 import com.gettyio.core.logging.InternalLoggerFactory;
+import com.gettyio.core.util.queue.MpscLinkedQueue;
 
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * NIO 事件循环。
  * <p>
  * 负责在单线程中轮询 Selector，处理连接建立（OP_CONNECT）、读取（OP_READ）和写入（OP_WRITE）事件。
- * 每个 NioEventLoop 持有一个 Selector，管理多个 NioChannel 的 I/O 事件。
+ * 每个 NioEventLoop 持有一个 Selector，管理多个 NioChannel 的 I/O 事件；
+ * 也可注册监听通道（OP_ACCEPT），在本线程内直接 accept（SO_REUSEPORT 多监听模式），
+ * 或通过 {@link #connect(SocketChannel, SocketAddress, long, Object, CompletionHandler)} 发起非阻塞连接。
+ * </p>
+ * <p>
+ * 除 I/O 事件外，事件循环还持有一个 MPSC 任务队列和一个定时任务小顶堆：
+ * 任意线程可通过 {@link #execute(Runnable)} / {@link #schedule(Runnable, long, TimeUnit)} 提交任务，
+ * 任务在两轮 select 之间由本线程执行，I/O 与任务的耗时比例由 {@link GettyConfig#getIoRatio()} 控制。
  * </p>
  *
  * @author gogym
@@ -42,9 +61,30 @@ public class NioEventLoop implements EventLoop {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(NioEventLoop.class);
 
+    /** 无定时任务时的最长 select 阻塞时间（毫秒） */
+    private static final long MAX_SELECT_TIMEOUT_MILLIS = 1000L;
+
+    /** 执行多少个任务检查一次时间预算（System.nanoTime 有开销，不逐个检查） */
+    private static final int TASK_DEADLINE_CHECK_INTERVAL = 64;
+
+    /** 单次 accept 事件最多接受的连接数，避免监听通道长期占用事件循环 */
+    private static final int MAX_ACCEPTS_PER_EVENT = 64;
+
     /** 关闭标志（CAS 保证 wakeup 只调用一次） */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
+    /** 事件循环线程是否已退出，此后提交的任务被拒绝 */
+    private volatile boolean terminated;
+
+    /**
+     * 正在 {@link #execute(Runnable)} 中入队的外部线程数。
+     * <p>
+     * 提交方先递增计数再检查 {@link #terminated}，退出方先置位 terminated 再等待计数归零后做最后一次排空：
+     * 通过检查的提交必然在排空前入队，不会出现入队成功却无人执行的任务。
+     * </p>
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
+
     /** 通道配置 */
     private final GettyConfig config;
 
@@ -57,6 +97,33 @@ public class NioEventLoop implements EventLoop {
     /** 内存池 */
     private final ByteBufferPool byteBufferPool;
 
+    /** 事件循环级读缓冲区（仅事件循环线程访问），容量不足时按需扩容，被处理器保留时置空 */
+    private PooledByteBuffer readBuffer;
+
+    /** 普通任务队列（多线程提交，事件循环线程消费） */
+    private final MpscLinkedQueue<Runnable> taskQueue = new MpscLinkedQueue<>();
+
+    /** 定时任务小顶堆（仅事件循环线程访问） */
+    private final PriorityQueue<ScheduledTask> scheduledTasks = new PriorityQueue<>();
+
+    /**
+     * 唤醒是否已挂起。
+     * <p>
+     * 其他线程提交任务时仅在 false → true 成功时调用 {@code selector.wakeup()}，
+     * 事件循环线程在每轮 select 前清除，合并同一轮内的多次唤醒（每次 wakeup 是一次 eventfd/pipe 写系统调用）。
+     * </p>
+     */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+
+    /** I/O 耗时占比（1~100） */
+    private final int ioRatio;
+
+    /** 阻塞 select 前的自旋时长（纳秒），0 表示不自旋 */
+    private final long selectSpinNanos;
+
+    /** 在所属组中的下标 */
+    private final int index;
+
     /**
      * 构造 NIO 事件循环。
      *
@@ -65,12 +132,36 @@ public class NioEventLoop implements EventLoop {
      * @throws IOException Selector 创建失败时抛出
      */
     public NioEventLoop(GettyConfig config, ByteBufferPool byteBufferPool) throws IOException {
+        this(config, byteBufferPool, 0);
+    }
+
+    /**
+     * 构造 NIO 事件循环。线程由 {@link GettyConfig#getEventLoopThreadFactory()} 创建，未设置时使用默认线程。
+     *
+     * @param config         配置
+     * @param byteBufferPool 内存池
+     * @param index          在所属组中的下标，用于线程命名和 CPU 亲和性绑定
+     * @throws IOException Selector 创建失败时抛出
+     */
+    public NioEventLoop(GettyConfig config, ByteBufferPool byteBufferPool, int index) throws IOException {
         this.config = config;
         this.byteBufferPool = byteBufferPool;
-        this.thread = new Thread(this::eventLoop, "nio-event-loop");
-        // 非 daemon：作为 I/O 生命线，保持 JVM 存活直到 shutdown() 被调用
+        this.ioRatio = config.getIoRatio();
+        this.selectSpinNanos = config.getSelectSpinNanos();
+        this.index = index;
+        ThreadFactory threadFactory = config.getEventLoopThreadFactory();
+        if (threadFactory != null) {
+            this.thread = threadFactory.newThread(this::eventLoop);
+            if (this.thread == null) {
+                throw new IllegalStateException("eventLoopThreadFactory returned null");
+            }
+        } else {
+            // 非 daemon：作为 I/O 生命线，保持 JVM 存活直到 shutdown() 被调用
+            this.thread = new Thread(this::eventLoop, "nio-event-loop-" + index);
+        }
         try {
-            this.selector = new SelectedSelector(Selector.open());
+            this.selector = new SelectedSelector(config.getSelectorProvider().openSelector(),
+                    config.isOptimizeSelectedKeys());
         } catch (IOException e) {
             LOGGER.error("Selector init failed", e);
             throw e;
@@ -83,113 +174,509 @@ public class NioEventLoop implements EventLoop {
     }
 
     /**
-     * 事件循环主体。复用读缓冲区直到关闭。
+     * 事件循环主体。
+     * <p>
+     * 每轮：有待执行任务时 selectNow()，否则阻塞到最近的定时任务到期；
+     * 处理就绪 Key 后按 ioRatio 计算的时间预算执行任务。
+     * </p>
      */
     private void eventLoop() {
-        // 长生命周期读缓冲区：整个事件循环复用，避免每次 read 都 acquire/release
-        PooledByteBuffer readBuffer = byteBufferPool.acquire(config.getReadBufferSize());
+        bindAffinity();
         try {
             while (!shutdown.get()) {
+                // 先清除唤醒标志再检查任务：此后提交的任务必然会再次触发 wakeup
+                if (wakeupPending.get()) {
+                    wakeupPending.set(false);
+                }
                 try {
-                    selector.select();
+                    if (hasTasks()) {
+                        selector.selectNow();
+                    } else if (selectSpinNanos <= 0 || !spinSelect()) {
+                        // SelectedSelector.select 在 wakeup（提交了任务）或超时时返回 0，
+                        // 不会一直阻塞到有通道就绪，本轮随后即可执行任务和到期的定时任务
+                        selector.select(selectTimeoutMillis());
+                    }
                 } catch (IOException e) {
                     LOGGER.error("select() error", e);
                 }
 
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                int readyCount = selectedKeys.size();
-                if (readyCount == 0) {
-                    continue;
+                if (ioRatio == 100) {
+                    processSelectedKeys();
+                    runAllTasks(0);
+                } else {
+                    long ioStartTime = System.nanoTime();
+                    processSelectedKeys();
+                    long ioTime = System.nanoTime() - ioStartTime;
+                    runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                 }
+            }
+            // 退出前执行剩余任务（如关闭通道、释放资源）
+            runAllTasks(0);
+        } finally {
+            failPendingConnects();
+            if (readBuffer != null) {
+                readBuffer.release();
+                readBuffer = null;
+            }
+            closeSelector();
+            // 先置位再执行一次剩余任务：与退出并发提交、未被拒绝的任务在此执行，
+            // Selector 已关闭，其中的连接任务会以失败回调结束
+            terminated = true;
+            awaitSubmitters();
+            runAllTasks(0);
+        }
+    }
 
-                SelectionKey[] keys = selectedKeys.toArray(new SelectionKey[readyCount]);
-                selectedKeys.clear();
+    /**
+     * 在自旋时长内反复 selectNow()，有通道就绪或有任务时提前返回。
+     *
+     * @return true 表示自旋期间等到了事件，无需再阻塞 select
+     */
+    private boolean spinSelect() throws IOException {
+        long deadline = System.nanoTime() + selectSpinNanos;
+        do {
+            if (selector.selectNow() > 0 || hasTasks()) {
+                return true;
+            }
+        } while (System.nanoTime() - deadline < 0 && !shutdown.get());
+        return false;
+    }
 
-                for (int i = 0; i < readyCount; i++) {
-                    SelectionKey sk = keys[i];
+    /**
+     * 在事件循环线程内执行 CPU 亲和性绑定。
+     */
+    private void bindAffinity() {
+        EventLoopAffinity affinity = config.getEventLoopAffinity();
+        if (affinity == null) {
+            return;
+        }
+        try {
+            affinity.bind(index);
+            LOGGER.debug("event loop {} bound by {}", index, affinity);
+        } catch (Exception e) {
+            LOGGER.warn("bind event loop " + index + " affinity failed", e);
+        }
+    }
 
-                    Object attachment = sk.attachment();
-                    if (!(attachment instanceof NioChannel)) {
-                        continue;
-                    }
+    /**
+     * 处理本轮就绪的 Key。
+     */
+    private void processSelectedKeys() {
+        SelectedSelectionKeySet keySet = selector.selectedKeySet();
+        if (keySet != null) {
+            processSelectedKeysOptimized(keySet);
+        } else {
+            processSelectedKeysPlain();
+        }
+    }
 
-                    NioChannel nioChannel = (NioChannel) attachment;
-
-                    try {
-                        if (sk.isConnectable()) {
-                            handleConnect(sk, nioChannel);
-                        } else {
-                            // 独立检查：单次 select 可同时处理读和写
-                            if (sk.isReadable()) {
-                                handleRead(sk, nioChannel, readBuffer);
-                            }
-                            if (sk.isWritable()) {
-                                nioChannel.doWrite();
-                            }
-                        }
-                    } catch (CancelledKeyException e) {
-                        // Key 已取消，忽略
-                    } catch (Exception e) {
-                        LOGGER.error("event dispatch error for channel", e);
-                        nioChannel.close();
-                    }
-                }
-            }
-        } finally {
-            readBuffer.release();
+    /**
+     * 按下标遍历数组化的就绪 Key，无迭代器和数组分配。
+     */
+    private void processSelectedKeysOptimized(SelectedSelectionKeySet keySet) {
+        SelectionKey[] keys = keySet.keys;
+        int readyCount = keySet.size;
+        for (int i = 0; i < readyCount; i++) {
+            SelectionKey sk = keys[i];
+            // 置空引用，避免通道关闭后仍被数组持有
+            keys[i] = null;
+            processSelectedKey(sk);
+        }
+        keySet.size = 0;
+    }
+
+    /**
+     * 遍历 JDK 默认的就绪 Key 集合（优化不可用时的回退路径）。
+     */
+    private void processSelectedKeysPlain() {
+        Set<SelectionKey> selectedKeys = selector.selectedKeys();
+        int readyCount = selectedKeys.size();
+        if (readyCount == 0) {
+            return;
+        }
+
+        SelectionKey[] keys = selectedKeys.toArray(new SelectionKey[readyCount]);
+        selectedKeys.clear();
+
+        for (int i = 0; i < readyCount; i++) {
+            processSelectedKey(keys[i]);
         }
     }
 
     /**
-     * 处理连接建立事件。
+     * 分发单个就绪 Key 的 I/O 事件。
      */
-    private void handleConnect(SelectionKey sk, NioChannel nioChannel) {
-        java.nio.channels.SocketChannel channel = (java.nio.channels.SocketChannel) sk.channel();
-        if (!channel.isConnectionPending()) {
+    private void processSelectedKey(SelectionKey sk) {
+        Object attachment = sk.attachment();
+        if (attachment instanceof Acceptor) {
+            handleAccept(sk, (Acceptor) attachment);
+            return;
+        }
+        if (attachment instanceof PendingConnect) {
+            handleConnect(sk, (PendingConnect<?>) attachment);
+            return;
+        }
+        if (!(attachment instanceof NioChannel)) {
             return;
         }
+
+        NioChannel nioChannel = (NioChannel) attachment;
+
         try {
-            channel.finishConnect();
-        } catch (IOException e) {
-            LOGGER.error("finishConnect failed", e);
+            // 独立检查：单次 select 可同时处理读和写
+            if (sk.isReadable()) {
+                handleRead(sk, nioChannel);
+            }
+            if (sk.isWritable()) {
+                nioChannel.doWrite();
+            }
+        } catch (CancelledKeyException e) {
+            // Key 已取消，忽略
+        } catch (Exception e) {
+            LOGGER.error("event dispatch error for channel", e);
             nioChannel.close();
+        }
+    }
+
+    /**
+     * 处理 accept 事件。在本线程内接受连接并交给回调，回调通常将新连接绑定到本事件循环。
+     */
+    private void handleAccept(SelectionKey sk, Acceptor acceptor) {
+        ServerSocketChannel serverChannel = (ServerSocketChannel) sk.channel();
+        for (int i = 0; i < MAX_ACCEPTS_PER_EVENT; i++) {
+            SocketChannel socketChannel;
+            try {
+                socketChannel = serverChannel.accept();
+                if (socketChannel == null) {
+                    return;
+                }
+                socketChannel.configureBlocking(false);
+            } catch (CancelledKeyException | ClosedChannelException e) {
+                // 监听通道已关闭
+                return;
+            } catch (Throwable e) {
+                acceptor.handler.failed(e, this);
+                return;
+            }
+            acceptor.handler.completed(socketChannel, this);
+        }
+    }
+
+    /**
+     * 处理连接建立事件。连接完成后清除 OP_CONNECT，由回调将通道注册为读写。
+     */
+    private void handleConnect(SelectionKey sk, PendingConnect<?> pending) {
+        boolean connected;
+        try {
+            connected = pending.channel.finishConnect();
+        } catch (Throwable e) {
+            sk.cancel();
+            pending.fail(e);
             return;
         }
+        if (connected) {
+            sk.interestOps(0);
+            pending.complete();
+        }
     }
 
     /**
-     * 处理读事件。从通道读取数据并输送到管道。
+     * 处理读事件。从通道循环读取数据并输送到管道。
      * <p>
-     * 复用事件循环级别的读缓冲区，避免每次读操作的 acquire/release 开销。
-     * 管道处理是同步的，因此缓冲区可在下一次读循环安全复用。
+     * 默认复用事件循环级别的读缓冲区，避免每次读操作的 acquire/release 开销。
+     * 管道处理是同步的，处理器未 retain() 时缓冲区可在下一次读循环安全复用；
+     * 处理器 retain() 后事件循环释放自己的引用并在下次读取时换用新缓冲区，被保留的数据无需拷贝。
+     * 开启 {@link GettyConfig#isReadBufferPerRead()} 时每次读取使用独立的池化缓冲区。
+     * 单次就绪最多读取 {@link GettyConfig#getMaxReadsPerEvent()} 次，socket 读空（读取量小于尝试量）即停止；
+     * 每次读取的上限由通道的 {@link NioChannel#nextReadBufferSize()} 决定（固定或自适应）。
      * </p>
      */
-    private void handleRead(SelectionKey sk, NioChannel nioChannel, PooledByteBuffer readBuffer) {
-        java.nio.channels.SocketChannel channel = (java.nio.channels.SocketChannel) sk.channel();
-        try {
-            // 复用缓冲区：重置指针后重新填充
-            readBuffer.clear();
-            int recCount = channel.read(readBuffer.flipToFill());
-            if (recCount == -1) {
-                // 对端关闭连接
+    private void handleRead(SelectionKey sk, NioChannel nioChannel) {
+        SocketChannel channel = (SocketChannel) sk.channel();
+        int maxReads = config.getMaxReadsPerEvent();
+        boolean perRead = config.isReadBufferPerRead();
+        for (int i = 0; i < maxReads; i++) {
+            int attempted = nioChannel.nextReadBufferSize();
+            PooledByteBuffer buf = perRead ? byteBufferPool.acquire(attempted) : ensureReadBuffer(attempted);
+            int recCount;
+            try {
+                // 重置指针后重新填充，最多读取 attempted 字节
+                buf.clear();
+                ByteBuffer bb = buf.flipToFill();
+                bb.limit(attempted);
+                recCount = channel.read(bb);
+            } catch (Exception e) {
+                LOGGER.error("channel read error", e);
+                if (perRead) {
+                    buf.release();
+                }
                 nioChannel.close();
                 return;
             }
-            if (recCount == 0) {
+            if (recCount <= 0) {
+                if (perRead) {
+                    buf.release();
+                }
+                if (recCount == -1) {
+                    // 对端关闭连接
+                    nioChannel.close();
+                }
+                return;
+            }
+
+            // 切换到读模式
+            buf.flipToFlush();
+            nioChannel.recordRead(recCount);
+            // 零拷贝：直接传递 PooledByteBuffer（管道同步消费）
+            nioChannel.doRead(buf);
+            if (perRead) {
+                buf.release();
+            } else if (buf.isRetained()) {
+                // 处理器保留了读缓冲区：交出所有权，下次读取换用新缓冲区
+                buf.release();
+                readBuffer = null;
+            }
+
+            if (recCount < attempted || nioChannel.isInvalid() || !nioChannel.isAutoRead()) {
+                // 已读空、通道已关闭或处理器暂停了读取
                 return;
             }
+        }
+    }
+
+    /**
+     * 获取容量不小于 capacity 的事件循环级读缓冲区，尚未分配或容量不足时从内存池获取。
+     */
+    private PooledByteBuffer ensureReadBuffer(int capacity) {
+        PooledByteBuffer buf = readBuffer;
+        if (buf == null || buf.capacity() < capacity) {
+            if (buf != null) {
+                buf.release();
+            }
+            buf = byteBufferPool.acquire(Math.max(capacity, config.getReadBufferSize()));
+            readBuffer = buf;
+        }
+        return buf;
+    }
+
+    /**
+     * 将监听通道注册到本事件循环，由本线程处理 OP_ACCEPT。
+     *
+     * @param serverChannel 非阻塞的监听通道
+     * @param handler       新连接回调，attachment 为本事件循环
+     * @throws ClosedChannelException 通道已关闭时抛出
+     */
+    public void registerAcceptor(ServerSocketChannel serverChannel,
+                                 CompletionHandler<SocketChannel, NioEventLoop> handler)
+            throws ClosedChannelException {
+        selector.register(serverChannel, SelectionKey.OP_ACCEPT, new Acceptor(handler));
+    }
+
+    /**
+     * 在本事件循环上发起非阻塞连接，可从任意线程调用。
+     * <p>
+     * 连接在事件循环线程内发起并注册 OP_CONNECT，不占用调用线程，也不需要额外的 Selector。
+     * 回调在事件循环线程内执行，不应阻塞；连接失败或超时时通道会被关闭。
+     * 事件循环已退出时不会发起连接，在调用线程内直接回调失败。
+     * </p>
+     *
+     * @param channel       非阻塞、未连接的 SocketChannel
+     * @param remote        远端地址
+     * @param timeoutMillis 连接超时（毫秒），0 表示不超时
+     * @param attachment    回调附件
+     * @param handler       连接结果回调
+     * @param <A>           附件类型
+     */
+    public <A> void connect(final SocketChannel channel, final SocketAddress remote, final long timeoutMillis,
+                            A attachment, CompletionHandler<Void, ? super A> handler) {
+        final PendingConnect<A> pending = new PendingConnect<>(channel, attachment, handler);
+        try {
+            execute(() -> {
+                try {
+                    if (channel.connect(remote)) {
+                        pending.complete();
+                        return;
+                    }
+                    final SelectionKey key = selector.register(channel, SelectionKey.OP_CONNECT, pending);
+                    if (timeoutMillis > 0) {
+                        pending.timeoutTask = schedule(() -> {
+                            key.cancel();
+                            pending.fail(new ConnectException("connection timed out: " + remote));
+                        }, timeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                } catch (Throwable e) {
+                    pending.fail(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 事件循环已退出，任务不会再被执行，直接在调用线程通知失败
+            pending.fail(e);
+        }
+    }
+
+    /**
+     * 事件循环退出时，通知所有未完成的连接失败。
+     */
+    private void failPendingConnects() {
+        try {
+            for (SelectionKey key : selector.getSelector().keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof PendingConnect) {
+                    ((PendingConnect<?>) attachment).fail(new ClosedChannelException());
+                }
+            }
         } catch (Exception e) {
-            LOGGER.error("channel read error", e);
-            nioChannel.close();
+            LOGGER.debug("fail pending connects error", e);
+        }
+    }
+
+    // ==================== 任务队列 ====================
+
+    @Override
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RejectedExecutionException 事件循环线程已退出时抛出
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task can't be null");
+        }
+        if (inEventLoop()) {
+            // 最后一次排空中的任务再提交的任务仍会被同一次排空执行
+            taskQueue.offer(task);
             return;
         }
+        submitting.incrementAndGet();
+        try {
+            if (terminated) {
+                throw new RejectedExecutionException("event loop terminated");
+            }
+            taskQueue.offer(task);
+        } finally {
+            submitting.decrementAndGet();
+        }
+        wakeup();
+    }
 
-        // 切换到读模式
-        readBuffer.flipToFlush();
+    /**
+     * 等待已通过 terminated 检查的提交方完成入队。入队只是一次 CAS，等待极短。
+     */
+    private void awaitSubmitters() {
+        while (submitting.get() != 0) {
+            Thread.yield();
+        }
+    }
 
-        if (readBuffer.isReadable()) {
-            // 零拷贝：直接传递 PooledByteBuffer（管道同步消费，下一次 read 前数据已被处理）
-            nioChannel.doRead(readBuffer);
+    /**
+     * 唤醒阻塞在 select 上的事件循环线程。同一轮内的多次调用只会触发一次 {@code selector.wakeup()}。
+     */
+    public void wakeup() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task can't be null");
+        }
+        final ScheduledTask scheduledTask = new ScheduledTask(this, task,
+                System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        if (inEventLoop()) {
+            scheduledTasks.add(scheduledTask);
+        } else {
+            execute(() -> scheduledTasks.add(scheduledTask));
+        }
+        return scheduledTask;
+    }
+
+    /**
+     * 从定时任务堆中移除已取消的任务。
+     */
+    void removeScheduled(final ScheduledTask scheduledTask) {
+        if (inEventLoop()) {
+            scheduledTasks.remove(scheduledTask);
+        } else if (!shutdown.get()) {
+            execute(() -> scheduledTasks.remove(scheduledTask));
+        }
+    }
+
+    /**
+     * 是否有可立即执行的任务。
+     */
+    private boolean hasTasks() {
+        if (!taskQueue.isEmpty()) {
+            return true;
+        }
+        ScheduledTask next = scheduledTasks.peek();
+        return next != null && next.deadlineNanos() - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 计算阻塞 select 的超时时间：最近的定时任务到期时间，最长 {@link #MAX_SELECT_TIMEOUT_MILLIS}。
+     */
+    private long selectTimeoutMillis() {
+        ScheduledTask next = scheduledTasks.peek();
+        if (next == null) {
+            return MAX_SELECT_TIMEOUT_MILLIS;
+        }
+        long delayNanos = next.deadlineNanos() - System.nanoTime();
+        // 向上取整到毫秒，至少 1ms（select(0) 表示无限等待）
+        long millis = (delayNanos + 999_999L) / 1_000_000L;
+        return Math.max(1L, Math.min(millis, MAX_SELECT_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * 执行已到期的定时任务。
+     */
+    private void runExpiredScheduledTasks() {
+        long nanoTime = System.nanoTime();
+        ScheduledTask next;
+        while ((next = scheduledTasks.peek()) != null && next.deadlineNanos() - nanoTime <= 0) {
+            scheduledTasks.poll();
+            try {
+                next.run();
+            } catch (Throwable t) {
+                LOGGER.warn("a scheduled task raised an exception", t);
+            }
+        }
+    }
+
+    /**
+     * 执行已到期的定时任务和任务队列中的任务。
+     *
+     * @param timeoutNanos 普通任务的时间预算，0 表示执行全部已提交任务
+     */
+    private void runAllTasks(long timeoutNanos) {
+        runExpiredScheduledTasks();
+        Runnable task = taskQueue.poll();
+        if (task == null) {
+            return;
+        }
+        long deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+        int runTasks = 0;
+        for (; ; ) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.warn("a task raised an exception", t);
+            }
+            runTasks++;
+            if (deadline > 0 && (runTasks % TASK_DEADLINE_CHECK_INTERVAL) == 0
+                    && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            task = taskQueue.poll();
+            if (task == null) {
+                break;
+            }
         }
     }
 
@@ -197,8 +684,29 @@ public class NioEventLoop implements EventLoop {
     public void shutdown() {
         // CAS 保证 wakeup 只调用一次，避免重复唤醒
         if (shutdown.compareAndSet(false, true)) {
-            selector.wakeup();
+            if (thread.getState() == Thread.State.NEW) {
+                // 事件循环未启动，直接关闭 Selector，此后提交的任务被拒绝；已入队的任务在本线程执行
+                terminated = true;
+                awaitSubmitters();
+                closeSelector();
+                runAllTasks(0);
+            } else {
+                // 由事件循环线程退出时关闭 Selector，避免并发关闭导致 ClosedSelectorException
+                selector.wakeup();
+            }
         }
+    }
+
+    /**
+     * 事件循环是否已关闭。
+     *
+     * @return true 表示已调用 {@link #shutdown()}
+     */
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    private void closeSelector() {
         if (selector.isOpen()) {
             try {
                 selector.close();
@@ -212,4 +720,75 @@ public class NioEventLoop implements EventLoop {
     public SelectedSelector getSelector() {
         return selector;
     }
+
+    /**
+     * 进行中连接的 SelectionKey 附件。仅事件循环线程访问。
+     */
+    private static final class PendingConnect<A> {
+
+        final SocketChannel channel;
+
+        final A attachment;
+
+        final CompletionHandler<Void, ? super A> handler;
+
+        /** 超时任务，未设置超时时为 null */
+        ScheduledTask timeoutTask;
+
+        /** 是否已回调（成功、失败或超时只回调一次） */
+        boolean done;
+
+        PendingConnect(SocketChannel channel, A attachment, CompletionHandler<Void, ? super A> handler) {
+            this.channel = channel;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        void complete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+            try {
+                handler.completed(null, attachment);
+            } catch (Throwable e) {
+                LOGGER.error("connect handler error", e);
+            }
+        }
+
+        void fail(Throwable cause) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("close channel failed", e);
+            }
+            try {
+                handler.failed(cause, attachment);
+            } catch (Throwable e) {
+                LOGGER.error("connect handler error", e);
+            }
+        }
+    }
+
+    /**
+     * 监听通道的 SelectionKey 附件。
+     */
+    private static final class Acceptor {
+
+        final CompletionHandler<SocketChannel, NioEventLoop> handler;
+
+        Acceptor(CompletionHandler<SocketChannel, NioEventLoop> handler) {
+            this.handler = handler;
+        }
+    }
 }
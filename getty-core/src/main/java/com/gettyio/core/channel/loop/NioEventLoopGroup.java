@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.GettyByteBufferPool;
+import com.gettyio.core.channel.config.GettyConfig;
+import com.gettyio.core.logging.InternalLogger;
+import com.gettyio.core.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO 事件循环组。
+ * <p>
+ * 创建后即启动全部事件循环，可通过 {@code eventLoopGroup(...)} 传给
+ * {@link com.gettyio.core.channel.starter.NioServerStarter} 和
+ * {@link com.gettyio.core.channel.starter.NioClientStarter}，
+ * 大量出站连接与入站连接复用同一组线程和内存池，而不是每个客户端各占一个 Selector 线程。
+ * </p>
+ * <p>
+ * 事件循环级别的参数（ioRatio、SelectorProvider、读缓冲区、线程工厂、CPU 亲和性、自旋时长等）取自构造时传入的配置；
+ * 共享组的生命周期由创建者管理，启动器关闭时不会停止外部传入的组。
+ * </p>
+ *
+ * @author gogym
+ */
+public class NioEventLoopGroup implements EventLoopGroup, Iterable<NioEventLoop> {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(NioEventLoopGroup.class);
+
+    /** 事件循环 */
+    private final NioEventLoop[] eventLoops;
+
+    /** 共享内存池 */
+    private final ByteBufferPool byteBufferPool;
+
+    /** 轮询索引 */
+    private final AtomicInteger index = new AtomicInteger();
+
+    /** 停止标志 */
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    /**
+     * 使用默认配置创建事件循环组。
+     *
+     * @param nThreads 事件循环数量
+     * @throws IOException Selector 创建失败时抛出
+     */
+    public NioEventLoopGroup(int nThreads) throws IOException {
+        this(new GettyConfig(), nThreads);
+    }
+
+    /**
+     * 创建事件循环组。
+     *
+     * @param config   事件循环配置
+     * @param nThreads 事件循环数量
+     * @throws IOException Selector 创建失败时抛出
+     */
+    public NioEventLoopGroup(GettyConfig config, int nThreads) throws IOException {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("nThreads: " + nThreads + " (expected: > 0)");
+        }
+        this.byteBufferPool = new GettyByteBufferPool(config.isDirect(), config.getPoolArenas());
+        this.eventLoops = new NioEventLoop[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            try {
+                eventLoops[i] = new NioEventLoop(config, byteBufferPool, i);
+            } catch (IOException e) {
+                // 已创建的事件循环尚未启动，直接关闭
+                for (int j = 0; j < i; j++) {
+                    eventLoops[j].shutdown();
+                }
+                throw e;
+            }
+        }
+        for (NioEventLoop loop : eventLoops) {
+            loop.run();
+        }
+        LOGGER.debug("NioEventLoopGroup started with {} event loops", nThreads);
+    }
+
+    @Override
+    public NioEventLoop next() {
+        return eventLoops[(index.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.length];
+    }
+
+    @Override
+    public int size() {
+        return eventLoops.length;
+    }
+
+    @Override
+    public ByteBufferPool getByteBufferPool() {
+        return byteBufferPool;
+    }
+
+    @Override
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        for (NioEventLoop loop : eventLoops) {
+            loop.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    @Override
+    public Iterator<NioEventLoop> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(eventLoops)).iterator();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事件循环中的定时任务句柄。
+ * <p>
+ * 由 {@link EventLoop#schedule(Runnable, long, TimeUnit)} 创建，保存在事件循环线程独占的小顶堆中，
+ * 到期后在事件循环线程内执行。截止时间相同的任务按提交顺序执行。
+ * </p>
+ *
+ * @author gogym
+ */
+public final class ScheduledTask implements Comparable<ScheduledTask> {
+
+    /** 提交序号，保证相同截止时间的任务按 FIFO 顺序执行 */
+    private static final AtomicLong SEQUENCER = new AtomicLong();
+
+    /** 所属事件循环 */
+    private final NioEventLoop eventLoop;
+
+    /** 待执行任务 */
+    private final Runnable task;
+
+    /** 截止时间（System.nanoTime 基准） */
+    private final long deadlineNanos;
+
+    /** 提交序号 */
+    private final long sequence;
+
+    /** 取消标志 */
+    private volatile boolean cancelled;
+
+    /** 是否已执行（仅事件循环线程写） */
+    private volatile boolean done;
+
+    ScheduledTask(NioEventLoop eventLoop, Runnable task, long deadlineNanos) {
+        this.eventLoop = eventLoop;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.sequence = SEQUENCER.getAndIncrement();
+    }
+
+    /**
+     * 取消任务。已执行或已取消的任务返回 false。
+     *
+     * @return true 表示取消成功
+     */
+    public boolean cancel() {
+        if (done || cancelled) {
+            return false;
+        }
+        cancelled = true;
+        eventLoop.removeScheduled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 获取剩余延迟。
+     *
+     * @param unit 时间单位
+     * @return 剩余延迟，已到期时为 0 或负数
+     */
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * 在事件循环线程内执行任务。
+     */
+    void run() {
+        if (cancelled) {
+            return;
+        }
+        done = true;
+        task.run();
+    }
+
+    @Override
+    public int compareTo(ScheduledTask o) {
+        if (this == o) {
+            return 0;
+        }
+        long d = deadlineNanos - o.deadlineNanos;
+        if (d != 0) {
+            return d < 0 ? -1 : 1;
+        }
+        return sequence < o.sequence ? -1 : 1;
+    }
+}
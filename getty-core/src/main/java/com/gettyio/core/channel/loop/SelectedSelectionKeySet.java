@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import java.nio.channels.SelectionKey;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于数组的就绪 Key 集合。
+ * <p>
+ * 通过反射替换 JDK Selector 内部的 {@code selectedKeys}/{@code publicSelectedKeys}（HashSet），
+ * select 时 JDK 直接 {@link #add(SelectionKey)} 到数组中，事件循环按下标遍历，
+ * 避免 HashSet 节点、迭代器和 {@code toArray} 带来的每轮分配。
+ * </p>
+ * <p>
+ * 仅供单个事件循环线程使用，非线程安全。每轮 select 之前集合必须已被 {@link #reset()}，
+ * 因此 {@link #contains(Object)} 恒返回 false 不影响 JDK 的就绪判断。
+ * </p>
+ *
+ * @author gogym
+ */
+final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
+
+    /** 就绪 Key 数组 */
+    SelectionKey[] keys;
+
+    /** 当前就绪数量 */
+    int size;
+
+    SelectedSelectionKeySet() {
+        keys = new SelectionKey[1024];
+    }
+
+    @Override
+    public boolean add(SelectionKey o) {
+        if (o == null) {
+            return false;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        keys[size++] = o;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        reset(0);
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+            private int idx;
+
+            @Override
+            public boolean hasNext() {
+                return idx < size;
+            }
+
+            @Override
+            public SelectionKey next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[idx++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * 清空集合。
+     */
+    void reset() {
+        reset(0);
+    }
+
+    /**
+     * 从指定下标开始置空数组元素（释放对 Key 的引用）并清零计数。
+     *
+     * @param start 起始下标
+     */
+    void reset(int start) {
+        Arrays.fill(keys, start, size, null);
+        size = 0;
+    }
+}
@@ -19,6 +19,7 @@ import com.gettyio.core.logging.InternalLogger;
 import com.gettyio.core.logging.InternalLoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -26,6 +27,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 对 JDK Selector 的增强包装。
@@ -46,6 +48,9 @@ public class SelectedSelector extends Selector {
      */
     private static final int REBUILD_THRESHOLD = 512;
 
+    /** 就绪 Key 集合替换失败的提示只以 warn 级别输出一次，之后降为 debug */
+    private static final AtomicBoolean KEY_SET_FALLBACK_LOGGED = new AtomicBoolean();
+
     /** 默认 select 超时时间（毫秒） */
     private static final long DEFAULT_TIMEOUT_MILLIS = 1000L;
 
@@ -67,13 +72,33 @@ public class SelectedSelector extends Selector {
     /** 底层 Selector */
     private Selector delegate;
 
+    /** 是否启用数组化就绪 Key 集合 */
+    private final boolean optimizeKeySet;
+
+    /** 数组化就绪 Key 集合，未启用或替换失败时为 null */
+    private SelectedSelectionKeySet selectedKeySet;
+
     /**
      * 构造方法。
      *
      * @param delegate 底层 Selector
      */
     public SelectedSelector(Selector delegate) {
+        this(delegate, false);
+    }
+
+    /**
+     * 构造方法。
+     *
+     * @param delegate       底层 Selector
+     * @param optimizeKeySet 是否将 JDK 内部的就绪 Key 集合替换为数组实现
+     */
+    public SelectedSelector(Selector delegate, boolean optimizeKeySet) {
         this.delegate = delegate;
+        this.optimizeKeySet = optimizeKeySet;
+        if (optimizeKeySet) {
+            this.selectedKeySet = replaceSelectedKeySet(delegate);
+        }
     }
 
     /**
@@ -85,6 +110,15 @@ public class SelectedSelector extends Selector {
         return delegate;
     }
 
+    /**
+     * 获取数组化就绪 Key 集合。
+     *
+     * @return 就绪 Key 集合；未启用优化或替换失败时返回 null，此时应使用 {@link #selectedKeys()}
+     */
+    SelectedSelectionKeySet selectedKeySet() {
+        return selectedKeySet;
+    }
+
     // ==================== 注册（与 select 线程同步） ====================
 
     /**
@@ -177,18 +211,22 @@ public class SelectedSelector extends Selector {
     /**
      * 带空轮询检测的 select 实现。
      * <p>
-     * 如果 select 返回 0 且未超时，则增加空轮询计数。
+     * 有通道就绪、被 {@link #wakeup()} 唤醒或超时时返回；其余的 0 返回计入空轮询，
      * 当计数超过阈值时重建 Selector。
      * </p>
+     * <p>
+     * 进入前不清除 wakenUp：select 前发生的 wakeup 会使本次 select 立即返回，
+     * 保留标志才能将其识别为正常唤醒并返回给调用方，避免丢失唤醒。
+     * </p>
      *
-     * @param timeout 超时时间（毫秒）
-     * @return 就绪的通道数量
+     * @param timeout 超时时间（毫秒），0 表示无限等待
+     * @return 就绪的通道数量，唤醒或超时时返回 0
      * @throws IOException I/O 错误
      */
     private int selectWithRebuild(long timeout) throws IOException {
         long startTimeNanos = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
         emptySelectCount = 0;
-        wakenUp = false;
 
         for (; ; ) {
             int selected = delegate.select(timeout);
@@ -200,18 +238,21 @@ public class SelectedSelector extends Selector {
 
             // selected == 0：检查是否是正常 wakeup 导致的（非 epoll bug）
             if (wakenUp) {
-                // 正常 wakeup（如 notifyFlush），不计入空轮询
+                // 正常 wakeup（如提交任务），不计入空轮询，交还调用方处理
                 wakenUp = false;
-                emptySelectCount = 0;
-            } else if (!registering) {
-                emptySelectCount++;
+                return 0;
             }
 
             long elapsed = System.nanoTime() - startTimeNanos;
-            if (elapsed >= TimeUnit.MILLISECONDS.toNanos(timeout)) {
-                // 正常超时，重置计数器
-                emptySelectCount = 0;
-            } else if (emptySelectCount >= REBUILD_THRESHOLD) {
+            if (timeout > 0 && elapsed >= timeoutNanos) {
+                // 正常超时
+                return 0;
+            }
+
+            if (!registering) {
+                emptySelectCount++;
+            }
+            if (emptySelectCount >= REBUILD_THRESHOLD) {
                 // 极短时间内大量空轮询且无 wakeup → 真正的 epoll bug，重建 Selector
                 LOGGER.warn("Selector empty poll detected ({} times), rebuilding...", emptySelectCount);
                 rebuildSelector();
@@ -233,7 +274,8 @@ public class SelectedSelector extends Selector {
         final Selector oldSelector = delegate;
         Selector newSelector;
         try {
-            newSelector = Selector.open();
+            // 使用与旧 Selector 相同的 provider，保证已注册通道可迁移
+            newSelector = oldSelector.provider().openSelector();
         } catch (IOException e) {
             LOGGER.warn("Failed to create new Selector", e);
             return;
@@ -257,6 +299,9 @@ public class SelectedSelector extends Selector {
         }
 
         delegate = newSelector;
+        if (optimizeKeySet) {
+            selectedKeySet = replaceSelectedKeySet(newSelector);
+        }
 
         try {
             oldSelector.close();
@@ -266,4 +311,41 @@ public class SelectedSelector extends Selector {
 
         LOGGER.info("Migrated {} channel(s) to new Selector", migratedCount);
     }
+
+    // ==================== 就绪 Key 集合替换 ====================
+
+    /**
+     * 通过反射将 {@code sun.nio.ch.SelectorImpl} 内部的 selectedKeys/publicSelectedKeys 替换为数组实现。
+     * <p>
+     * JDK 9+ 需要 {@code --add-opens java.base/sun.nio.ch=ALL-UNNAMED}，否则替换失败并回退到 JDK 默认集合。
+     * </p>
+     *
+     * @param selector 待替换的 Selector
+     * @return 替换成功返回数组集合，否则返回 null
+     */
+    private static SelectedSelectionKeySet replaceSelectedKeySet(Selector selector) {
+        SelectedSelectionKeySet keySet = new SelectedSelectionKeySet();
+        try {
+            Class<?> selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl", false,
+                    SelectedSelector.class.getClassLoader());
+            if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
+                return null;
+            }
+            Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+            selectedKeysField.set(selector, keySet);
+            publicSelectedKeysField.set(selector, keySet);
+            return keySet;
+        } catch (Throwable e) {
+            if (KEY_SET_FALLBACK_LOGGED.compareAndSet(false, true)) {
+                LOGGER.warn("selected key set optimization unavailable, fallback to JDK default "
+                        + "(add --add-opens java.base/sun.nio.ch=ALL-UNNAMED on JDK 9+ to enable it): {}", e.toString());
+            } else {
+                LOGGER.debug("selected key set optimization unavailable, fallback to JDK default: {}", e.toString());
+            }
+            return null;
+        }
+    }
 }
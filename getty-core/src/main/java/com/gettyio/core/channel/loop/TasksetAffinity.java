@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.loop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 基于 Linux taskset 命令的 CPU 亲和性绑定。
+ * <p>
+ * 通过 /proc/thread-self（Linux 3.17+）取得当前线程的内核线程 ID，再执行
+ * {@code taskset -p -c <cpu> <tid>}。第 i 个事件循环绑定到 {@code cpus[i % cpus.length]}，
+ * 不需要 JNI。只在线程启动时执行一次，进程创建的开销不影响运行期延迟。
+ * </p>
+ *
+ * @author gogym
+ */
+public class TasksetAffinity implements EventLoopAffinity {
+
+    /** 可用的 CPU 编号 */
+    private final int[] cpus;
+
+    /**
+     * 构造方法
+     *
+     * @param cpus 按事件循环下标轮流分配的 CPU 编号
+     */
+    public TasksetAffinity(int... cpus) {
+        if (cpus == null || cpus.length == 0) {
+            throw new IllegalArgumentException("cpus can't be empty");
+        }
+        for (int cpu : cpus) {
+            if (cpu < 0) {
+                throw new IllegalArgumentException("cpu: " + cpu + " (expected: >= 0)");
+            }
+        }
+        this.cpus = cpus.clone();
+    }
+
+    @Override
+    public void bind(int loopIndex) throws IOException, InterruptedException {
+        int cpu = cpus[loopIndex % cpus.length];
+        String tid = new File("/proc/thread-self").getCanonicalFile().getName();
+        Process process = new ProcessBuilder("taskset", "-p", "-c", String.valueOf(cpu), tid)
+                .redirectErrorStream(true)
+                .start();
+        String output = readFully(process.getInputStream());
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("taskset exited with " + exitCode + ": " + output.trim());
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[256];
+        int n;
+        try {
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TasksetAffinity" + Arrays.toString(cpus);
+    }
+}
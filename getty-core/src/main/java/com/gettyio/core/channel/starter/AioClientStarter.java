@@ -121,8 +121,9 @@ public class AioClientStarter extends AioStarter {
      */
     private void start0(ConnectHandler connectHandler) throws Exception {
         startCheck(config);
-        byteBufferPool = new GettyByteBufferPool(config.isDirect());
-        writeThreadGroup = new AioWriteThreadGroup(1); // 客户端默认 1 个写线程
+        byteBufferPool = new GettyByteBufferPool(config.isDirect(), config.getPoolArenas());
+        // 客户端默认 1 个写线程，直接写模式下不需要
+        writeThreadGroup = config.isAioDirectWrite() ? null : new AioWriteThreadGroup(1);
 
         asynchronousChannelGroup = AsynchronousChannelGroup.withFixedThreadPool(1, new ThreadFactory() {
             @Override
@@ -163,7 +164,7 @@ public class AioClientStarter extends AioStarter {
                             aioChannel = new AioChannel(ch, config,
                                     new ReadCompletionHandler(),
                                     byteBufferPool, channelInitializer,
-                                    writeThreadGroup.next(), writeThreadGroup);
+                                    writeThreadGroup != null ? writeThreadGroup.next() : null, writeThreadGroup);
                             aioChannel.starRead();
 
                             if (connectHandler != null) {
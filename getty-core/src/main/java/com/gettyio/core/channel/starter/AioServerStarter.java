@@ -28,6 +28,7 @@ import com.gettyio.core.pipeline.ChannelInitializer;
 import com.gettyio.core.util.thread.ThreadPool;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketOption;
 import java.nio.channels.AsynchronousChannelGroup;
@@ -63,6 +64,9 @@ public class AioServerStarter extends AioStarter {
     /** 服务端 Socket 通道 */
     private AsynchronousServerSocketChannel serverSocketChannel;
 
+    /** 是否接受新连接 */
+    private volatile boolean running = true;
+
     /** 简单构造 */
     public AioServerStarter(int port) {
         this.config = new GettyConfig();
@@ -112,8 +116,10 @@ public class AioServerStarter extends AioStarter {
         Banner.printBanner();
         startCheck(config, true);
 
-        byteBufferPool = new GettyByteBufferPool(config.isDirect());
-        writeThreadGroup = new AioWriteThreadGroup(writeThreadNum);
+        byteBufferPool = new GettyByteBufferPool(config.isDirect(), config.getPoolArenas());
+        connectionLimiter = ConnectionLimiter.create(config);
+        // 直接写模式下由调用线程和写回调提交写出，不需要写线程
+        writeThreadGroup = config.isAioDirectWrite() ? null : new AioWriteThreadGroup(writeThreadNum);
         bossThreadPool = new ThreadPool(ThreadPool.FixedThread, bossThreadNum);
         startTcp();
     }
@@ -144,30 +150,46 @@ public class AioServerStarter extends AioStarter {
                 }
             }
 
-            // 绑定端口（backlog = 1000）
+            // 绑定端口
             if (config.getHost() != null) {
-                serverSocketChannel.bind(new InetSocketAddress(config.getHost(), config.getPort()), 1000);
+                serverSocketChannel.bind(new InetSocketAddress(config.getHost(), config.getPort()), config.getBacklog());
             } else {
-                serverSocketChannel.bind(new InetSocketAddress(config.getPort()), 1000);
+                serverSocketChannel.bind(new InetSocketAddress(config.getPort()), config.getBacklog());
             }
 
-            // 开始接受连接
+            // 开始接受连接。回调持有局部引用，停止后字段被置空也不会空指针
+            final AsynchronousServerSocketChannel server = serverSocketChannel;
             bossThreadPool.execute(new Runnable() {
                 @Override
                 public void run() {
-                    serverSocketChannel.accept(null, new CompletionHandler<AsynchronousSocketChannel, Object>() {
+                    server.accept(null, new CompletionHandler<AsynchronousSocketChannel, Object>() {
                         @Override
                         public void completed(AsynchronousSocketChannel result, Object attachment) {
+                            if (!running) {
+                                closeAioChannel(result);
+                                return;
+                            }
                             createTcpChannel(result);
                             // 继续接受下一个连接
-                            serverSocketChannel.accept(null, this);
+                            acceptNext(this);
                         }
 
                         @Override
                         public void failed(Throwable exc, Object attachment) {
-                            if (serverSocketChannel != null) {
+                            if (running) {
                                 LOGGER.error("accept failed", exc);
-                                serverSocketChannel.accept(null, this);
+                                acceptNext(this);
+                            }
+                        }
+
+                        private void acceptNext(CompletionHandler<AsynchronousSocketChannel, Object> handler) {
+                            try {
+                                server.accept(null, handler);
+                            } catch (Exception e) {
+                                // 监听通道已关闭
+                                if (running) {
+                                    LOGGER.error("accept failed", e);
+                                }
                             }
                         }
                     });
@@ -183,18 +205,35 @@ public class AioServerStarter extends AioStarter {
         LOGGER.info("getty server config: {}", config);
     }
 
+    /**
+     * 优雅停止服务端。
+     * <p>
+     * 立即停止接受新连接，然后等待已有连接处理完请求并写完待发送的数据：
+     * 没有待写数据且 quietPeriod 内没有新请求的连接先被关闭，到达 timeout 后强制关闭剩余连接，
+     * 最后停止通道组和写线程。
+     * </p>
+     *
+     * @param quietPeriod 连接空闲判定时长
+     * @param timeout     最长等待时间，不小于 quietPeriod
+     * @param unit        时间单位
+     * @return 超时后被强制关闭的连接数
+     */
+    public final int shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        checkGracefulArgs(quietPeriod, timeout, unit);
+        stopAccept();
+        int forced = closeChannelsGracefully(quietPeriod, timeout, unit);
+        shutdown();
+        if (forced > 0) {
+            LOGGER.warn("getty server shutdown gracefully, {} channels forcibly closed", forced);
+        }
+        return forced;
+    }
+
     /**
      * 停止服务端。
      */
     public final void shutdown() {
-        if (serverSocketChannel != null) {
-            try {
-                serverSocketChannel.close();
-            } catch (IOException e) {
-                LOGGER.error("close serverSocketChannel failed", e);
-            }
-            serverSocketChannel = null;
-        }
+        stopAccept();
 
         if (bossThreadPool != null && !bossThreadPool.isShutDown()) {
             bossThreadPool.shutdownNow();
@@ -222,21 +261,76 @@ public class AioServerStarter extends AioStarter {
     }
 
     /**
-     * 为新连接创建 AioChannel。
+     * 停止接受新连接并关闭监听通道，已建立的连接不受影响。
+     */
+    private void stopAccept() {
+        running = false;
+        if (serverSocketChannel != null) {
+            try {
+                serverSocketChannel.close();
+            } catch (IOException e) {
+                LOGGER.error("close serverSocketChannel failed", e);
+            }
+            serverSocketChannel = null;
+        }
+    }
+
+    /**
+     * 为新连接创建 AioChannel。配置了连接限制时先做准入检查，被拒绝的连接直接关闭。
      */
     private void createTcpChannel(AsynchronousSocketChannel channel) {
+        ConnectionLimiter.Permit permit = null;
+        if (connectionLimiter != null) {
+            permit = acquirePermit(channel);
+            if (permit == null) {
+                rejectAioChannel(channel);
+                return;
+            }
+        }
         try {
             AbstractSocketChannel aioChannel = new AioChannel(channel, config,
                     readCompletionHandler,
                     byteBufferPool, channelInitializer,
-                    writeThreadGroup.next(), writeThreadGroup);
+                    writeThreadGroup != null ? writeThreadGroup.next() : null, writeThreadGroup);
+            // 初始化或 NEW_CHANNEL 事件中已被关闭的通道会立即回调监听器，配额和活跃连接不会泄漏
+            if (permit != null) {
+                aioChannel.addChannelFutureListener(permit);
+            }
+            activeChannels.add(aioChannel);
             aioChannel.starRead();
         } catch (Exception e) {
             LOGGER.error("create AioChannel failed", e);
+            if (permit != null) {
+                permit.release();
+            }
             closeAioChannel(channel);
         }
     }
 
+    /**
+     * 为新连接申请连接配额。
+     *
+     * @return 配额凭证，被拒绝或无法获取远端地址时返回 null
+     */
+    private ConnectionLimiter.Permit acquirePermit(AsynchronousSocketChannel channel) {
+        InetAddress address = null;
+        if (connectionLimiter.isPerIpLimited()) {
+            try {
+                address = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return connectionLimiter.acquire(address);
+    }
+
+    /**
+     * 关闭被拒绝的连接。异步通道不支持 SO_LINGER，直接关闭。
+     */
+    private static void rejectAioChannel(AsynchronousSocketChannel channel) {
+        try { channel.close(); } catch (IOException e) { /* ignore */ }
+    }
+
     /**
      * 安全关闭异步 Socket 通道。
      */
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.starter;
+
+import com.gettyio.core.channel.AbstractSocketChannel;
+import com.gettyio.core.channel.config.GettyConfig;
+import com.gettyio.core.channel.group.ChannelFutureListener;
+
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端连接准入控制。
+ * <p>
+ * 在新连接创建通道和管道之前检查三项限制：建连速率（令牌桶）、全局并发连接数、单个来源 IP 的并发连接数。
+ * 任一项不满足即拒绝，已占用的配额立即回滚。通过检查时返回 {@link Permit}，将其注册为通道关闭监听器，
+ * 连接关闭时自动归还配额。
+ * </p>
+ * <p>
+ * 线程安全，可被多个 accept 线程（SO_REUSEPORT 模式、AIO 回调线程）并发调用。
+ * </p>
+ *
+ * @author gogym
+ */
+public final class ConnectionLimiter {
+
+    /** 全局最大连接数，0 表示不限制 */
+    private final int maxConnections;
+
+    /** 单 IP 最大连接数，0 表示不限制 */
+    private final int maxConnectionsPerIp;
+
+    /** 每秒生成的令牌数，0 表示不限速 */
+    private final int acceptRate;
+
+    /** 令牌桶容量 */
+    private final int acceptBurst;
+
+    /** 当前连接数 */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /** 各来源 IP 的当前连接数，计数归零时移除 */
+    private final ConcurrentHashMap<InetAddress, AtomicInteger> perIpConnections = new ConcurrentHashMap<>();
+
+    /** 累计拒绝数 */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** 当前令牌数（受 this 锁保护） */
+    private double tokens;
+
+    /** 上次补充令牌的时间（受 this 锁保护） */
+    private long lastRefillNanos;
+
+    /**
+     * 构造方法
+     *
+     * @param maxConnections      全局最大连接数，0 表示不限制
+     * @param maxConnectionsPerIp 单 IP 最大连接数，0 表示不限制
+     * @param acceptRate          每秒接受连接数，0 表示不限速
+     * @param acceptBurst         令牌桶容量，不小于 1
+     */
+    public ConnectionLimiter(int maxConnections, int maxConnectionsPerIp, int acceptRate, int acceptBurst) {
+        if (maxConnections < 0 || maxConnectionsPerIp < 0 || acceptRate < 0) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + ", maxConnectionsPerIp: "
+                    + maxConnectionsPerIp + ", acceptRate: " + acceptRate + " (expected: >= 0)");
+        }
+        if (acceptRate > 0 && acceptBurst <= 0) {
+            throw new IllegalArgumentException("acceptBurst: " + acceptBurst + " (expected: > 0)");
+        }
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+        this.acceptRate = acceptRate;
+        this.acceptBurst = acceptBurst;
+        this.tokens = acceptBurst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 根据配置创建准入控制器。
+     *
+     * @param config 服务端配置
+     * @return 准入控制器，未配置任何限制时返回 null
+     */
+    public static ConnectionLimiter create(GettyConfig config) {
+        if (config.getMaxConnections() == 0 && config.getMaxConnectionsPerIp() == 0 && config.getAcceptRate() == 0) {
+            return null;
+        }
+        return new ConnectionLimiter(config.getMaxConnections(), config.getMaxConnectionsPerIp(),
+                config.getAcceptRate(), config.getAcceptBurst());
+    }
+
+    /**
+     * 是否需要来源地址。未限制单 IP 连接数时调用方可传入 null，省去获取远端地址的系统调用。
+     *
+     * @return true 表示 {@link #acquire(InetAddress)} 需要非空地址
+     */
+    public boolean isPerIpLimited() {
+        return maxConnectionsPerIp > 0;
+    }
+
+    /**
+     * 尝试为新连接占用配额。
+     *
+     * @param address 来源地址，仅在 {@link #isPerIpLimited()} 时使用
+     * @return 配额凭证，拒绝时返回 null
+     */
+    public Permit acquire(InetAddress address) {
+        if (acceptRate > 0 && !tryAcquireToken()) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        int count = connections.incrementAndGet();
+        if (maxConnections > 0 && count > maxConnections) {
+            connections.decrementAndGet();
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        if (maxConnectionsPerIp > 0 && !tryAcquirePerIp(address)) {
+            connections.decrementAndGet();
+            rejected.incrementAndGet();
+            return null;
+        }
+        return new Permit(maxConnectionsPerIp > 0 ? address : null);
+    }
+
+    /**
+     * 归还连接配额。
+     */
+    private void release(InetAddress address) {
+        connections.decrementAndGet();
+        if (address != null) {
+            perIpConnections.computeIfPresent(address, (k, v) -> v.decrementAndGet() <= 0 ? null : v);
+        }
+    }
+
+    /**
+     * 当前连接数。
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 累计拒绝的连接数。
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * 单 IP 计数加一，超限时不修改并返回 false。compute 在桶锁内执行，计数与移除保持原子。
+     */
+    private boolean tryAcquirePerIp(InetAddress address) {
+        if (address == null) {
+            return true;
+        }
+        boolean[] acquired = new boolean[1];
+        perIpConnections.compute(address, (k, v) -> {
+            if (v == null) {
+                v = new AtomicInteger();
+            }
+            if (v.get() < maxConnectionsPerIp) {
+                v.incrementAndGet();
+                acquired[0] = true;
+            }
+            return v.get() == 0 ? null : v;
+        });
+        return acquired[0];
+    }
+
+    /**
+     * 按经过的时间补充令牌后取走一个。
+     */
+    private synchronized boolean tryAcquireToken() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(acceptBurst, tokens + elapsed * acceptRate / 1_000_000_000d);
+            lastRefillNanos = now;
+        }
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionLimiter{maxConnections=" + maxConnections + ", maxConnectionsPerIp=" + maxConnectionsPerIp
+                + ", acceptRate=" + acceptRate + ", acceptBurst=" + acceptBurst
+                + ", connections=" + connections.get() + ", rejected=" + rejected.get() + '}';
+    }
+
+    /**
+     * 连接配额凭证。注册为通道关闭监听器后随通道关闭归还，重复归还无副作用。
+     */
+    public final class Permit implements ChannelFutureListener {
+
+        /** 来源地址，未限制单 IP 连接数时为 null */
+        private final InetAddress address;
+
+        /** 是否已归还 */
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(InetAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * 归还配额。通道创建失败时由调用方直接调用。
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ConnectionLimiter.this.release(address);
+            }
+        }
+
+        @Override
+        public void operationComplete(AbstractSocketChannel channel) {
+            release();
+        }
+    }
+}
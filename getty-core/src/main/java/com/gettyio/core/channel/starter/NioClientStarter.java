@@ -21,7 +21,9 @@ import com.gettyio.core.channel.NioChannel;
 import com.gettyio.core.channel.SocketMode;
 import com.gettyio.core.channel.UdpChannel;
 import com.gettyio.core.channel.config.GettyConfig;
+import com.gettyio.core.channel.loop.Epoll;
 import com.gettyio.core.channel.loop.NioEventLoop;
+import com.gettyio.core.channel.loop.NioEventLoopGroup;
 import com.gettyio.core.channel.loop.SelectedSelector;
 import com.gettyio.core.handler.ssl.IHandshakeListener;
 import com.gettyio.core.handler.ssl.SSLException;
@@ -30,20 +32,26 @@ import com.gettyio.core.logging.InternalLoggerFactory;
 import com.gettyio.core.pipeline.ChannelInitializer;
 
 import java.io.IOException;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.SocketOption;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * NIO 客户端启动器。
  * <p>
- * 支持 TCP 和 UDP 两种模式。TCP 模式通过 Selector 处理连接事件，
- * UDP 模式通过 DatagramChannel 进行数据报通信。
+ * 支持 TCP 和 UDP 两种模式。TCP 模式在所属 NioEventLoop 上发起非阻塞连接，
+ * 连接结果在事件循环线程内回调，超时由 {@link GettyConfig#getConnectTimeout()} 控制；
+ * UDP 模式通过 DatagramChannel 进行数据报通信，由 UdpChannel 自己的线程收发，不使用事件循环。
+ * 大量 TCP 客户端可通过 {@link #eventLoopGroup(NioEventLoopGroup)} 共用同一个事件循环组，
+ * 否则每个客户端创建一个只含单个事件循环的私有组，私有组在通道关闭或连接失败时随之停止。
  * </p>
  *
  * @author gogym
@@ -52,6 +60,22 @@ public class NioClientStarter extends NioStarter {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(NioClientStarter.class);
 
+    /** 同步启动时在连接超时之外额外等待事件循环回调的时间（毫秒），也是不设超时时检查事件循环状态的间隔 */
+    private static final long CONNECT_AWAIT_MARGIN_MILLIS = 1000L;
+
+    /**
+     * 通道属性键：值为 {@link Boolean#TRUE} 时，通道关闭后不停止启动器私有的事件循环组。
+     * 断线重连等需要在原事件循环上重新发起连接的处理器应在 channelAdded 中设置，
+     * 并在不再重连时调用 {@link #releaseEventLoopGroup(AbstractSocketChannel)}。
+     */
+    public static final String KEEP_EVENT_LOOP_ALIVE = "nioClientKeepEventLoopAlive";
+
+    /**
+     * 通道属性键：值为启动器私有的 {@link NioEventLoopGroup}，使用外部组时不设置。
+     * 重连处理器在原事件循环上建立的新通道应沿用此属性。
+     */
+    public static final String OWNED_EVENT_LOOP_GROUP = "nioClientOwnedEventLoopGroup";
+
     /** 客户端配置 */
     private final GettyConfig config;
 
@@ -61,7 +85,13 @@ public class NioClientStarter extends NioStarter {
     /** 事件循环 */
     private NioEventLoop nioEventLoop;
 
-    /** 连接用选择器 */
+    /** 事件循环组 */
+    private NioEventLoopGroup eventLoopGroup;
+
+    /** 事件循环组是否由本启动器创建（关闭时一并停止） */
+    private boolean ownEventLoopGroup;
+
+    /** UDP 模式选择器 */
     private SelectedSelector connectSelector;
 
     public NioClientStarter(String host, int port) {
@@ -92,15 +122,40 @@ public class NioClientStarter extends NioStarter {
         return this;
     }
 
+    /**
+     * 使用外部事件循环组。连接绑定到组内的一个事件循环，并使用组的内存池；
+     * 组的生命周期由调用方管理，{@link #shutdown()} 不会停止它。
+     *
+     * @param eventLoopGroup 事件循环组
+     * @return this
+     */
+    public NioClientStarter eventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+        return this;
+    }
+
+    /**
+     * 启动客户端，阻塞直到 TCP 连接建立或失败。
+     *
+     * @throws Exception 连接失败或超时时抛出
+     */
     public final void start() throws Exception {
         try {
-            start0(null);
+            ConnectCallback callback = start0(null);
+            if (callback != null) {
+                callback.await();
+            }
         } catch (Exception e) {
             LOGGER.error("start failed", e);
             throw e;
         }
     }
 
+    /**
+     * 异步启动客户端，连接结果通过 connectHandler 在事件循环线程内回调。
+     *
+     * @param connectHandler 连接回调
+     */
     public final void start(ConnectHandler connectHandler) {
         try {
             start0(connectHandler);
@@ -112,24 +167,33 @@ public class NioClientStarter extends NioStarter {
         }
     }
 
-    private void start0(ConnectHandler connectHandler) throws Exception {
+    private ConnectCallback start0(ConnectHandler connectHandler) throws Exception {
         startCheck(config);
-        byteBufferPool = new GettyByteBufferPool(config.isDirect());
-        nioEventLoop = new NioEventLoop(config, byteBufferPool);
-        nioEventLoop.run();
-
-        if (socketMode == SocketMode.TCP) {
-            startTcp(connectHandler);
-        } else {
+        if (config.isEpoll()) {
+            Epoll.logFallback();
+        }
+        if (socketMode != SocketMode.TCP) {
+            // UDP 由 UdpChannel 自己的读写线程处理，不使用事件循环：只共用外部组的内存池，未指定时单独创建
+            byteBufferPool = eventLoopGroup != null ? eventLoopGroup.getByteBufferPool()
+                    : new GettyByteBufferPool(config.isDirect(), config.getPoolArenas());
             startUdp(connectHandler);
+            return null;
         }
+        if (eventLoopGroup == null || (ownEventLoopGroup && eventLoopGroup.isShutdown())) {
+            // 私有组在通道关闭或连接失败时已停止，重新启动时另建
+            eventLoopGroup = new NioEventLoopGroup(config, 1);
+            ownEventLoopGroup = true;
+        }
+        byteBufferPool = eventLoopGroup.getByteBufferPool();
+        nioEventLoop = eventLoopGroup.next();
+        return startTcp(connectHandler);
     }
 
     /**
-     * TCP 非阻塞连接。
+     * TCP 非阻塞连接。在事件循环上发起连接，不阻塞调用线程。
      */
-    private void startTcp(final ConnectHandler connectHandler) throws Exception {
-        final SocketChannel socketChannel = SocketChannel.open();
+    private ConnectCallback startTcp(final ConnectHandler connectHandler) throws Exception {
+        final SocketChannel socketChannel = config.getSelectorProvider().openSocketChannel();
 
         // 设置 Socket 选项
         Map<SocketOption<Object>, Object> options = config.getSocketOptions();
@@ -139,67 +203,79 @@ public class NioClientStarter extends NioStarter {
             }
         }
 
+        if (config.isEpoll()) {
+            Epoll.applyQuickAck(socketChannel);
+        }
         socketChannel.configureBlocking(false);
-        socketChannel.connect(new InetSocketAddress(config.getHost(), config.getPort()));
-
-        // 创建连接专用选择器
-        connectSelector = new SelectedSelector(Selector.open());
-        socketChannel.register(connectSelector.getSelector(), SelectionKey.OP_CONNECT);
-
-        // 阻塞等待连接完成
-        while (connectSelector.select(0) > 0) {
-            Iterator<SelectionKey> it = connectSelector.selectedKeys().iterator();
-            while (it.hasNext()) {
-                SelectionKey sk = it.next();
-                it.remove();
+        ConnectCallback callback = new ConnectCallback(socketChannel, nioEventLoop,
+                ownEventLoopGroup ? eventLoopGroup : null, connectHandler);
+        nioEventLoop.connect(socketChannel, new InetSocketAddress(config.getHost(), config.getPort()),
+                config.getConnectTimeout(), socketChannel, callback);
+        return callback;
+    }
 
-                if (!sk.isConnectable()) {
-                    continue;
-                }
+    /**
+     * 连接建立后创建 NioChannel 并通知回调（事件循环线程）。
+     */
+    private void onConnected(SocketChannel socketChannel, final ConnectHandler connectHandler) throws Exception {
+        nioChannel = new NioChannel(config, socketChannel, nioEventLoop, byteBufferPool, channelInitializer);
+        shutdownOwnedGroupOnClose(nioChannel);
 
-                SocketChannel ch = (SocketChannel) sk.channel();
-                if (!ch.isConnectionPending()) {
-                    continue;
-                }
+        // 先注册读事件到 EventLoop 的 Selector（确保 channel.keyFor() 可用）
+        // 必须在 connectHandler 回调之前执行，否则回调中的 writeAndFlush
+        // 调用 notifyFlush() 时 keyFor() 返回 null，导致 OP_WRITE 无法注册，数据滞留队列
+        ((NioChannel) nioChannel).register();
 
-                ch.finishConnect();
-
-                try {
-                    nioChannel = new NioChannel(config, socketChannel, nioEventLoop, byteBufferPool, channelInitializer);
-
-                    // 先注册读事件到 EventLoop 的 Selector（确保 channel.keyFor() 可用）
-                    // 必须在 connectHandler 回调之前执行，否则回调中的 writeAndFlush
-                    // 调用 notifyFlush() 时 keyFor() 返回 null，导致 OP_WRITE 无法注册，数据滞留队列
-                    ((NioChannel) nioChannel).register();
-
-                    if (connectHandler != null) {
-                        if (nioChannel.getSslHandler() != null) {
-                            nioChannel.setSslHandshakeListener(new IHandshakeListener() {
-                                @Override
-                                public void onComplete() {
-                                    LOGGER.info("SSL handshake completed");
-                                    connectHandler.onCompleted(nioChannel);
-                                }
-
-                                @Override
-                                public void onFail(SSLException e) {
-                                    connectHandler.onFailed(e);
-                                }
-                            });
-                        } else {
-                            connectHandler.onCompleted(nioChannel);
-                        }
+        if (connectHandler != null) {
+            if (nioChannel.getSslHandler() != null) {
+                nioChannel.setSslHandshakeListener(new IHandshakeListener() {
+                    @Override
+                    public void onComplete() {
+                        LOGGER.info("SSL handshake completed");
+                        connectHandler.onCompleted(nioChannel);
                     }
-                } catch (Exception e) {
-                    LOGGER.error("create NioChannel failed", e);
-                    closeChannel(socketChannel);
-                    if (connectHandler != null) {
+
+                    @Override
+                    public void onFail(SSLException e) {
                         connectHandler.onFailed(e);
                     }
-                }
+                });
+            } else {
+                connectHandler.onCompleted(nioChannel);
             }
-            connectSelector.close();
-            break;
+        }
+    }
+
+    /**
+     * 私有事件循环组的线程为非 daemon，通道关闭后若不停止会使 JVM 无法退出。
+     * 通道关闭时停止私有组，除非处理器通过 {@link #KEEP_EVENT_LOOP_ALIVE} 声明需要在原事件循环上重连；
+     * 外部传入的组不受影响。
+     */
+    private void shutdownOwnedGroupOnClose(AbstractSocketChannel channel) {
+        if (!ownEventLoopGroup) {
+            return;
+        }
+        channel.setChannelAttribute(OWNED_EVENT_LOOP_GROUP, eventLoopGroup);
+        channel.addChannelFutureListener(ch -> {
+            if (!Boolean.TRUE.equals(ch.getChannelAttribute(KEEP_EVENT_LOOP_ALIVE))) {
+                releaseEventLoopGroup(ch);
+            }
+        });
+    }
+
+    /**
+     * 停止通道所属的启动器私有事件循环组；通道使用外部组时不做任何事。
+     * <p>
+     * 设置了 {@link #KEEP_EVENT_LOOP_ALIVE} 的处理器在放弃重连（主动关闭、重试次数用完）时调用，
+     * 否则私有组的非 daemon 线程会一直存活。
+     * </p>
+     *
+     * @param channel 通道
+     */
+    public static void releaseEventLoopGroup(AbstractSocketChannel channel) {
+        Object group = channel.getChannelAttribute(OWNED_EVENT_LOOP_GROUP);
+        if (group instanceof NioEventLoopGroup) {
+            ((NioEventLoopGroup) group).shutdown();
         }
     }
 
@@ -207,9 +283,9 @@ public class NioClientStarter extends NioStarter {
      * 启动 UDP 模式。
      */
     private void startUdp(ConnectHandler connectHandler) throws IOException {
-        DatagramChannel datagramChannel = DatagramChannel.open();
+        DatagramChannel datagramChannel = config.getSelectorProvider().openDatagramChannel();
         datagramChannel.configureBlocking(false);
-        connectSelector = new SelectedSelector(Selector.open());
+        connectSelector = new SelectedSelector(config.getSelectorProvider().openSelector());
         datagramChannel.register(connectSelector.getSelector(), SelectionKey.OP_READ);
 
         nioChannel = new UdpChannel(datagramChannel, connectSelector, config, byteBufferPool, channelInitializer, 3);
@@ -220,6 +296,126 @@ public class NioClientStarter extends NioStarter {
         }
     }
 
+    /**
+     * 事件循环连接回调。同步启动时通过 {@link #await()} 等待结果。
+     */
+    private final class ConnectCallback implements CompletionHandler<Void, SocketChannel> {
+
+        private final SocketChannel socketChannel;
+
+        private final NioEventLoop loop;
+
+        /** 本启动器私有的事件循环组，连接失败时停止；使用外部组时为 null */
+        private final NioEventLoopGroup ownedGroup;
+
+        private final ConnectHandler connectHandler;
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /** 结果是否已被认领：事件循环回调与同步等待超时二者只有一方生效 */
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        private volatile Throwable cause;
+
+        ConnectCallback(SocketChannel socketChannel, NioEventLoop loop, NioEventLoopGroup ownedGroup,
+                        ConnectHandler connectHandler) {
+            this.socketChannel = socketChannel;
+            this.loop = loop;
+            this.ownedGroup = ownedGroup;
+            this.connectHandler = connectHandler;
+        }
+
+        @Override
+        public void completed(Void result, SocketChannel socketChannel) {
+            if (!settled.compareAndSet(false, true)) {
+                // 同步等待已超时放弃，连接结果作废
+                closeChannel(socketChannel);
+                return;
+            }
+            try {
+                onConnected(socketChannel, connectHandler);
+            } catch (Exception e) {
+                LOGGER.error("create NioChannel failed", e);
+                closeChannel(socketChannel);
+                shutdownOwnedGroup();
+                cause = e;
+                if (connectHandler != null) {
+                    connectHandler.onFailed(e);
+                }
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void failed(Throwable exc, SocketChannel socketChannel) {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            LOGGER.error("connect failed", exc);
+            shutdownOwnedGroup();
+            cause = exc;
+            try {
+                if (connectHandler != null) {
+                    connectHandler.onFailed(exc);
+                }
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        /**
+         * 等待连接结果，失败时抛出原因。
+         * <p>
+         * 设置了连接超时时最多等待超时时间加 {@link #CONNECT_AWAIT_MARGIN_MILLIS}；
+         * 不设超时时由操作系统决定连接结果，只在事件循环已关闭时放弃等待。
+         * </p>
+         */
+        void await() throws Exception {
+            int connectTimeout = config.getConnectTimeout();
+            if (connectTimeout > 0) {
+                if (!latch.await(connectTimeout + CONNECT_AWAIT_MARGIN_MILLIS, TimeUnit.MILLISECONDS)) {
+                    giveUp();
+                }
+            } else {
+                while (!latch.await(CONNECT_AWAIT_MARGIN_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (loop.isShutdown()) {
+                        giveUp();
+                        break;
+                    }
+                }
+            }
+            Throwable t = cause;
+            if (t instanceof Exception) {
+                throw (Exception) t;
+            }
+            if (t != null) {
+                throw new IOException(t);
+            }
+        }
+
+        /**
+         * 放弃等待：认领成功则关闭通道并抛出超时异常，否则结果正在回调中，等待其完成。
+         */
+        private void giveUp() throws Exception {
+            if (settled.compareAndSet(false, true)) {
+                closeChannel(socketChannel);
+                shutdownOwnedGroup();
+                throw new ConnectException("connection timed out: " + config.getHost() + ":" + config.getPort());
+            }
+            latch.await();
+        }
+
+        /**
+         * 连接未建立，没有通道会再使用私有事件循环组，停止它以免非 daemon 线程阻止 JVM 退出。
+         */
+        private void shutdownOwnedGroup() {
+            if (ownedGroup != null) {
+                ownedGroup.shutdown();
+            }
+        }
+    }
+
     /**
      * 停止客户端。
      */
@@ -235,8 +431,11 @@ public class NioClientStarter extends NioStarter {
                 LOGGER.error("close selector failed", e);
             }
         }
-        if (nioEventLoop != null) {
-            nioEventLoop.shutdown();
+        if (ownEventLoopGroup && eventLoopGroup != null) {
+            eventLoopGroup.shutdown();
+            eventLoopGroup = null;
+            ownEventLoopGroup = false;
         }
+        nioEventLoop = null;
     }
 }
@@ -20,29 +20,39 @@ import com.gettyio.core.channel.NioChannel;
 import com.gettyio.core.channel.SocketMode;
 import com.gettyio.core.channel.UdpChannel;
 import com.gettyio.core.channel.config.GettyConfig;
+import com.gettyio.core.channel.loop.Epoll;
 import com.gettyio.core.channel.loop.NioEventLoop;
+import com.gettyio.core.channel.loop.NioEventLoopGroup;
 import com.gettyio.core.channel.loop.SelectedSelector;
 import com.gettyio.core.constant.Banner;
 import com.gettyio.core.logging.InternalLogger;
 import com.gettyio.core.logging.InternalLoggerFactory;
 import com.gettyio.core.pipeline.ChannelInitializer;
-import com.gettyio.core.util.list.FastArrayList;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * NIO 服务端启动器。
  * <p>
  * 支持 TCP 和 UDP 两种模式。TCP 模式通过 ServerSocketChannel 接受连接，
  * 并将每个连接分配到 NioEventLoop（轮询负载均衡）。
+ * 可通过 {@link #eventLoopGroup(NioEventLoopGroup)} 与其他启动器共用同一个事件循环组。
+ * 开启 {@link GettyConfig#setReusePort(boolean)} 后，每个 NioEventLoop 各绑定一个 SO_REUSEPORT 监听通道，
+ * 由内核分发连接，连接直接归属于接受它的事件循环。
  * </p>
  *
  * @author gogym
@@ -60,6 +70,9 @@ public class NioServerStarter extends NioStarter {
     /** TCP 服务通道 */
     private ServerSocketChannel serverSocketChannel;
 
+    /** SO_REUSEPORT 模式下的监听通道（每个 EventLoop 一个） */
+    private final List<ServerSocketChannel> reusePortChannels = new ArrayList<>();
+
     /** UDP 通道 */
     private DatagramChannel datagramChannel;
 
@@ -69,8 +82,11 @@ public class NioServerStarter extends NioStarter {
     /** accept 循环线程 */
     private Thread acceptThread;
 
-    /** EventLoop 列表（轮询分配） */
-    private final FastArrayList<NioEventLoop> eventLoops = new FastArrayList<>();
+    /** 事件循环组（轮询分配） */
+    private NioEventLoopGroup eventLoopGroup;
+
+    /** 事件循环组是否由本启动器创建（关闭时一并停止） */
+    private boolean ownEventLoopGroup;
 
     public NioServerStarter(int port) {
         this.config = new GettyConfig();
@@ -99,11 +115,36 @@ public class NioServerStarter extends NioStarter {
         return this;
     }
 
+    /**
+     * 设置事件循环（Worker）线程数，覆盖按 CPU 核数推算的默认值。使用外部事件循环组时不生效。
+     *
+     * @param threadNum 线程数，须大于 0
+     * @return this
+     */
+    public NioServerStarter workerThreadNum(int threadNum) {
+        if (threadNum > 0) {
+            this.workerThreadNum = threadNum;
+        }
+        return this;
+    }
+
     public NioServerStarter socketMode(SocketMode socketMode) {
         this.socketMode = socketMode;
         return this;
     }
 
+    /**
+     * 使用外部事件循环组。连接分配到组内的事件循环，并使用组的内存池；
+     * 组的生命周期由调用方管理，{@link #shutdown()} 不会停止它。
+     *
+     * @param eventLoopGroup 事件循环组
+     * @return this
+     */
+    public NioServerStarter eventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+        return this;
+    }
+
     /**
      * 启动 NIO 服务端。
      *
@@ -112,18 +153,24 @@ public class NioServerStarter extends NioStarter {
     public void start() throws Exception {
         Banner.printBanner();
         startCheck(config, true);
-        byteBufferPool = new GettyByteBufferPool(config.isDirect());
-
-        // 创建 EventLoop 池
-        for (int i = 0; i < workerThreadNum; i++) {
-            NioEventLoop loop = new NioEventLoop(config, byteBufferPool);
-            loop.run();
-            eventLoops.add(loop);
+        if (config.isEpoll()) {
+            Epoll.logFallback();
         }
 
+        connectionLimiter = ConnectionLimiter.create(config);
+
         if (socketMode == SocketMode.TCP) {
+            // 未指定外部事件循环组时创建私有的组
+            if (eventLoopGroup == null) {
+                eventLoopGroup = new NioEventLoopGroup(config, workerThreadNum);
+                ownEventLoopGroup = true;
+            }
+            byteBufferPool = eventLoopGroup.getByteBufferPool();
             startTcp();
         } else {
+            // UDP 由 UdpChannel 自己的读写线程处理，不使用事件循环：只共用外部组的内存池，未指定时单独创建
+            byteBufferPool = eventLoopGroup != null ? eventLoopGroup.getByteBufferPool()
+                    : new GettyByteBufferPool(config.isDirect(), config.getPoolArenas());
             startUdp();
         }
     }
@@ -132,33 +179,97 @@ public class NioServerStarter extends NioStarter {
      * 启动 TCP 监听。
      */
     private void startTcp() throws IOException {
-        serverSocketChannel = ServerSocketChannel.open();
-        serverSocketChannel.configureBlocking(false);
-
-        if (config.getHost() != null) {
-            serverSocketChannel.bind(new InetSocketAddress(config.getHost(), config.getPort()), 1000);
-        } else {
-            serverSocketChannel.bind(new InetSocketAddress(config.getPort()), 1000);
+        SocketOption<Boolean> reusePortOption = config.isReusePort() ? reusePortOption() : null;
+        if (reusePortOption != null) {
+            startReusePortTcp(reusePortOption);
+            return;
         }
 
-        acceptSelector = new SelectedSelector(Selector.open());
+        serverSocketChannel = config.getSelectorProvider().openServerSocketChannel();
+        serverSocketChannel.configureBlocking(false);
+        serverSocketChannel.bind(bindAddress(), config.getBacklog());
+
+        acceptSelector = new SelectedSelector(config.getSelectorProvider().openSelector());
         serverSocketChannel.register(acceptSelector.getSelector(), SelectionKey.OP_ACCEPT);
 
         acceptThread = new Thread(this::acceptLoop, "nio-accept");
         // 非 daemon：作为服务端生命线，保持 JVM 存活直到 shutdown() 被调用
         acceptThread.start();
 
-        LOGGER.info("getty server started TCP on port {}, workerThreadNum:{}",
-                config.getPort(), workerThreadNum);
+        LOGGER.info("getty server started TCP on port {}, eventLoops:{}",
+                config.getPort(), eventLoopGroup.size());
         LOGGER.info("getty server config: {}", config);
     }
 
+    /**
+     * SO_REUSEPORT 多监听模式：每个 EventLoop 绑定一个监听通道，在本线程内 accept。
+     */
+    private void startReusePortTcp(SocketOption<Boolean> reusePortOption) throws IOException {
+        CompletionHandler<SocketChannel, NioEventLoop> acceptHandler =
+                new CompletionHandler<SocketChannel, NioEventLoop>() {
+                    @Override
+                    public void completed(SocketChannel channel, NioEventLoop loop) {
+                        createTcpChannel(channel, loop);
+                    }
+
+                    @Override
+                    public void failed(Throwable exc, NioEventLoop loop) {
+                        if (running) {
+                            LOGGER.error("accept error", exc);
+                        }
+                    }
+                };
+
+        for (NioEventLoop loop : eventLoopGroup) {
+            ServerSocketChannel channel = config.getSelectorProvider().openServerSocketChannel();
+            reusePortChannels.add(channel);
+            channel.setOption(reusePortOption, Boolean.TRUE);
+            channel.configureBlocking(false);
+            channel.bind(bindAddress(), config.getBacklog());
+            loop.registerAcceptor(channel, acceptHandler);
+        }
+
+        LOGGER.info("getty server started TCP on port {} with SO_REUSEPORT, listeners:{}, eventLoops:{}",
+                config.getPort(), reusePortChannels.size(), eventLoopGroup.size());
+        LOGGER.info("getty server config: {}", config);
+    }
+
+    /**
+     * 获取 SO_REUSEPORT 选项。JDK 9 之前的版本或不支持的平台返回 null。
+     */
+    @SuppressWarnings("unchecked")
+    private SocketOption<Boolean> reusePortOption() {
+        try {
+            SocketOption<Boolean> option = (SocketOption<Boolean>)
+                    StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+            try (ServerSocketChannel probe = config.getSelectorProvider().openServerSocketChannel()) {
+                if (probe.supportedOptions().contains(option)) {
+                    return option;
+                }
+            }
+        } catch (Exception e) {
+            // JDK 8 无 SO_REUSEPORT 字段
+        }
+        LOGGER.warn("SO_REUSEPORT is not supported on this platform/JDK, fallback to single acceptor");
+        return null;
+    }
+
+    /**
+     * 监听地址。
+     */
+    private InetSocketAddress bindAddress() {
+        return config.getHost() != null
+                ? new InetSocketAddress(config.getHost(), config.getPort())
+                : new InetSocketAddress(config.getPort());
+    }
+
     /**
      * accept 循环。接受新连接并分配到 EventLoop。
      */
     private void acceptLoop() {
         while (running) {
             try {
+                // select(0) 不超时，但被 wakeup（停止 accept 时）会返回 0，回到循环头重新检查 running
                 if (acceptSelector.select(0) <= 0) {
                     continue;
                 }
@@ -169,10 +280,12 @@ public class NioServerStarter extends NioStarter {
                     it.remove();
 
                     if (key.isAcceptable()) {
-                        java.nio.channels.SocketChannel socketChannel =
-                                ((ServerSocketChannel) key.channel()).accept();
+                        SocketChannel socketChannel = ((ServerSocketChannel) key.channel()).accept();
+                        if (socketChannel == null) {
+                            continue;
+                        }
                         socketChannel.configureBlocking(false);
-                        createTcpChannel(socketChannel);
+                        createTcpChannel(socketChannel, eventLoopGroup.next());
                     }
                 }
             } catch (Exception e) {
@@ -187,7 +300,7 @@ public class NioServerStarter extends NioStarter {
      * 启动 UDP 监听。
      */
     private void startUdp() throws IOException {
-        datagramChannel = DatagramChannel.open();
+        datagramChannel = config.getSelectorProvider().openDatagramChannel();
         datagramChannel.configureBlocking(false);
         datagramChannel.bind(new InetSocketAddress(config.getPort()));
 
@@ -199,7 +312,7 @@ public class NioServerStarter extends NioStarter {
             }
         }
 
-        acceptSelector = new SelectedSelector(Selector.open());
+        acceptSelector = new SelectedSelector(config.getSelectorProvider().openSelector());
         datagramChannel.register(acceptSelector.getSelector(), SelectionKey.OP_READ);
 
         UdpChannel udpChannel = new UdpChannel(datagramChannel, acceptSelector, config,
@@ -212,34 +325,83 @@ public class NioServerStarter extends NioStarter {
     }
 
     /**
-     * 为新连接创建 NioChannel（轮询分配到 EventLoop）。
+     * 为新连接创建 NioChannel 并绑定到指定 EventLoop。配置了连接限制时先做准入检查，被拒绝的连接直接以 RST 关闭。
      */
-    private void createTcpChannel(java.nio.channels.SocketChannel channel) {
+    private void createTcpChannel(SocketChannel channel, NioEventLoop loop) {
+        ConnectionLimiter.Permit permit = null;
+        if (connectionLimiter != null) {
+            permit = acquirePermit(channel);
+            if (permit == null) {
+                rejectChannel(channel);
+                return;
+            }
+        }
         try {
-            NioEventLoop loop = eventLoops.round();
+            if (config.isEpoll()) {
+                Epoll.applyQuickAck(channel);
+            }
             NioChannel nioChannel = new NioChannel(config, channel, loop, byteBufferPool, channelInitializer);
+            // 初始化或 NEW_CHANNEL 事件中已被关闭的通道会立即回调监听器，配额和活跃连接不会泄漏
+            if (permit != null) {
+                nioChannel.addChannelFutureListener(permit);
+            }
+            activeChannels.add(nioChannel);
             nioChannel.register();
         } catch (Exception e) {
             LOGGER.error("create NioChannel failed", e);
+            if (permit != null) {
+                permit.release();
+            }
             closeChannel(channel);
         }
     }
 
     /**
-     * 停止服务端。
+     * 为新连接申请连接配额。
+     *
+     * @return 配额凭证，被拒绝或无法获取远端地址时返回 null
      */
-    public final void shutdown() {
-        running = false;
-
-        // 先 wakeup 使 accept 线程退出阻塞
-        if (acceptSelector != null) {
-            acceptSelector.wakeup();
+    private ConnectionLimiter.Permit acquirePermit(SocketChannel channel) {
+        InetAddress address = null;
+        if (connectionLimiter.isPerIpLimited()) {
+            try {
+                address = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
+            } catch (IOException e) {
+                return null;
+            }
         }
+        return connectionLimiter.acquire(address);
+    }
 
-        if (serverSocketChannel != null) {
-            try { serverSocketChannel.close(); } catch (IOException e) { LOGGER.error("close serverSocketChannel failed", e); }
-            serverSocketChannel = null;
+    /**
+     * 优雅停止服务端。
+     * <p>
+     * 立即停止接受新连接，然后等待已有连接处理完请求并写完待发送的数据：
+     * 没有待写数据且 quietPeriod 内没有新请求的连接先被关闭，到达 timeout 后强制关闭剩余连接，
+     * 最后停止事件循环。
+     * </p>
+     *
+     * @param quietPeriod 连接空闲判定时长
+     * @param timeout     最长等待时间，不小于 quietPeriod
+     * @param unit        时间单位
+     * @return 超时后被强制关闭的连接数
+     */
+    public final int shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        checkGracefulArgs(quietPeriod, timeout, unit);
+        stopAccept();
+        int forced = closeChannelsGracefully(quietPeriod, timeout, unit);
+        shutdown();
+        if (forced > 0) {
+            LOGGER.warn("getty server shutdown gracefully, {} channels forcibly closed", forced);
         }
+        return forced;
+    }
+
+    /**
+     * 停止服务端。
+     */
+    public final void shutdown() {
+        stopAccept();
 
         if (datagramChannel != null) {
             try { datagramChannel.close(); } catch (IOException e) { LOGGER.error("close datagramChannel failed", e); }
@@ -251,10 +413,34 @@ public class NioServerStarter extends NioStarter {
             acceptSelector = null;
         }
 
-        for (NioEventLoop loop : eventLoops) {
-            loop.shutdown();
+        if (ownEventLoopGroup && eventLoopGroup != null) {
+            eventLoopGroup.shutdown();
+            eventLoopGroup = null;
+            ownEventLoopGroup = false;
         }
 
         LOGGER.info("getty server shutdown");
     }
+
+    /**
+     * 停止接受新连接：退出 accept 循环并关闭监听通道，已建立的连接不受影响。
+     */
+    private void stopAccept() {
+        running = false;
+
+        // 先 wakeup 使 accept 线程退出阻塞
+        if (acceptSelector != null) {
+            acceptSelector.wakeup();
+        }
+
+        if (serverSocketChannel != null) {
+            try { serverSocketChannel.close(); } catch (IOException e) { LOGGER.error("close serverSocketChannel failed", e); }
+            serverSocketChannel = null;
+        }
+
+        for (ServerSocketChannel channel : reusePortChannels) {
+            try { channel.close(); } catch (IOException e) { LOGGER.error("close serverSocketChannel failed", e); }
+        }
+        reusePortChannels.clear();
+    }
 }
@@ -16,14 +16,19 @@
 package com.gettyio.core.channel.starter;
 
 import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.channel.AbstractSocketChannel;
 import com.gettyio.core.channel.config.GettyConfig;
+import com.gettyio.core.channel.group.ChannelGroup;
+import com.gettyio.core.channel.group.DefaultChannelGroup;
 import com.gettyio.core.logging.InternalLogger;
 import com.gettyio.core.logging.InternalLoggerFactory;
 import com.gettyio.core.pipeline.ChannelInitializer;
 import com.gettyio.core.util.thread.ThreadPool;
 
 import java.io.IOException;
+import java.net.StandardSocketOptions;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 所有 Starter（AIO / NIO 客户端和服务端）的公共基类。
@@ -37,13 +42,16 @@ public abstract class Starter {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(Starter.class);
 
+    /** 优雅停机时检查连接空闲状态的间隔 */
+    private static final long GRACEFUL_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     /**
      * Boss 线程数。CPU 核心 < 4 时设为 3，否则等于核心数。
      */
     protected int bossThreadNum = Math.max(3, Runtime.getRuntime().availableProcessors());
 
     /**
-     * Worker 线程数。根据 CPU 核心数自动调整。
+     * Worker 线程数。根据 CPU 核心数自动调整，NIO 服务端可通过 workerThreadNum(int) 指定。
      */
     protected int workerThreadNum = bossThreadNum - (bossThreadNum > 4 ? bossThreadNum >> 2 : bossThreadNum - 2);
 
@@ -56,6 +64,12 @@ public abstract class Starter {
     /** 管道初始化器 */
     protected ChannelInitializer channelInitializer;
 
+    /** 服务端连接准入控制，未配置限制时为 null */
+    protected ConnectionLimiter connectionLimiter;
+
+    /** 服务端已建立的连接，关闭时自动移除，用于优雅停机 */
+    protected final ChannelGroup activeChannels = new DefaultChannelGroup("getty-active-channels");
+
     // ==================== 启动校验 ====================
 
     /**
@@ -81,21 +95,126 @@ public abstract class Starter {
         if (config.getPort() == 0) {
             throw new NullPointerException("port can't be 0");
         }
+        if (config.getBacklog() <= 0) {
+            throw new IllegalArgumentException("backlog must be greater than 0");
+        }
+        if (config.isAdaptiveReadBuffer() && (config.getMinReadBufferSize() <= 0
+                || config.getMinReadBufferSize() > config.getReadBufferSize()
+                || config.getReadBufferSize() > config.getMaxReadBufferSize())) {
+            throw new IllegalArgumentException(
+                    "adaptive read buffer requires 0 < minReadBufferSize <= readBufferSize <= maxReadBufferSize");
+        }
         if (channelInitializer == null) {
             throw new RuntimeException("channelInitializer can't be null");
         }
         if (config.isFlowControl()) {
+            if (config.getHighWaterMark() <= 0 || config.getLowWaterMark() < 0) {
+                throw new IllegalArgumentException("highWaterMark must be greater than 0 and lowWaterMark must not be negative");
+            }
             if (config.getLowWaterMark() >= config.getHighWaterMark()) {
                 throw new RuntimeException("lowWaterMark must be smaller than highWaterMark");
             }
-            if (config.getHighWaterMark() >= config.getBufferWriterQueueSize()) {
+            if (config.getHighWaterMark() > config.getBufferWriterQueueSize()) {
                 LOGGER.warn("highWaterMark is meaningless if greater than bufferWriterQueueSize");
             }
+        } else if (!config.isWaterMarkValid()) {
+            // 未开启流控时水位线只用于可写状态通知，不合法的旧配置不阻止启动，仅关闭可写状态跟踪
+            LOGGER.warn("invalid water marks (highWaterMark: {}, lowWaterMark: {}), writability tracking disabled",
+                    config.getHighWaterMark(), config.getLowWaterMark());
+        }
+    }
+
+    // ==================== 优雅停机 ====================
+
+    /**
+     * 优雅停机参数校验。
+     */
+    protected static void checkGracefulArgs(long quietPeriod, long timeout, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit can't be null");
+        }
+        if (quietPeriod < 0) {
+            throw new IllegalArgumentException("quietPeriod: " + quietPeriod + " (expected >= 0)");
+        }
+        if (timeout < quietPeriod) {
+            throw new IllegalArgumentException(
+                    "timeout: " + timeout + " (expected >= quietPeriod (" + quietPeriod + "))");
         }
     }
 
+    /**
+     * 逐步关闭 {@link #activeChannels} 中的连接，调用前应已停止接受新连接。
+     * <p>
+     * 先刷新所有连接的写缓冲区，之后每轮关闭已空闲的连接：没有待写出的数据，且最近 quietPeriod 内没有读取。
+     * 仍在收发数据的连接继续等待，到达超时后强制关闭剩余连接。
+     * </p>
+     *
+     * @param quietPeriod 空闲判定时长
+     * @param timeout     最长等待时间
+     * @param unit        时间单位
+     * @return 超时后被强制关闭的连接数
+     */
+    protected final int closeChannelsGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        long quietNanos = unit.toNanos(quietPeriod);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (AbstractSocketChannel channel : activeChannels) {
+            channel.flush();
+        }
+
+        while (!activeChannels.isEmpty()) {
+            long now = System.nanoTime();
+            for (AbstractSocketChannel channel : activeChannels) {
+                if (channel.isInvalid()) {
+                    activeChannels.remove(channel);
+                } else if (!channel.hasPendingWrites() && now - channel.lastReadNanos() >= quietNanos) {
+                    channel.close();
+                }
+            }
+            long remaining = deadline - System.nanoTime();
+            if (activeChannels.isEmpty() || remaining <= 0) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, GRACEFUL_CHECK_INTERVAL_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        int forced = 0;
+        for (AbstractSocketChannel channel : activeChannels) {
+            if (!channel.isInvalid()) {
+                channel.close();
+                forced++;
+            }
+        }
+        activeChannels.clear();
+        return forced;
+    }
+
     // ==================== 工具方法 ====================
 
+    /**
+     * 获取连接准入控制器，可用于查询当前连接数和拒绝数。
+     *
+     * @return 准入控制器，未配置连接数或建连速率限制时为 null
+     */
+    public ConnectionLimiter getConnectionLimiter() {
+        return connectionLimiter;
+    }
+
+    /**
+     * 以 RST 关闭被拒绝的连接（SO_LINGER=0），不进入 TIME_WAIT。
+     *
+     * @param channel 被拒绝的连接
+     */
+    protected static void rejectChannel(SocketChannel channel) {
+        try { channel.setOption(StandardSocketOptions.SO_LINGER, 0); } catch (IOException e) { /* ignore */ }
+        try { channel.close(); } catch (IOException e) { /* ignore */ }
+    }
+
     /**
      * 安全关闭 SocketChannel。
      *
@@ -15,6 +15,7 @@
  */
 package com.gettyio.core.handler.ssl;
 
+import com.gettyio.core.buffer.FileRegion;
 import com.gettyio.core.buffer.pool.PooledByteBuffer;
 import com.gettyio.core.handler.ssl.facade.SSLFacade;
 import com.gettyio.core.logging.InternalLogger;
@@ -95,6 +96,10 @@ public class SSLHandler extends ChannelAllBoundHandlerAdapter {
 
     @Override
     public void channelWrite(ChannelHandlerContext ctx, Object obj) throws Exception {
+        if (obj instanceof FileRegion) {
+            encryptFileRegion(ctx, (FileRegion) obj);
+            return;
+        }
         PooledByteBuffer buf = (PooledByteBuffer) obj;
         if (!ssl.isHandshakeCompleted()) {
             processHandshake(buf);
@@ -103,6 +108,24 @@ public class SSLHandler extends ChannelAllBoundHandlerAdapter {
         }
     }
 
+    /**
+     * 文件区域无法零拷贝发送，逐块读入池化缓冲区加密后写出，读完后释放区域。
+     */
+    private void encryptFileRegion(ChannelHandlerContext ctx, FileRegion region) throws Exception {
+        try {
+            PooledByteBuffer chunk;
+            while ((chunk = region.readChunk(ctx.channel().getByteBufferPool(), FileRegion.DEFAULT_CHUNK_SIZE)) != null) {
+                try {
+                    ssl.encrypt(chunk);
+                } finally {
+                    chunk.release();
+                }
+            }
+        } finally {
+            region.release();
+        }
+    }
+
     // ---- 入站：解密网络数据 ----
 
     @Override
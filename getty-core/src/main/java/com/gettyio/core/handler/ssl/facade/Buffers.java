@@ -157,6 +157,9 @@ class Buffers {
             ByteBuffer plainBuf = growIfNecessary(BufferType.OUT_PLAIN, data.limit());
             plainBuf.put(data);
             plainBuf.flip();
+        } else {
+            // 仅握手 wrap：明文缓冲区置为空，避免被当作应用数据加密
+            get(BufferType.OUT_PLAIN).flip();
         }
     }
 
@@ -110,28 +110,32 @@ class Worker {
 
     /**
      * 执行 SSLEngine.wrap() 并处理结果状态。
+     * <p>
+     * 每次 wrap 最多产生一条 TLS 记录（明文不超过 16KB），明文有剩余时循环 wrap，
+     * 每条记录产生后立即通过回调传出并清空密文缓冲区。
+     * </p>
      */
     private SSLEngineResult doWrap() throws SSLException {
-        SSLEngineResult result = engine.wrap(
-                buffers.get(BufferType.OUT_PLAIN),
-                buffers.get(BufferType.OUT_CIPHER));
+        ByteBuffer plainBuf = buffers.get(BufferType.OUT_PLAIN);
+        SSLEngineResult result;
+        while (true) {
+            result = engine.wrap(plainBuf, buffers.get(BufferType.OUT_CIPHER));
 
-        emitWrappedData(result);
+            emitWrappedData(result);
+            buffers.get(BufferType.OUT_CIPHER).clear();
 
-        SSLEngineResult.Status status = result.getStatus();
-        if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
-            throw new SSLException("BUFFER_UNDERFLOW during wrap");
-        } else if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
-            buffers.grow(BufferType.OUT_CIPHER);
-            ByteBuffer plainBuf = buffers.get(BufferType.OUT_PLAIN);
-            // engine.wrap() 后 position/limit 已精确标记剩余数据，直接传递，无需 slice 拷贝
-            if (plainBuf.hasRemaining()) {
-                wrap(plainBuf);
+            SSLEngineResult.Status status = result.getStatus();
+            if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                throw new SSLException("BUFFER_UNDERFLOW during wrap");
+            } else if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                buffers.grow(BufferType.OUT_CIPHER);
+            } else if (status == SSLEngineResult.Status.CLOSED) {
+                notifySessionClosed();
+                return result;
+            } else if (!plainBuf.hasRemaining() || result.bytesConsumed() == 0) {
+                return result;
             }
-        } else if (status == SSLEngineResult.Status.CLOSED) {
-            notifySessionClosed();
         }
-        return result;
     }
 
     /**
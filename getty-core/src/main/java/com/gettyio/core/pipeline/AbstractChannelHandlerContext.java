@@ -22,7 +22,8 @@ import com.gettyio.core.channel.ChannelState;
  * <p>
  * 实现双向链表结构，并根据事件类型决定传播方向：
  * <ul>
- *   <li><b>入站事件</b>（NEW_CHANNEL / CHANNEL_CLOSED / CHANNEL_READ / CHANNEL_EVENT / CHANNEL_EXCEPTION）：
+ *   <li><b>入站事件</b>（NEW_CHANNEL / CHANNEL_CLOSED / CHANNEL_READ / CHANNEL_WRITABILITY_CHANGED /
+ *       CHANNEL_EVENT / CHANNEL_EXCEPTION）：
  *       沿 next 方向向尾传播</li>
  *   <li><b>出站事件</b>（CHANNEL_WRITE）：沿 prev 方向向头传播，
  *       到达头节点时自动调用 {@code channel().writeToSocket(obj)} 写入底层通道</li>
@@ -93,6 +94,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext {
         try {
             handler().channelProcess(this, channelState, in);
         } catch (Exception e) {
+            if (channelState == ChannelState.CHANNEL_WRITE) {
+                // 消息未能到达写队列，跟踪写出结果的调用方据此失败
+                channel().writeFailed(e);
+            }
             propagateException(e);
         }
     }
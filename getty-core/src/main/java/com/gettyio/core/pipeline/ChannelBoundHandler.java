@@ -15,6 +15,7 @@
  */
 package com.gettyio.core.pipeline;
 
+import com.gettyio.core.channel.ChannelState;
 import com.gettyio.core.constant.IdleState;
 
 /**
@@ -26,7 +27,7 @@ import com.gettyio.core.constant.IdleState;
  *
  * <p>事件流向：</p>
  * <ul>
- *   <li><b>入站事件</b>（连接建立、数据读取、连接关闭、异常、心跳）沿链表从头向尾传播</li>
+ *   <li><b>入站事件</b>（连接建立、数据读取、连接关闭、可写状态变化、异常、心跳）沿链表从头向尾传播</li>
  *   <li><b>出站事件</b>（数据写入）沿链表从尾向头传播</li>
  * </ul>
  */
@@ -69,6 +70,21 @@ public interface ChannelBoundHandler extends ChannelHandler {
      */
     void channelWrite(ChannelHandlerContext ctx, Object obj) throws Exception;
 
+    /**
+     * 可写状态变化事件。当通道待写字节数达到高水位线或降至低水位线时触发。
+     * <p>
+     * 当前状态通过 {@code ctx.channel().isWriteable()} 获取。代理、广播等场景可在不可写时
+     * 暂停上游读取，恢复可写后再继续，避免慢消费者导致内存无限增长。
+     * 默认实现直接向后传播，已有的处理器实现无需修改。
+     * </p>
+     *
+     * @param ctx 通道上下文
+     * @throws Exception 处理过程中发生错误时抛出
+     */
+    default void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        ctx.fireChannelProcess(ChannelState.CHANNEL_WRITABILITY_CHANGED, null);
+    }
+
     /**
      * 异常捕获事件。当通道处理过程中发生异常时触发。
      *
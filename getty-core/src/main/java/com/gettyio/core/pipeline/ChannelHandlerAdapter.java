@@ -74,6 +74,9 @@ public abstract class ChannelHandlerAdapter implements ChannelBoundHandler {
             case CHANNEL_WRITE:
                 channelWrite(ctx, in);
                 break;
+            case CHANNEL_WRITABILITY_CHANGED:
+                channelWritabilityChanged(ctx);
+                break;
             case CHANNEL_EVENT:
                 userEventTriggered(ctx, (IdleState) in);
                 break;
@@ -121,6 +124,14 @@ public abstract class ChannelHandlerAdapter implements ChannelBoundHandler {
         ctx.fireChannelProcess(ChannelState.CHANNEL_WRITE, obj);
     }
 
+    /**
+     * 可写状态变化事件默认实现：直接向后传播。
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        ctx.fireChannelProcess(ChannelState.CHANNEL_WRITABILITY_CHANGED, null);
+    }
+
     /**
      * 异常捕获事件默认实现：直接向后传播。
      */
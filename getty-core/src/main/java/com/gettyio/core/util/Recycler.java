@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.util;
+
+import com.gettyio.core.util.queue.MpscLinkedQueue;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 轻量级线程本地对象回收器。
+ * <p>
+ * 为高频创建的短生命周期包装对象（如池化缓冲区的 {@code PooledByteBuffer}、线程缓存的条目）
+ * 提供对象复用：{@link #get()} 优先从当前线程的栈中取出回收过的对象，
+ * 对象通过创建时得到的 {@link Handle} 回收。每线程栈有容量上限，超出时对象交给 GC。
+ * </p>
+ * <p>
+ * 对象总是归还到创建它的线程（owner）的栈：owner 线程回收时直接压栈，其他线程回收时放入该栈的
+ * MPSC 归还队列，owner 线程的栈为空时批量取回。生产者线程分配、消费者线程释放的场景下，
+ * 对象因此能回到生产者线程被再次复用。owner 线程已退出时跨线程回收的对象直接交给 GC。
+ * </p>
+ * <p>
+ * 对象被回收前必须清除对外部资源的引用，回收后调用方不得再持有或访问该对象。
+ * 同一对象在再次被 {@link #get()} 取出之前重复回收会抛出 {@link IllegalStateException}，
+ * 避免同一对象同时交给两个使用方。
+ * 每线程容量可通过系统属性 {@value #MAX_CAPACITY_PROPERTY} 调整，设为 0 时关闭回收。
+ * </p>
+ *
+ * @param <T> 回收对象类型
+ * @author gogym
+ */
+public abstract class Recycler<T> {
+
+    /**
+     * 每线程最大缓存对象数的系统属性名。
+     */
+    public static final String MAX_CAPACITY_PROPERTY = "getty.recycler.maxCapacityPerThread";
+
+    /**
+     * 默认每线程最大缓存对象数。
+     */
+    private static final int DEFAULT_MAX_CAPACITY_PER_THREAD =
+            Math.max(0, SystemPropertyUtil.getInt(MAX_CAPACITY_PROPERTY, 4096));
+
+    /**
+     * 回收关闭时使用的句柄，回收操作为空操作。
+     */
+    @SuppressWarnings("rawtypes")
+    private static final Handle NOOP_HANDLE = object -> {
+        // 回收已关闭
+    };
+
+    /**
+     * 每线程最大缓存对象数。
+     */
+    private final int maxCapacityPerThread;
+
+    /**
+     * 每线程的对象栈。
+     */
+    private final ThreadLocal<Stack<T>> stacks = new ThreadLocal<Stack<T>>() {
+        @Override
+        protected Stack<T> initialValue() {
+            return new Stack<>(Thread.currentThread(), maxCapacityPerThread);
+        }
+    };
+
+    protected Recycler() {
+        this(DEFAULT_MAX_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * @param maxCapacityPerThread 每线程最大缓存对象数，0 表示不回收
+     */
+    protected Recycler(int maxCapacityPerThread) {
+        if (maxCapacityPerThread < 0) {
+            throw new IllegalArgumentException("maxCapacityPerThread: " + maxCapacityPerThread + " (expected: >= 0)");
+        }
+        this.maxCapacityPerThread = maxCapacityPerThread;
+    }
+
+    /**
+     * 获取一个对象：优先复用归还到当前线程的对象，否则调用 {@link #newObject(Handle)} 创建。
+     *
+     * @return 对象
+     */
+    @SuppressWarnings("unchecked")
+    public final T get() {
+        if (maxCapacityPerThread == 0) {
+            return newObject((Handle<T>) NOOP_HANDLE);
+        }
+        Stack<T> stack = stacks.get();
+        DefaultHandle<T> handle = stack.pop();
+        if (handle == null) {
+            handle = new DefaultHandle<>(stack);
+            handle.value = newObject(handle);
+        }
+        return handle.value;
+    }
+
+    /**
+     * @return 当前线程栈中缓存的对象数量（不含尚未取回的跨线程归还对象）
+     */
+    public final int threadLocalSize() {
+        return maxCapacityPerThread == 0 ? 0 : stacks.get().elements.size();
+    }
+
+    /**
+     * 创建新对象。对象应保存 handle，回收时调用 {@link Handle#recycle(Object)}。
+     *
+     * @param handle 回收句柄
+     * @return 新对象
+     */
+    protected abstract T newObject(Handle<T> handle);
+
+    /**
+     * 回收句柄，与对象一一对应。
+     *
+     * @param <T> 回收对象类型
+     */
+    public interface Handle<T> {
+
+        /**
+         * 回收对象到其 owner 线程的栈。调用方须保证对象已清理，且不再持有或访问它。
+         *
+         * @param object 句柄对应的对象
+         * @throws IllegalStateException 对象已被回收、尚未重新取出时抛出
+         */
+        void recycle(T object);
+    }
+
+    /**
+     * 默认回收句柄。state 标记对象是否在使用中，重复回收时 CAS 失败。
+     */
+    private static final class DefaultHandle<T> implements Handle<T> {
+
+        private static final int IN_USE = 0;
+        private static final int RECYCLED = 1;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<DefaultHandle> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(DefaultHandle.class, "state");
+
+        private final Stack<T> stack;
+
+        private T value;
+
+        private volatile int state = IN_USE;
+
+        DefaultHandle(Stack<T> stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public void recycle(T object) {
+            if (object != value) {
+                throw new IllegalArgumentException("object does not belong to this handle");
+            }
+            if (!STATE_UPDATER.compareAndSet(this, IN_USE, RECYCLED)) {
+                throw new IllegalStateException("recycled already");
+            }
+            stack.push(this);
+        }
+    }
+
+    /**
+     * 线程的对象栈。本地栈只由 owner 线程访问，其他线程通过 MPSC 队列归还。
+     */
+    private static final class Stack<T> {
+
+        private final Thread owner;
+
+        private final int maxCapacity;
+
+        private final ArrayDeque<DefaultHandle<T>> elements;
+
+        /** 其他线程归还的对象 */
+        private final MpscLinkedQueue<DefaultHandle<T>> foreign = new MpscLinkedQueue<>();
+
+        /** 归还队列中的对象数，与本地栈共用容量上限 */
+        private final AtomicInteger foreignSize = new AtomicInteger();
+
+        Stack(Thread owner, int maxCapacity) {
+            this.owner = owner;
+            this.maxCapacity = maxCapacity;
+            this.elements = new ArrayDeque<>(Math.min(maxCapacity, 256));
+        }
+
+        void push(DefaultHandle<T> handle) {
+            if (Thread.currentThread() == owner) {
+                if (elements.size() < maxCapacity) {
+                    elements.addLast(handle);
+                }
+                // 栈已满，对象交给 GC
+                return;
+            }
+            if (!owner.isAlive()) {
+                return;
+            }
+            if (foreignSize.incrementAndGet() > maxCapacity) {
+                foreignSize.decrementAndGet();
+                return;
+            }
+            foreign.offer(handle);
+        }
+
+        DefaultHandle<T> pop() {
+            DefaultHandle<T> handle = elements.pollLast();
+            if (handle == null && foreignSize.get() > 0) {
+                handle = scavenge();
+            }
+            if (handle != null) {
+                handle.state = DefaultHandle.IN_USE;
+            }
+            return handle;
+        }
+
+        /**
+         * 将其他线程归还的对象取回本地栈，返回其中一个。
+         */
+        private DefaultHandle<T> scavenge() {
+            DefaultHandle<T> handle;
+            while ((handle = foreign.poll()) != null) {
+                foreignSize.decrementAndGet();
+                if (elements.size() < maxCapacity) {
+                    elements.addLast(handle);
+                }
+            }
+            return elements.pollLast();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.util;
+
+import com.gettyio.core.logging.InternalLogger;
+import com.gettyio.core.logging.InternalLoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 资源泄漏检测器。
+ * <p>
+ * 按采样比例为新分配的资源（如池化缓冲区）创建虚引用跟踪句柄。资源正确释放时调用
+ * {@link ResourceLeakTracker#close(Object)} 停止跟踪；若资源在释放前就被 GC 回收，
+ * 虚引用进入引用队列，下一次采样时检测器从队列中取出并通过 {@link InternalLogger} 报告泄漏，
+ * ADVANCED 及以上级别同时输出分配位置和最近的访问记录，用于定位忘记 release() 的代码。
+ * </p>
+ *
+ * <h3>检测级别：</h3>
+ * <ul>
+ *   <li>{@link Level#DISABLED}：关闭检测</li>
+ *   <li>{@link Level#SIMPLE}：按采样间隔跟踪，只创建虚引用，不采集任何调用栈，
+ *       泄漏报告只说明发生了泄漏，可在生产环境常开（默认）</li>
+ *   <li>{@link Level#ADVANCED}：按采样间隔跟踪，记录分配位置和最近的 retain/release/touch 调用栈</li>
+ *   <li>{@link Level#PARANOID}：跟踪每一个对象并记录访问调用栈，仅用于测试</li>
+ * </ul>
+ * <p>
+ * 级别、采样间隔和保留的访问记录数分别通过系统属性 {@value #PROP_LEVEL}、
+ * {@value #PROP_SAMPLING_INTERVAL}、{@value #PROP_TARGET_RECORDS} 配置，
+ * 级别也可以在运行时通过 {@link #setLevel(Level)} 修改。
+ * </p>
+ *
+ * @param <T> 被跟踪的资源类型
+ * @author gogym
+ */
+public class ResourceLeakDetector<T> {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
+
+    /**
+     * 检测级别的系统属性名。
+     */
+    public static final String PROP_LEVEL = "getty.leakDetection.level";
+
+    /**
+     * 采样间隔的系统属性名：平均每 N 个对象跟踪一个。
+     */
+    public static final String PROP_SAMPLING_INTERVAL = "getty.leakDetection.samplingInterval";
+
+    /**
+     * 每个对象保留的访问记录数的系统属性名。
+     */
+    public static final String PROP_TARGET_RECORDS = "getty.leakDetection.targetRecords";
+
+    private static final int DEFAULT_SAMPLING_INTERVAL = 128;
+
+    private static final int DEFAULT_TARGET_RECORDS = 4;
+
+    /**
+     * 检测级别。
+     */
+    public enum Level {
+        /**
+         * 关闭检测。
+         */
+        DISABLED,
+        /**
+         * 采样跟踪，不记录调用栈。
+         */
+        SIMPLE,
+        /**
+         * 采样跟踪，记录分配位置和最近的访问调用栈。
+         */
+        ADVANCED,
+        /**
+         * 跟踪所有对象，记录最近的访问调用栈。
+         */
+        PARANOID;
+
+        /**
+         * 解析级别名称（忽略大小写），无法识别时返回 {@link #SIMPLE}。
+         */
+        static Level parseLevel(String value) {
+            if (value != null) {
+                String trimmed = value.trim();
+                for (Level level : values()) {
+                    if (level.name().equalsIgnoreCase(trimmed)) {
+                        return level;
+                    }
+                }
+            }
+            return SIMPLE;
+        }
+    }
+
+    private static volatile Level level = Level.parseLevel(SystemPropertyUtil.get(PROP_LEVEL, Level.SIMPLE.name()));
+
+    private static final int TARGET_RECORDS =
+            Math.max(1, SystemPropertyUtil.getInt(PROP_TARGET_RECORDS, DEFAULT_TARGET_RECORDS));
+
+    /**
+     * 设置全局检测级别。
+     *
+     * @param level 检测级别
+     */
+    public static void setLevel(Level level) {
+        if (level == null) {
+            throw new NullPointerException("level");
+        }
+        ResourceLeakDetector.level = level;
+    }
+
+    /**
+     * @return 当前全局检测级别
+     */
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return 是否开启检测
+     */
+    public static boolean isEnabled() {
+        return level.ordinal() > Level.DISABLED.ordinal();
+    }
+
+    /**
+     * 调用方可据此跳过提示信息的拼接，SIMPLE 级别下 {@link ResourceLeakTracker#record(Object)} 不做任何事。
+     *
+     * @return 是否记录访问调用栈（ADVANCED 及以上）
+     */
+    public static boolean isRecordingAccess() {
+        return level.ordinal() >= Level.ADVANCED.ordinal();
+    }
+
+    /**
+     * 所有存活（尚未关闭）的跟踪句柄，防止虚引用本身在对象回收前被 GC。
+     */
+    private final Set<DefaultResourceLeak> allLeaks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 对象被回收后虚引用进入的队列。
+     */
+    private final ReferenceQueue<Object> refQueue = new ReferenceQueue<>();
+
+    /**
+     * 已报告过的泄漏记录，相同调用栈只报告一次。
+     */
+    private final Set<String> reportedLeaks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 资源类型名称，用于报告。
+     */
+    private final String resourceType;
+
+    /**
+     * 采样间隔。
+     */
+    private final int samplingInterval;
+
+    /**
+     * @param resourceType 被跟踪的资源类型
+     */
+    public ResourceLeakDetector(Class<?> resourceType) {
+        this(resourceType, SystemPropertyUtil.getInt(PROP_SAMPLING_INTERVAL, DEFAULT_SAMPLING_INTERVAL));
+    }
+
+    /**
+     * @param resourceType     被跟踪的资源类型
+     * @param samplingInterval 采样间隔，平均每 samplingInterval 个对象跟踪一个
+     */
+    public ResourceLeakDetector(Class<?> resourceType, int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("samplingInterval: " + samplingInterval + " (expected: > 0)");
+        }
+        this.resourceType = resourceType.getSimpleName();
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * 为新分配的对象创建跟踪句柄，未被采样或检测关闭时返回 null。
+     * 对象释放时必须调用 {@link ResourceLeakTracker#close(Object)}。
+     *
+     * @param obj 新分配的对象
+     * @return 跟踪句柄，或 null
+     */
+    public final ResourceLeakTracker<T> track(T obj) {
+        Level level = ResourceLeakDetector.level;
+        if (level == Level.DISABLED) {
+            return null;
+        }
+        if (level.ordinal() < Level.PARANOID.ordinal()
+                && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return null;
+        }
+        reportLeak();
+        return new DefaultResourceLeak(obj, level);
+    }
+
+    /**
+     * 取出已被回收但未关闭的跟踪句柄并报告泄漏。
+     * refQueue 只会入队本检测器创建的 DefaultResourceLeak，转换是安全的。
+     */
+    @SuppressWarnings("unchecked")
+    private void reportLeak() {
+        for (; ; ) {
+            DefaultResourceLeak ref = (DefaultResourceLeak) refQueue.poll();
+            if (ref == null) {
+                break;
+            }
+            if (!ref.dispose()) {
+                continue;
+            }
+            if (!ref.hasTrace()) {
+                // 没有调用栈可供去重，每个被采样的泄漏都报告一次
+                reportUntracedLeak(resourceType);
+                continue;
+            }
+            String records = ref.toString();
+            if (reportedLeaks.add(records)) {
+                reportTracedLeak(resourceType, records);
+            }
+        }
+    }
+
+    /**
+     * 报告一次泄漏，子类可覆盖以接入其他告警方式。
+     *
+     * @param resourceType 资源类型名称
+     * @param records      分配位置与访问记录
+     */
+    protected void reportTracedLeak(String resourceType, String records) {
+        LOGGER.error("LEAK: {}.release() was not called before it's garbage-collected.{}", resourceType, records);
+    }
+
+    /**
+     * 报告一次没有调用栈的泄漏（SIMPLE 级别），子类可覆盖以接入其他告警方式。
+     *
+     * @param resourceType 资源类型名称
+     */
+    protected void reportUntracedLeak(String resourceType) {
+        LOGGER.error("LEAK: {}.release() was not called before it's garbage-collected. "
+                + "Set -D{}=advanced to see where it was allocated and accessed.", resourceType, PROP_LEVEL);
+    }
+
+    /**
+     * @return 当前存活的跟踪句柄数量
+     */
+    public int trackedCount() {
+        return allLeaks.size();
+    }
+
+    /**
+     * 基于虚引用的跟踪句柄。
+     */
+    private final class DefaultResourceLeak extends PhantomReference<Object> implements ResourceLeakTracker<T> {
+
+        /**
+         * 被跟踪对象的 identityHashCode，用于校验 close() 的参数。
+         */
+        private final int trackedHash;
+
+        /**
+         * 是否记录访问调用栈（ADVANCED 及以上）。
+         */
+        private final boolean recordAccess;
+
+        /**
+         * 分配位置，SIMPLE 级别为 null。
+         */
+        private final TraceRecord creation;
+
+        /**
+         * 最近的访问记录，超过 TARGET_RECORDS 时丢弃最旧的。
+         */
+        private final ArrayDeque<TraceRecord> records;
+
+        /**
+         * 被丢弃的访问记录数。
+         */
+        private int droppedRecords;
+
+        DefaultResourceLeak(Object referent, Level level) {
+            super(referent, refQueue);
+            this.trackedHash = System.identityHashCode(referent);
+            this.recordAccess = level.ordinal() >= Level.ADVANCED.ordinal();
+            this.creation = recordAccess ? new TraceRecord(null, "Created at:") : null;
+            this.records = recordAccess ? new ArrayDeque<TraceRecord>(TARGET_RECORDS) : null;
+            allLeaks.add(this);
+        }
+
+        @Override
+        public void record() {
+            record0(null);
+        }
+
+        @Override
+        public void record(Object hint) {
+            record0(hint);
+        }
+
+        private void record0(Object hint) {
+            if (!recordAccess) {
+                return;
+            }
+            TraceRecord record = new TraceRecord(hint, null);
+            synchronized (this) {
+                if (records.size() >= TARGET_RECORDS) {
+                    records.pollFirst();
+                    droppedRecords++;
+                }
+                records.addLast(record);
+            }
+        }
+
+        /**
+         * @return 是否采集了调用栈
+         */
+        boolean hasTrace() {
+            return creation != null;
+        }
+
+        /**
+         * 从存活集合中移除。
+         *
+         * @return true 表示此前尚未关闭
+         */
+        boolean dispose() {
+            clear();
+            return allLeaks.remove(this);
+        }
+
+        @Override
+        public boolean close(T trackedObject) {
+            if (System.identityHashCode(trackedObject) != trackedHash) {
+                throw new IllegalArgumentException("close() called with a different object");
+            }
+            return dispose();
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder(2048);
+            String nl = System.lineSeparator();
+            sb.append(nl).append("Recent access records: ");
+            if (records == null || records.isEmpty()) {
+                sb.append("none").append(nl);
+            } else {
+                sb.append(records.size()).append(nl);
+                // 最新的记录先输出
+                TraceRecord[] array = records.toArray(new TraceRecord[0]);
+                for (int j = array.length - 1; j >= 0; j--) {
+                    sb.append('#').append(j + 1).append(':').append(nl).append(array[j]);
+                }
+                if (droppedRecords > 0) {
+                    sb.append(droppedRecords).append(" older access records were discarded (")
+                            .append(PROP_TARGET_RECORDS).append('=').append(TARGET_RECORDS).append(')').append(nl);
+                }
+            }
+            sb.append(creation);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 一次访问或分配的调用栈记录。
+     */
+    private static final class TraceRecord extends Throwable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String hintString;
+
+        private final String title;
+
+        TraceRecord(Object hint, String title) {
+            this.hintString = hint == null ? null : hint.toString();
+            this.title = title;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(1024);
+            String nl = System.lineSeparator();
+            if (title != null) {
+                sb.append(title).append(nl);
+            }
+            if (hintString != null) {
+                sb.append("\tHint: ").append(hintString).append(nl);
+            }
+            StackTraceElement[] elements = getStackTrace();
+            // 跳过检测器和跟踪句柄自身的栈帧
+            int start = 0;
+            while (start < elements.length && isInternalFrame(elements[start])) {
+                start++;
+            }
+            for (int i = start; i < elements.length; i++) {
+                sb.append('\t').append(elements[i]).append(nl);
+            }
+            return sb.toString();
+        }
+
+        private static boolean isInternalFrame(StackTraceElement element) {
+            String className = element.getClassName();
+            return className.startsWith(ResourceLeakDetector.class.getName());
+        }
+    }
+}
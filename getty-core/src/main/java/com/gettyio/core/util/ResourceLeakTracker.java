@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.util;
+
+/**
+ * 资源泄漏跟踪句柄，由 {@link ResourceLeakDetector#track(Object)} 为被采样的对象创建。
+ *
+ * @param <T> 被跟踪的资源类型
+ * @author gogym
+ */
+public interface ResourceLeakTracker<T> {
+
+    /**
+     * 记录一次访问（不带提示信息）。仅在 ADVANCED 及以上级别保存调用栈。
+     */
+    void record();
+
+    /**
+     * 记录一次访问。仅在 ADVANCED 及以上级别保存调用栈。
+     *
+     * @param hint 附加提示信息，报告泄漏时随调用栈输出
+     */
+    void record(Object hint);
+
+    /**
+     * 资源已正确释放，停止跟踪。
+     *
+     * @param trackedObject 被跟踪的对象，必须与创建跟踪句柄时传入的对象相同
+     * @return true 表示首次关闭
+     */
+    boolean close(T trackedObject);
+}
@@ -77,4 +77,23 @@ public final class SystemPropertyUtil {
 
         return value != null ? value : def;
     }
+
+    /**
+     * 获取指定 key 的整型系统属性值，不存在或格式错误时返回默认值
+     *
+     * @param key key
+     * @param def 默认值
+     * @return 属性值或默认值
+     */
+    public static int getInt(String key, int def) {
+        String value = get(key);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ignored) {
+            return def;
+        }
+    }
 }
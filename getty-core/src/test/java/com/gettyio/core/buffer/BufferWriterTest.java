@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer;
+
+import com.gettyio.core.buffer.pool.GettyByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+import com.gettyio.core.channel.WriteFuture;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * BufferWriter 计数、水位线与关闭清理测试
+ *
+ * @author gogym
+ */
+public class BufferWriterTest {
+
+    /**
+     * 记录通知的写出通知器
+     */
+    private static final class RecordingNotifier implements FlushNotifier {
+
+        private int flushes;
+
+        private final List<Boolean> changes = new ArrayList<>();
+
+        @Override
+        public void notifyFlush() {
+            flushes++;
+        }
+
+        @Override
+        public void writabilityChanged(boolean writable) {
+            changes.add(writable);
+        }
+    }
+
+    @Test
+    public void countsMessagesAndBytes() throws IOException {
+        RecordingNotifier notifier = new RecordingNotifier();
+        BufferWriter writer = new BufferWriter(notifier);
+        writer.write(new byte[10]);
+        writer.writeAndFlush(new byte[20]);
+
+        assertEquals(2, writer.getCount());
+        assertEquals(30, writer.getPendingBytes());
+        assertEquals(1, notifier.flushes);
+
+        List<Object> out = new ArrayList<>();
+        writer.pollAll(out);
+        assertEquals(2, out.size());
+        assertEquals(0, writer.getCount());
+        assertTrue(writer.isEmpty());
+        // 取出后仍计入待写字节数，直到真正写入 Socket
+        assertEquals(30, writer.getPendingBytes());
+
+        writer.bytesWritten(30);
+        assertEquals(0, writer.getPendingBytes());
+    }
+
+    @Test
+    public void untrackedWriterStaysWritable() throws IOException {
+        RecordingNotifier notifier = new RecordingNotifier();
+        BufferWriter writer = new BufferWriter(notifier);
+        writer.write(new byte[1 << 20]);
+
+        assertTrue(writer.isWritable());
+        assertTrue(notifier.changes.isEmpty());
+    }
+
+    @Test
+    public void flipsWritabilityAtWaterMarks() throws IOException {
+        RecordingNotifier notifier = new RecordingNotifier();
+        BufferWriter writer = new BufferWriter(notifier, 100, 40);
+
+        writer.write(new byte[60]);
+        assertTrue(writer.isWritable());
+
+        writer.write(new byte[40]);
+        assertFalse(writer.isWritable());
+        assertEquals(1, notifier.changes.size());
+        assertFalse(notifier.changes.get(0));
+
+        // 越过高水位线后继续写入不重复通知
+        writer.write(new byte[10]);
+        assertEquals(1, notifier.changes.size());
+
+        // 未降至低水位线前保持不可写
+        writer.bytesWritten(60);
+        assertFalse(writer.isWritable());
+
+        writer.bytesWritten(10);
+        assertTrue(writer.isWritable());
+        assertEquals(2, notifier.changes.size());
+        assertTrue(notifier.changes.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLowWaterMarkNotBelowHigh() {
+        new BufferWriter(new RecordingNotifier(), 100, 100);
+    }
+
+    @Test
+    public void closeDiscardsQueuedMessages() throws IOException {
+        RecordingNotifier notifier = new RecordingNotifier();
+        BufferWriter writer = new BufferWriter(notifier, 100, 40);
+        GettyByteBufferPool pool = new GettyByteBufferPool(false);
+        try {
+            PooledByteBuffer buffer = pool.acquire(64);
+            buffer.writeBytes(new byte[50]);
+            WriteFuture future = new WriteFuture();
+            writer.write(buffer);
+            writer.write(new byte[50]);
+            writer.write(future);
+            assertFalse(writer.isWritable());
+
+            writer.close();
+
+            assertTrue(writer.isClosed());
+            assertEquals(0, buffer.refCount());
+            assertTrue(future.isDone());
+            assertTrue(future.cause() instanceof ClosedChannelException);
+            assertEquals(0, writer.getCount());
+            assertEquals(0, writer.getPendingBytes());
+            assertTrue(writer.isWritable());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void rejectsWritesAfterClose() throws IOException {
+        BufferWriter writer = new BufferWriter(new RecordingNotifier());
+        writer.close();
+        try {
+            writer.write(new byte[1]);
+            fail("write after close should fail");
+        } catch (IOException expected) {
+            assertEquals(0, writer.getCount());
+        }
+    }
+}
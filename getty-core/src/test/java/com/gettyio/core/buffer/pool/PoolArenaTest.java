@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer.pool;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PoolArena 分配位置记录、释放与 Chunk 回收测试
+ *
+ * @author Getty Project
+ */
+public class PoolArenaTest {
+
+    private static final int PAGE_SIZE = 8192;
+
+    private static final int MAX_ORDER = 4;
+
+    @Test
+    public void recordsAllocationInCallerCache() {
+        PoolArena arena = new PoolArena(false, PAGE_SIZE, MAX_ORDER);
+        PoolThreadCache cache = new PoolThreadCache(arena, null);
+
+        ByteBuffer first = arena.allocate(PAGE_SIZE, cache);
+        PoolChunk chunk = cache.getLastChunk();
+        int firstOffset = cache.getLastOffset();
+        ByteBuffer second = arena.allocate(PAGE_SIZE, cache);
+        int secondOffset = cache.getLastOffset();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(chunk);
+        assertSame(chunk, cache.getLastChunk());
+        assertTrue(firstOffset != secondOffset);
+        assertEquals(2 * PAGE_SIZE, arena.totalUsedMemory());
+
+        arena.free(chunk, firstOffset, PAGE_SIZE);
+        arena.free(chunk, secondOffset, PAGE_SIZE);
+        assertEquals(0, arena.totalUsedMemory());
+        // 最后一个 Chunk 保留复用
+        assertEquals(1, arena.chunkCount());
+    }
+
+    @Test
+    public void reusesSubpageSlots() {
+        PoolArena arena = new PoolArena(false, PAGE_SIZE, MAX_ORDER);
+        PoolThreadCache cache = new PoolThreadCache(arena, null);
+
+        arena.allocate(100, cache);
+        PoolChunk chunk = cache.getLastChunk();
+        int offset = cache.getLastOffset();
+        int normCapacity = arena.normalizeCapacity(100);
+        arena.free(chunk, offset, normCapacity);
+
+        arena.allocate(100, cache);
+        assertSame(chunk, cache.getLastChunk());
+        assertEquals(offset, cache.getLastOffset());
+    }
+
+    @Test
+    public void hugeAllocationBypassesChunks() {
+        PoolArena arena = new PoolArena(false, PAGE_SIZE, MAX_ORDER);
+        PoolThreadCache cache = new PoolThreadCache(arena, null);
+
+        ByteBuffer huge = arena.allocate(arena.chunkSize(), cache);
+
+        assertEquals(arena.chunkSize(), huge.capacity());
+        assertNull(cache.getLastChunk());
+        assertEquals(0, arena.chunkCount());
+    }
+
+    @Test
+    public void createsNewChunkWhenFullAndDestroysItWhenEmpty() {
+        PoolArena arena = new PoolArena(false, PAGE_SIZE, MAX_ORDER);
+        PoolThreadCache cache = new PoolThreadCache(arena, null);
+        int half = arena.chunkSize() / 2;
+
+        arena.allocate(half, cache);
+        PoolChunk firstChunk = cache.getLastChunk();
+        int firstOffset = cache.getLastOffset();
+        arena.allocate(half, cache);
+        int secondOffset = cache.getLastOffset();
+        arena.allocate(half, cache);
+        PoolChunk secondChunk = cache.getLastChunk();
+        int thirdOffset = cache.getLastOffset();
+
+        assertTrue(firstChunk != secondChunk);
+        assertEquals(2, arena.chunkCount());
+
+        arena.free(secondChunk, thirdOffset, half);
+        assertEquals(1, arena.chunkCount());
+
+        arena.free(firstChunk, firstOffset, half);
+        arena.free(firstChunk, secondOffset, half);
+        assertEquals(1, arena.chunkCount());
+        assertEquals(0, arena.totalUsedMemory());
+    }
+
+    @Test
+    public void pooledBufferReturnsMemoryOnRelease() {
+        GettyByteBufferPool pool = new GettyByteBufferPool(false, PAGE_SIZE, MAX_ORDER, 1);
+        try {
+            PooledByteBuffer buffer = pool.acquire(1000);
+            buffer.retain();
+            buffer.writeBytes(new byte[1000]);
+            assertEquals(1000, buffer.readableBytes());
+
+            assertTrue(!buffer.release());
+            assertTrue(buffer.release());
+            assertEquals(0, buffer.refCount());
+
+            // 归还到线程缓存后，同尺寸的下一次分配命中缓存
+            long hits = pool.getThreadCache().cacheHitCount();
+            pool.acquire(1000).release();
+            assertEquals(hits + 1, pool.getThreadCache().cacheHitCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.buffer.pool;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PoolChunk 整页与子页分配、释放测试
+ *
+ * @author Getty Project
+ */
+public class PoolChunkTest {
+
+    private static final int PAGE_SIZE = 8192;
+
+    private static final int MAX_ORDER = 4;
+
+    private static final int CHUNK_SIZE = PAGE_SIZE << MAX_ORDER;
+
+    @Test
+    public void allocatesAndFreesPages() {
+        PoolChunk chunk = new PoolChunk(null, PAGE_SIZE, MAX_ORDER, false);
+        assertEquals(CHUNK_SIZE, chunk.chunkSize());
+
+        ByteBuffer first = chunk.allocate(2 * PAGE_SIZE);
+        int firstOffset = chunk.lastAllocOffset();
+        ByteBuffer second = chunk.allocate(2 * PAGE_SIZE);
+        int secondOffset = chunk.lastAllocOffset();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2 * PAGE_SIZE, first.capacity());
+        assertTrue(firstOffset != secondOffset);
+        assertEquals(0, firstOffset % (2 * PAGE_SIZE));
+        assertEquals(4 * PAGE_SIZE, chunk.usage());
+        assertEquals(CHUNK_SIZE - 4 * PAGE_SIZE, chunk.freeBytes());
+
+        chunk.free(firstOffset, 2 * PAGE_SIZE);
+        chunk.free(secondOffset, 2 * PAGE_SIZE);
+        assertTrue(chunk.isEmpty());
+        assertEquals(CHUNK_SIZE, chunk.freeBytes());
+    }
+
+    @Test
+    public void returnsNullWhenExhausted() {
+        PoolChunk chunk = new PoolChunk(null, PAGE_SIZE, MAX_ORDER, false);
+        assertNotNull(chunk.allocate(CHUNK_SIZE / 2));
+        assertNotNull(chunk.allocate(CHUNK_SIZE / 4));
+        assertNull(chunk.allocate(CHUNK_SIZE / 2));
+        assertNull(chunk.allocate(2 * CHUNK_SIZE));
+
+        // 剩余的 1/4 仍可按页分配
+        assertNotNull(chunk.allocate(CHUNK_SIZE / 4));
+        assertEquals(100, chunk.usagePercent());
+    }
+
+    @Test
+    public void mergesFreedPagesBack() {
+        PoolChunk chunk = new PoolChunk(null, PAGE_SIZE, MAX_ORDER, false);
+        int runs = CHUNK_SIZE / (2 * PAGE_SIZE);
+        int[] offsets = new int[runs];
+        for (int i = 0; i < runs; i++) {
+            assertNotNull(chunk.allocate(2 * PAGE_SIZE));
+            offsets[i] = chunk.lastAllocOffset();
+        }
+        assertNull(chunk.allocate(PAGE_SIZE));
+
+        for (int offset : offsets) {
+            chunk.free(offset, 2 * PAGE_SIZE);
+        }
+        // 全部归还后应能重新分配整个 Chunk
+        assertNotNull(chunk.allocate(CHUNK_SIZE));
+        assertEquals(0, chunk.lastAllocOffset());
+    }
+
+    @Test
+    public void allocatesDistinctSubpageSlots() {
+        PoolChunk chunk = new PoolChunk(null, PAGE_SIZE, MAX_ORDER, false);
+        int slots = PAGE_SIZE / 64 + 1;
+        Set<Integer> offsets = new HashSet<>();
+        int[] allocated = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            ByteBuffer buf = chunk.allocate(64);
+            assertNotNull(buf);
+            assertEquals(64, buf.capacity());
+            allocated[i] = chunk.lastAllocOffset();
+            assertTrue(offsets.add(allocated[i]));
+        }
+        // 超过一页的 slot 数，占用了两个页
+        assertEquals(CHUNK_SIZE - 2 * PAGE_SIZE, chunk.freeBytes());
+
+        for (int offset : allocated) {
+            chunk.free(offset, 64);
+        }
+        assertTrue(chunk.isEmpty());
+        // 同尺寸链表中最后一个空闲页保留复用，只归还另一个页
+        assertEquals(CHUNK_SIZE - PAGE_SIZE, chunk.freeBytes());
+
+        Set<Integer> reused = new HashSet<>();
+        for (int i = 0; i < PAGE_SIZE / 64; i++) {
+            assertNotNull(chunk.allocate(64));
+            reused.add(chunk.lastAllocOffset());
+        }
+        assertEquals(PAGE_SIZE / 64, reused.size());
+        assertEquals(CHUNK_SIZE - PAGE_SIZE, chunk.freeBytes());
+    }
+}
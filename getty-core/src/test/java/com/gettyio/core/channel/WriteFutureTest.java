@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WriteFuture 完成状态、监听器与等待测试
+ *
+ * @author gogym
+ */
+public class WriteFutureTest {
+
+    @Test
+    public void notifiesListenersOnSuccess() {
+        WriteFuture future = new WriteFuture();
+        List<WriteFuture> notified = new ArrayList<>();
+        future.addListener(notified::add);
+        future.addListener(notified::add);
+        assertTrue(notified.isEmpty());
+
+        assertTrue(future.setSuccess());
+
+        assertEquals(2, notified.size());
+        assertSame(future, notified.get(0));
+        assertTrue(future.isDone());
+        assertTrue(future.isSuccess());
+        assertNull(future.cause());
+    }
+
+    @Test
+    public void completesOnlyOnce() {
+        WriteFuture future = new WriteFuture();
+        IOException cause = new IOException("broken pipe");
+        assertTrue(future.setFailure(cause));
+
+        assertFalse(future.setSuccess());
+        assertFalse(future.setFailure(new IOException()));
+        assertFalse(future.isSuccess());
+        assertSame(cause, future.cause());
+    }
+
+    @Test
+    public void notifiesLateListenerImmediately() {
+        WriteFuture future = new WriteFuture();
+        future.setSuccess();
+        List<WriteFuture> notified = new ArrayList<>();
+        future.addListener(notified::add);
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    public void listenerErrorDoesNotStopOthers() {
+        WriteFuture future = new WriteFuture();
+        List<WriteFuture> notified = new ArrayList<>();
+        future.addListener(f -> {
+            throw new IllegalStateException("listener failure");
+        });
+        future.addListener(notified::add);
+        future.setSuccess();
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    public void awaitReturnsAfterCompletionFromAnotherThread() throws InterruptedException {
+        WriteFuture future = new WriteFuture();
+        assertFalse(future.await(10, TimeUnit.MILLISECONDS));
+
+        Thread completer = new Thread(future::setSuccess);
+        completer.start();
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        completer.join();
+    }
+
+    @Test
+    public void voidFutureIgnoresCompletion() {
+        assertTrue(WriteFuture.VOID.isVoid());
+        assertFalse(WriteFuture.VOID.setSuccess());
+        assertFalse(WriteFuture.VOID.isDone());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void voidFutureRejectsListeners() {
+        WriteFuture.VOID.addListener(f -> {
+        });
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.channel.starter;
+
+import com.gettyio.core.channel.config.GettyConfig;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * ConnectionLimiter 连接数、单 IP 与建连速率限制测试
+ *
+ * @author gogym
+ */
+public class ConnectionLimiterTest {
+
+    private static InetAddress address(int last) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) last});
+    }
+
+    @Test
+    public void limitsTotalConnections() {
+        ConnectionLimiter limiter = new ConnectionLimiter(2, 0, 0, 0);
+        ConnectionLimiter.Permit first = limiter.acquire(null);
+        assertNotNull(first);
+        assertNotNull(limiter.acquire(null));
+        assertNull(limiter.acquire(null));
+        assertEquals(2, limiter.getConnectionCount());
+        assertEquals(1, limiter.getRejectedCount());
+
+        first.release();
+        assertEquals(1, limiter.getConnectionCount());
+        assertNotNull(limiter.acquire(null));
+    }
+
+    @Test
+    public void releaseIsIdempotent() {
+        ConnectionLimiter limiter = new ConnectionLimiter(1, 0, 0, 0);
+        ConnectionLimiter.Permit permit = limiter.acquire(null);
+        permit.release();
+        permit.operationComplete(null);
+        assertEquals(0, limiter.getConnectionCount());
+    }
+
+    @Test
+    public void limitsConnectionsPerIp() throws UnknownHostException {
+        ConnectionLimiter limiter = new ConnectionLimiter(0, 1, 0, 0);
+        ConnectionLimiter.Permit permit = limiter.acquire(address(1));
+        assertNotNull(permit);
+        assertNull(limiter.acquire(address(1)));
+        assertNotNull(limiter.acquire(address(2)));
+        // 单 IP 拒绝时回滚全局计数
+        assertEquals(2, limiter.getConnectionCount());
+
+        permit.release();
+        assertNotNull(limiter.acquire(address(1)));
+    }
+
+    @Test
+    public void limitsAcceptRate() {
+        ConnectionLimiter limiter = new ConnectionLimiter(0, 0, 1, 2);
+        assertNotNull(limiter.acquire(null));
+        assertNotNull(limiter.acquire(null));
+        assertNull(limiter.acquire(null));
+        assertEquals(1, limiter.getRejectedCount());
+        // 速率拒绝不占用连接配额
+        assertEquals(2, limiter.getConnectionCount());
+    }
+
+    @Test
+    public void createReturnsNullWithoutLimits() {
+        GettyConfig config = new GettyConfig();
+        assertNull(ConnectionLimiter.create(config));
+
+        config.setMaxConnections(10);
+        assertNotNull(ConnectionLimiter.create(config));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeLimits() {
+        new ConnectionLimiter(-1, 0, 0, 0);
+    }
+}
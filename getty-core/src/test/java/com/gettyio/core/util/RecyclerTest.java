@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Recycler 同线程复用、跨线程归还与重复回收测试
+ *
+ * @author gogym
+ */
+public class RecyclerTest {
+
+    private static final class Item {
+
+        private final Recycler.Handle<Item> handle;
+
+        Item(Recycler.Handle<Item> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+
+    private static Recycler<Item> newRecycler(int maxCapacity) {
+        return new Recycler<Item>(maxCapacity) {
+            @Override
+            protected Item newObject(Handle<Item> handle) {
+                return new Item(handle);
+            }
+        };
+    }
+
+    @Test
+    public void reusesObjectOnSameThread() {
+        Recycler<Item> recycler = newRecycler(16);
+        Item item = recycler.get();
+        item.recycle();
+        assertEquals(1, recycler.threadLocalSize());
+        assertSame(item, recycler.get());
+        assertEquals(0, recycler.threadLocalSize());
+    }
+
+    @Test
+    public void returnsObjectToOwnerThread() throws InterruptedException {
+        Recycler<Item> recycler = newRecycler(16);
+        Item item = recycler.get();
+
+        Thread releaser = new Thread(item::recycle);
+        releaser.start();
+        releaser.join();
+
+        // 跨线程归还的对象回到分配线程，而不是释放线程
+        assertSame(item, recycler.get());
+    }
+
+    @Test
+    public void rejectsDoubleRecycle() {
+        Recycler<Item> recycler = newRecycler(16);
+        Item item = recycler.get();
+        item.recycle();
+        try {
+            item.recycle();
+            fail("second recycle should fail");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, recycler.threadLocalSize());
+        }
+
+        // 重新取出后可再次回收
+        assertSame(item, recycler.get());
+        item.recycle();
+    }
+
+    @Test
+    public void dropsObjectsBeyondCapacity() {
+        Recycler<Item> recycler = newRecycler(1);
+        Item first = recycler.get();
+        Item second = recycler.get();
+        first.recycle();
+        second.recycle();
+        assertEquals(1, recycler.threadLocalSize());
+    }
+
+    @Test
+    public void zeroCapacityDisablesPooling() {
+        Recycler<Item> recycler = newRecycler(0);
+        Item item = recycler.get();
+        item.recycle();
+        assertNotSame(item, recycler.get());
+        assertEquals(0, recycler.threadLocalSize());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.expansion.handler.stream;
+
+import com.gettyio.core.buffer.FileRegion;
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * 文件分块输入源，每块通过 {@link FileChannel#read(java.nio.ByteBuffer, long)} 定位读取到池化缓冲区。
+ * <p>
+ * 适用于需要经过 SSL 等出站处理器、无法使用 {@link FileRegion} 零拷贝发送的场景。
+ * </p>
+ *
+ * @author gogym
+ */
+public class ChunkedFile implements ChunkedInput {
+
+    /** 文件区域，负责定位读取和关闭文件 */
+    private final FileRegion region;
+
+    /** 每块大小 */
+    private final int chunkSize;
+
+    /**
+     * 以默认块大小读取整个文件。
+     *
+     * @param file 文件
+     * @throws IOException 打开失败时抛出
+     */
+    public ChunkedFile(File file) throws IOException {
+        this(file, FileRegion.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 以指定块大小读取整个文件。
+     *
+     * @param file      文件
+     * @param chunkSize 每块大小
+     * @throws IOException 打开失败时抛出
+     */
+    public ChunkedFile(File file, int chunkSize) throws IOException {
+        this(new RandomAccessFile(file, "r").getChannel(), 0, file.length(), chunkSize);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param file      文件通道，关闭时一并关闭
+     * @param offset    起始位置
+     * @param length    读取字节数
+     * @param chunkSize 每块大小
+     */
+    public ChunkedFile(FileChannel file, long offset, long length, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected: > 0)");
+        }
+        this.region = new FileRegion(file, offset, length);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return region.isDone();
+    }
+
+    @Override
+    public PooledByteBuffer readChunk(ByteBufferPool byteBufferPool) throws IOException {
+        return region.readChunk(byteBufferPool, chunkSize);
+    }
+
+    @Override
+    public long length() {
+        return region.count();
+    }
+
+    @Override
+    public long progress() {
+        return region.transferred();
+    }
+
+    @Override
+    public void close() {
+        region.release();
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedFile{length=" + length() + ", progress=" + progress() + ", chunkSize=" + chunkSize + '}';
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.expansion.handler.stream;
+
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+
+/**
+ * 分块输入源。
+ * <p>
+ * 由 {@link ChunkedWriteHandler} 按通道的可写状态逐块拉取，每次只读取一块数据到池化缓冲区，
+ * 大数据量传输时内存占用与数据总长度无关。实现类仅由持有它的处理器在同一时刻的单个线程中访问。
+ * </p>
+ *
+ * @author gogym
+ * @see ChunkedFile
+ * @see ChunkedMappedFile
+ * @see ChunkedStream
+ */
+public interface ChunkedInput {
+
+    /**
+     * 是否已读取完毕。
+     *
+     * @return true 表示没有更多数据
+     * @throws Exception 读取失败时抛出
+     */
+    boolean isEndOfInput() throws Exception;
+
+    /**
+     * 读取下一块数据。
+     *
+     * @param byteBufferPool 内存池
+     * @return 包含下一块数据的缓冲区，由调用方负责释放；暂无数据或已读取完毕时返回 null
+     * @throws Exception 读取失败时抛出
+     */
+    PooledByteBuffer readChunk(ByteBufferPool byteBufferPool) throws Exception;
+
+    /**
+     * 数据总长度。
+     *
+     * @return 总字节数，未知时返回 -1
+     */
+    long length();
+
+    /**
+     * 已读取的字节数。
+     *
+     * @return 已读取字节数
+     */
+    long progress();
+
+    /**
+     * 关闭输入源并释放底层资源，重复调用无副作用。
+     *
+     * @throws Exception 关闭失败时抛出
+     */
+    void close() throws Exception;
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.expansion.handler.stream;
+
+import com.gettyio.core.buffer.FileRegion;
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 内存映射文件分块输入源。
+ * <p>
+ * 按窗口（默认 8MB）将文件区域映射到内存，每块从当前窗口拷贝到池化缓冲区，省去逐块 read 系统调用。
+ * 窗口读完后立即解除映射再映射下一个窗口，进程常驻内存最多包含一个窗口的页缓存，与文件大小无关。
+ * </p>
+ *
+ * @author gogym
+ */
+public class ChunkedMappedFile implements ChunkedInput {
+
+    /** 默认映射窗口大小（字节） */
+    public static final int DEFAULT_MAP_SIZE = 8 * 1024 * 1024;
+
+    /** sun.misc.Unsafe 实例（JDK 9+ 解除映射用） */
+    private static final Object UNSAFE;
+
+    /** Unsafe#invokeCleaner(ByteBuffer)，JDK 8 下为 null */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception ignored) {
+            // JDK 8 无 invokeCleaner，回退到 cleaner 反射
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /** 文件通道 */
+    private final FileChannel file;
+
+    /** 起始位置 */
+    private final long offset;
+
+    /** 读取字节数 */
+    private final long length;
+
+    /** 每块大小 */
+    private final int chunkSize;
+
+    /** 映射窗口大小 */
+    private final int mapSize;
+
+    /** 当前映射窗口 */
+    private MappedByteBuffer window;
+
+    /** 已读取字节数 */
+    private long progress;
+
+    /** 是否已关闭 */
+    private boolean closed;
+
+    /**
+     * 以默认块大小和窗口大小映射整个文件。
+     *
+     * @param file 文件
+     * @throws IOException 打开失败时抛出
+     */
+    public ChunkedMappedFile(File file) throws IOException {
+        this(new RandomAccessFile(file, "r").getChannel(), 0, file.length(),
+                FileRegion.DEFAULT_CHUNK_SIZE, DEFAULT_MAP_SIZE);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param file      文件通道，关闭时一并关闭
+     * @param offset    起始位置
+     * @param length    读取字节数
+     * @param chunkSize 每块大小
+     * @param mapSize   映射窗口大小，不小于 chunkSize
+     */
+    public ChunkedMappedFile(FileChannel file, long offset, long length, int chunkSize, int mapSize) {
+        if (file == null) {
+            throw new NullPointerException("file can't be null");
+        }
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset: " + offset + ", length: " + length);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected: > 0)");
+        }
+        if (mapSize < chunkSize) {
+            throw new IllegalArgumentException("mapSize: " + mapSize + " (expected: >= chunkSize)");
+        }
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.mapSize = mapSize;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return closed || progress >= length;
+    }
+
+    @Override
+    public PooledByteBuffer readChunk(ByteBufferPool byteBufferPool) throws IOException {
+        if (isEndOfInput()) {
+            return null;
+        }
+        if (window == null || !window.hasRemaining()) {
+            unmap(window);
+            window = null;
+            long size = Math.min(mapSize, length - progress);
+            window = file.map(FileChannel.MapMode.READ_ONLY, offset + progress, size);
+        }
+
+        int len = Math.min(chunkSize, window.remaining());
+        PooledByteBuffer buf = byteBufferPool.acquire(len);
+        ByteBuffer bb = buf.flipToFill();
+        ByteBuffer src = window.duplicate();
+        src.limit(src.position() + len);
+        bb.put(src);
+        buf.flipToFlush();
+        window.position(window.position() + len);
+        progress += len;
+        if (progress >= length) {
+            unmap(window);
+            window = null;
+        }
+        return buf;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        unmap(window);
+        window = null;
+        file.close();
+    }
+
+    /**
+     * 立即解除映射，不等待 GC 回收。JDK 9+ 使用 {@code Unsafe.invokeCleaner}，JDK 8 通过反射调用 cleaner。
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception ignored) {
+            // 反射不可用时由 GC 回收映射
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedMappedFile{length=" + length + ", progress=" + progress + ", chunkSize=" + chunkSize
+                + ", mapSize=" + mapSize + '}';
+    }
+}
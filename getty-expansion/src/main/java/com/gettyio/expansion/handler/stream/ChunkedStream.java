@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.expansion.handler.stream;
+
+import com.gettyio.core.buffer.FileRegion;
+import com.gettyio.core.buffer.pool.ByteBufferPool;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * 输入流分块输入源。
+ * <p>
+ * 每块最多读取 chunkSize 字节，流中暂无可用数据时至少阻塞读取 1 字节。
+ * 读取发生在调用 {@link ChunkedWriteHandler} 的线程或 I/O 线程中，慢速流（如网络流）
+ * 会阻塞该线程，此类流应在业务线程中预先缓冲。
+ * </p>
+ *
+ * @author gogym
+ */
+public class ChunkedStream implements ChunkedInput {
+
+    /** 输入流，用于回推探测结束时读取的 1 字节 */
+    private final PushbackInputStream in;
+
+    /** 每块大小 */
+    private final int chunkSize;
+
+    /** 读取用临时数组 */
+    private byte[] tmp;
+
+    /** 已读取字节数 */
+    private long progress;
+
+    /** 是否已关闭 */
+    private boolean closed;
+
+    /**
+     * 以默认块大小读取输入流。
+     *
+     * @param in 输入流，关闭时一并关闭
+     */
+    public ChunkedStream(InputStream in) {
+        this(in, FileRegion.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param in        输入流，关闭时一并关闭
+     * @param chunkSize 每块大小
+     */
+    public ChunkedStream(InputStream in, int chunkSize) {
+        if (in == null) {
+            throw new NullPointerException("in can't be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected: > 0)");
+        }
+        this.in = in instanceof PushbackInputStream ? (PushbackInputStream) in : new PushbackInputStream(in);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws IOException {
+        if (closed) {
+            return true;
+        }
+        int b = in.read();
+        if (b < 0) {
+            return true;
+        }
+        in.unread(b);
+        return false;
+    }
+
+    @Override
+    public PooledByteBuffer readChunk(ByteBufferPool byteBufferPool) throws IOException {
+        if (isEndOfInput()) {
+            return null;
+        }
+        int len = Math.max(1, Math.min(chunkSize, in.available()));
+        if (tmp == null || tmp.length < len) {
+            tmp = new byte[chunkSize];
+        }
+        int n = in.read(tmp, 0, len);
+        if (n <= 0) {
+            return null;
+        }
+        PooledByteBuffer buf = byteBufferPool.acquire(n);
+        buf.flipToFill().put(tmp, 0, n);
+        buf.flipToFlush();
+        progress += n;
+        return buf;
+    }
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        tmp = null;
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedStream{progress=" + progress + ", chunkSize=" + chunkSize + '}';
+    }
+}
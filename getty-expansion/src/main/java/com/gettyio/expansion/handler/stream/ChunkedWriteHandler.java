@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 The Getty Project
+ *
+ * The Getty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.gettyio.expansion.handler.stream;
+
+import com.gettyio.core.buffer.BufferWriter;
+import com.gettyio.core.buffer.pool.PooledByteBuffer;
+import com.gettyio.core.channel.AbstractSocketChannel;
+import com.gettyio.core.channel.ChannelState;
+import com.gettyio.core.logging.InternalLogger;
+import com.gettyio.core.logging.InternalLoggerFactory;
+import com.gettyio.core.pipeline.ChannelHandlerContext;
+import com.gettyio.core.pipeline.all.ChannelAllBoundHandlerAdapter;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * 分块写出处理器。
+ * <p>
+ * 出站消息为 {@link ChunkedInput} 时不一次性读入内存，而是在通道可写时逐块读取到内存池缓冲区并向前传播：
+ * 待写字节数达到高水位线后通道变为不可写，暂停拉取；写出到低水位线以下时由
+ * {@link ChannelState#CHANNEL_WRITABILITY_CHANGED} 事件恢复。任意时刻驻留内存的数据不超过高水位线加一块，
+ * 与传输总量无关，NIO 和 AIO 通道均适用。
+ * </p>
+ * <p>
+ * 存在未写完的分块输入时，其后的普通消息排队等待，保证写出顺序。
+ * 需要加密时应添加在 SSLHandler 之后，使分块数据经过加密。
+ * 由于分块在处理器内延迟写出，{@code write(obj, future)} 的 future 不能用于跟踪分块输入的完成。
+ * </p>
+ *
+ * @author gogym
+ */
+public class ChunkedWriteHandler extends ChannelAllBoundHandlerAdapter {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ChunkedWriteHandler.class);
+
+    /** 等待写出的消息队列，访问需持有 this 锁 */
+    private final Queue<Object> queue = new ArrayDeque<>();
+
+    /** 是否正在写出，防止写出过程中同线程回调可写事件时重入 */
+    private boolean flushing;
+
+    @Override
+    public void channelWrite(ChannelHandlerContext ctx, Object obj) throws Exception {
+        synchronized (this) {
+            if (!(obj instanceof ChunkedInput) && queue.isEmpty()) {
+                ctx.fireChannelProcess(ChannelState.CHANNEL_WRITE, obj);
+                return;
+            }
+            queue.add(obj);
+            doFlush(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWriteable()) {
+            synchronized (this) {
+                doFlush(ctx);
+            }
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx) throws Exception {
+        synchronized (this) {
+            discard(new ClosedChannelException());
+        }
+        super.channelClosed(ctx);
+    }
+
+    /**
+     * 恢复写出。输入源暂时没有数据（{@link ChunkedInput#readChunk} 返回 null）时，
+     * 应在数据就绪后调用此方法。
+     */
+    public void resumeTransfer() {
+        ChannelHandlerContext ctx = channelHandlerContext();
+        if (ctx == null) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                doFlush(ctx);
+            } catch (Exception e) {
+                LOGGER.error("resume chunked transfer failed", e);
+            }
+        }
+    }
+
+    /**
+     * 在通道可写期间依次写出队列中的消息，分块输入每次读取一块。调用方需持有 this 锁。
+     */
+    private void doFlush(ChannelHandlerContext ctx) throws Exception {
+        if (flushing) {
+            return;
+        }
+        flushing = true;
+        AbstractSocketChannel channel = ctx.channel();
+        boolean written = false;
+        try {
+            while (channel.isWriteable()) {
+                if (channel.isInvalid()) {
+                    discard(new ClosedChannelException());
+                    break;
+                }
+                Object current = queue.peek();
+                if (current == null) {
+                    break;
+                }
+                if (!(current instanceof ChunkedInput)) {
+                    queue.poll();
+                    ctx.fireChannelProcess(ChannelState.CHANNEL_WRITE, current);
+                    written = true;
+                    continue;
+                }
+
+                ChunkedInput input = (ChunkedInput) current;
+                PooledByteBuffer chunk;
+                boolean end;
+                try {
+                    chunk = input.readChunk(channel.getByteBufferPool());
+                    end = input.isEndOfInput();
+                } catch (Exception e) {
+                    // 对端已收到部分数据，后续消息无法正确衔接，关闭通道
+                    LOGGER.error("read chunk failed, closing channel", e);
+                    queue.poll();
+                    closeInput(input);
+                    channel.close();
+                    break;
+                }
+                if (end) {
+                    queue.poll();
+                    closeInput(input);
+                }
+                if (chunk != null) {
+                    ctx.fireChannelProcess(ChannelState.CHANNEL_WRITE, chunk);
+                    written = true;
+                } else if (!end) {
+                    // 输入源暂无数据，等待 resumeTransfer
+                    break;
+                }
+            }
+        } finally {
+            flushing = false;
+            if (written) {
+                channel.flush();
+            }
+        }
+    }
+
+    /**
+     * 丢弃队列中全部消息：关闭分块输入，释放其他消息。调用方需持有 this 锁。
+     */
+    private void discard(Throwable cause) {
+        Object msg;
+        while ((msg = queue.poll()) != null) {
+            if (msg instanceof ChunkedInput) {
+                closeInput((ChunkedInput) msg);
+            } else {
+                BufferWriter.discard(msg, cause);
+            }
+        }
+    }
+
+    private static void closeInput(ChunkedInput input) {
+        try {
+            input.close();
+        } catch (Exception e) {
+            LOGGER.warn("close chunked input failed", e);
+        }
+    }
+}
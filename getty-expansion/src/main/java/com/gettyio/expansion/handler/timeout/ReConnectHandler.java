@@ -22,8 +22,9 @@ import com.gettyio.core.channel.config.GettyConfig;
 import com.gettyio.core.channel.internal.ReadCompletionHandler;
 import com.gettyio.core.channel.loop.AioWriteThread;
 import com.gettyio.core.channel.loop.AioWriteThreadGroup;
-import com.gettyio.core.channel.loop.SelectedSelector;
+import com.gettyio.core.channel.loop.Epoll;
 import com.gettyio.core.channel.starter.ConnectHandler;
+import com.gettyio.core.channel.starter.NioClientStarter;
 import com.gettyio.core.handler.ssl.IHandshakeListener;
 import com.gettyio.core.handler.ssl.SSLException;
 import com.gettyio.core.logging.InternalLogger;
@@ -38,9 +39,6 @@ import java.net.InetSocketAddress;
 import java.net.SocketOption;
 import java.nio.channels.AsynchronousChannelGroup;
 import java.nio.channels.AsynchronousSocketChannel;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -83,8 +81,12 @@ public class ReConnectHandler extends ChannelInboundHandlerAdapter implements Ti
     /** 连接成功回调 */
     private final ConnectHandler connectHandler;
 
-    /** 定时器 */
-    private final HashedWheelTimer timer = new HashedWheelTimer();
+    /** 定时器，工作线程为 daemon：放弃重连后不阻止 JVM 退出 */
+    private final HashedWheelTimer timer = new HashedWheelTimer(r -> {
+        Thread thread = new Thread(r, "getty-reconnect-timer");
+        thread.setDaemon(true);
+        return thread;
+    }, 100, TimeUnit.MILLISECONDS, 512);
 
     /** 当前通道引用 */
     private AbstractSocketChannel channel;
@@ -112,6 +114,8 @@ public class ReConnectHandler extends ChannelInboundHandlerAdapter implements Ti
     @Override
     public void channelAdded(ChannelHandlerContext ctx) throws Exception {
         this.channel = ctx.channel();
+        // 重连在原通道的事件循环上发起，通道关闭时不能停止启动器私有的事件循环组；放弃重连时由本处理器停止
+        channel.setChannelAttribute(NioClientStarter.KEEP_EVENT_LOOP_ALIVE, Boolean.TRUE);
         // 重置重连计数
         attempts = 0;
         reconnecting.set(false);
@@ -120,7 +124,10 @@ public class ReConnectHandler extends ChannelInboundHandlerAdapter implements Ti
 
     @Override
     public void channelClosed(ChannelHandlerContext ctx) throws Exception {
-        if (!ctx.channel().isInitiateClose() && timer.workerState == HashedWheelTimer.WORKER_STATE_INIT) {
+        if (ctx.channel().isInitiateClose()) {
+            // 主动关闭不再重连
+            NioClientStarter.releaseEventLoopGroup(ctx.channel());
+        } else if (timer.workerState == HashedWheelTimer.WORKER_STATE_INIT) {
             // 非主动关闭时触发重连
             reConnect(ctx.channel());
         }
@@ -181,36 +188,50 @@ public class ReConnectHandler extends ChannelInboundHandlerAdapter implements Ti
     }
 
     /**
-     * NIO 模式重连。
+     * NIO 模式重连。在原通道的事件循环上发起非阻塞连接，不阻塞定时线程。
      */
     private void reconnectNio(final GettyConfig clientConfig) {
         try {
-            final java.nio.channels.SocketChannel socketChannel = java.nio.channels.SocketChannel.open();
+            final java.nio.channels.SocketChannel socketChannel = clientConfig.getSelectorProvider().openSocketChannel();
             applySocketOptions(socketChannel, clientConfig);
+            if (clientConfig.isEpoll()) {
+                Epoll.applyQuickAck(socketChannel);
+            }
             socketChannel.configureBlocking(false);
-            socketChannel.connect(new InetSocketAddress(clientConfig.getHost(), clientConfig.getPort()));
-
-            SelectedSelector selector = new SelectedSelector(Selector.open());
-            socketChannel.register(selector, SelectionKey.OP_CONNECT);
-
-            while (selector.select() > 0) {
-                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-                while (it.hasNext()) {
-                    SelectionKey sk = it.next();
-                    if (sk.isConnectable()) {
-                        java.nio.channels.SocketChannel ch = (java.nio.channels.SocketChannel) sk.channel();
-                        if (ch.isConnectionPending()) {
-                            ch.finishConnect();
-                            channel = new NioChannel(clientConfig, socketChannel,
-                                    ((NioChannel) channel).getNioEventLoop(),
-                                    channel.getByteBufferPool(), channel.getChannelInitializer());
-                            onConnectSuccess(channel);
-                            ((NioChannel) channel).register();
+
+            final NioChannel oldChannel = (NioChannel) channel;
+            oldChannel.getNioEventLoop().connect(socketChannel,
+                    new InetSocketAddress(clientConfig.getHost(), clientConfig.getPort()),
+                    clientConfig.getConnectTimeout(), socketChannel,
+                    new java.nio.channels.CompletionHandler<Void, java.nio.channels.SocketChannel>() {
+
+                        @Override
+                        public void completed(Void result, java.nio.channels.SocketChannel attachment) {
+                            LOGGER.info("reconnect NIO server success");
+                            try {
+                                NioChannel newChannel = new NioChannel(clientConfig, attachment,
+                                        oldChannel.getNioEventLoop(),
+                                        oldChannel.getByteBufferPool(), oldChannel.getChannelInitializer());
+                                // 新通道仍运行在原私有事件循环组上，放弃重连时需要据此停止
+                                Object ownedGroup = oldChannel.getChannelAttribute(NioClientStarter.OWNED_EVENT_LOOP_GROUP);
+                                if (ownedGroup != null) {
+                                    newChannel.setChannelAttribute(NioClientStarter.OWNED_EVENT_LOOP_GROUP, ownedGroup);
+                                }
+                                newChannel.register();
+                                channel = newChannel;
+                                onConnectSuccess(newChannel);
+                            } catch (Exception e) {
+                                LOGGER.error("reconnect NIO server failed", e);
+                                onConnectFailed(e);
+                            }
                         }
-                    }
-                    it.remove();
-                }
-            }
+
+                        @Override
+                        public void failed(Throwable exc, java.nio.channels.SocketChannel attachment) {
+                            LOGGER.error("reconnect NIO server failed", exc);
+                            onConnectFailed(exc);
+                        }
+                    });
         } catch (Exception e) {
             LOGGER.error("reconnect NIO server failed", e);
             onConnectFailed(e);
@@ -271,11 +292,18 @@ public class ReConnectHandler extends ChannelInboundHandlerAdapter implements Ti
      * 调度下一次重连。
      */
     private void reConnect(AbstractSocketChannel abstractSocketChannel) {
-        if (abstractSocketChannel.isInvalid() && attempts < retry) {
+        if (!abstractSocketChannel.isInvalid()) {
+            return;
+        }
+        if (attempts < retry) {
             LOGGER.debug("scheduling reconnect, attempt {}/{}", attempts + 1, retry);
             long delay = attempts * threshold;
             timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
             attempts++;
+        } else {
+            // 重试次数用完，不再重连
+            LOGGER.debug("reconnect attempts exhausted ({})", retry);
+            NioClientStarter.releaseEventLoopGroup(abstractSocketChannel);
         }
     }
 }